@@ -0,0 +1,19 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.service.async.AsyncService;
+import com.jr.core.service.async.FifoPolicy;
+import com.jr.core.service.async.TimerTask;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * The service used by the benchmarks
+ */
+final class BenchmarkService extends AsyncService<Callable<?>> {
+
+    BenchmarkService( int maxThread, List<TimerTask> timerTaskList, FifoPolicy fifoPolicy ) {
+        super( maxThread, timerTaskList, null, fifoPolicy );
+    }
+
+}
@@ -0,0 +1,29 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.api.async.Task;
+import com.jr.core.common.async.TaskResultStatus;
+
+/**
+ * A task that does nothing : only the cost of the library is measured
+ */
+public class BenchmarkTask extends Task<Integer> {
+
+    private final int number;
+
+    public BenchmarkTask( int number ) {
+        this.number = number;
+    }
+
+    @Override
+    public Integer call() {
+        this.setResult( this.number );
+        this.setStatus( TaskResultStatus.OK );
+        return this.number;
+    }
+
+    @Override
+    public String toString() {
+        return "BenchmarkTask{number=" + this.number + '}';
+    }
+
+}
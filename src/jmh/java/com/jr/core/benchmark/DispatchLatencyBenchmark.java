@@ -0,0 +1,78 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.service.async.AsyncService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enqueue-to-start latency : time between {@link AsyncService#addTask} and the first line of {@link Callable#call()}.
+ *
+ * A blocking task holds one worker for the whole trial so that the controller never stops between two samples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DispatchLatencyBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private BenchmarkService service;
+    private CountDownLatch release;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        this.release = new CountDownLatch(1);
+        this.service = new BenchmarkService( 2, null, null );
+
+        CountDownLatch holderStarted = new CountDownLatch(1);
+        this.service.addTask( () -> {
+            holderStarted.countDown();
+            this.release.await();
+            return null;
+        });
+        this.service.executorAsynchronously();
+        holderStarted.await();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        this.release.countDown();
+        this.service.stop();
+        this.service.waitEnd( 5, TimeUnit.SECONDS );
+    }
+
+    @Benchmark
+    public void enqueueToStart() throws InterruptedException {
+        StartProbe probe = new StartProbe();
+        this.service.addTask( probe );
+        probe.started.await();
+    }
+
+    // --------------------------------------
+    // -        Fixtures                    -
+    // --------------------------------------
+
+    static final class StartProbe implements Callable<Object> {
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        @Override
+        public Object call() {
+            this.started.countDown();
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.common.async.OverflowPolicy;
+import com.jr.core.service.async.FifoPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link com.jr.core.service.async.AsyncService#addTask} and
+ * {@link com.jr.core.service.async.AsyncService#isInFifo} according to the filling of the FIFO.
+ *
+ * The service is not started : the tasks stay in the FIFO. addTask is measured by batches of BATCH new tasks
+ * from the given filling, addAll by one call with BATCH new tasks ( the tasks are created before the measure ).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FifoBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final int BATCH      = 5000;
+    private static final int CAPACITY   = 100_000;
+
+    @Param({"0", "10000", "90000"})
+    public int filling;
+
+    private BenchmarkService service;
+    private BenchmarkTask[] newTasks;
+    private BenchmarkTask queuedTask;
+    private BenchmarkTask missingTask;
+    private int next;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        this.service = new BenchmarkService( 1, null, new FifoPolicy( CAPACITY, OverflowPolicy.REJECT ) );
+        for( int i = 0; i < this.filling; i++ ) {
+            this.service.addTask( new BenchmarkTask( i ) );
+        }
+        this.queuedTask = new BenchmarkTask( -1 );
+        this.service.addTask( this.queuedTask );
+        this.missingTask = new BenchmarkTask( -2 );
+
+        this.newTasks = new BenchmarkTask[ BATCH ];
+        for( int i = 0; i < BATCH; i++ ) {
+            this.newTasks[ i ] = new BenchmarkTask( i );
+        }
+        this.next = 0;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 20, batchSize = BATCH)
+    @Measurement(iterations = 20, batchSize = BATCH)
+    public boolean addTask() {
+        return this.service.addTask( this.newTasks[ this.next++ ] );
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 20)
+    @Measurement(iterations = 20)
+    public List<?> addAll() {
+        return this.service.addAll( Arrays.asList( this.newTasks ) );
+    }
+
+    @Benchmark
+    public boolean addTaskDuplicate() {
+        return this.service.addTask( this.queuedTask );
+    }
+
+    @Benchmark
+    public boolean isInFifoHit() {
+        return this.service.isInFifo( this.queuedTask );
+    }
+
+    @Benchmark
+    public boolean isInFifoMiss() {
+        return this.service.isInFifo( this.missingTask );
+    }
+
+}
@@ -0,0 +1,68 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.service.async.TaskJournal;
+import com.jr.core.service.async.TimeOutTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of the journal for one task : the record of its addition ( serialization and copy to the mapped segment ),
+ * and the whole life of a task ( addition, start, end ). The segments are forced and compacted by the thread of
+ * the journal every 10 ms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private Path directory;
+    private TaskJournal journal;
+    private BenchmarkTask task;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.directory  = Files.createTempDirectory( "journal-benchmark" );
+        this.journal    = new TaskJournal( this.directory, 16 * 1024 * 1024,
+                new TimeOutTask( (int) TaskJournal.DEFAULT_FLUSH_MILLIS, TimeUnit.MILLISECONDS ) );
+        this.task       = new BenchmarkTask( 1 );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.journal.close();
+        try( Stream<Path> files = Files.walk( this.directory ) ) {
+            files.sorted( Comparator.reverseOrder() ).forEach( path -> path.toFile().delete() );
+        }
+    }
+
+    @Benchmark
+    public long enqueue() {
+        return this.journal.enqueue( this.task );
+    }
+
+    @Benchmark
+    public long lifecycle() {
+        long id = this.journal.enqueue( this.task );
+        this.journal.started( id );
+        this.journal.complete( id );
+        return id;
+    }
+
+}
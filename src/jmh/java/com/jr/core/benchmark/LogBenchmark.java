@@ -0,0 +1,84 @@
+package com.jr.core.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.helpers.NOPAppender;
+import com.jr.core.common.logs.LazyLog;
+import com.jr.core.common.logs.LogUtil;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.*;
+
+/**
+ * Cost of the log lines of the controller, to run with -prof gc :
+ * the dispatch line ( DEBUG, disabled in production ) and the timeout line ( WARN, enabled ), formatted by
+ * {@link LazyLog} or by String.format and {@link LogUtil#format}. The appender does nothing : only the
+ * formatting is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private Logger logger;
+    private BenchmarkTask command;
+    private long maxTimeMillis;
+    private String maxTimeLabel;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        NOPAppender<ch.qos.logback.classic.spi.ILoggingEvent> appender = new NOPAppender<>();
+        appender.setContext( context );
+        appender.start();
+
+        this.logger = context.getLogger( LogBenchmark.class );
+        this.logger.setLevel( ch.qos.logback.classic.Level.INFO );
+        this.logger.setAdditive( false );
+        this.logger.addAppender( appender );
+
+        this.command        = new BenchmarkTask( 1 );
+        this.maxTimeMillis  = 5_000;
+        this.maxTimeLabel   = this.maxTimeMillis + " " + TimeUnit.MILLISECONDS;
+    }
+
+    @Benchmark
+    public void dispatchDisabledSlf4j() {
+        this.logger.debug("{}{}{} Execute the order {}",
+                FIFO_CONTROLLER, EXECUTE, RUN, this.command );
+    }
+
+    @Benchmark
+    public void dispatchDisabledLazy() {
+        LazyLog.log( this.logger, org.slf4j.event.Level.DEBUG, FIFO_CONTROLLER, EXECUTE, "Execute the order", null,
+                "{}", this.command );
+    }
+
+    @Benchmark
+    public void timeOutLogUtil() {
+        this.logger.warn( LogUtil.format(  FIFO_CONTROLLER, EXECUTE, "Timeout de la commande !",
+                String.format("Commande : %s - Durée max : %s %s - Is canceled : %s ",
+                        this.command, this.maxTimeMillis, TimeUnit.MILLISECONDS, true ) ));
+    }
+
+    @Benchmark
+    public void timeOutLazy() {
+        LazyLog.log( this.logger, org.slf4j.event.Level.WARN, FIFO_CONTROLLER, EXECUTE, "Timeout de la commande !",
+                null, "Commande : {} - Durée max : {} - Is canceled : {} ", this.command, this.maxTimeLabel, true );
+    }
+
+}
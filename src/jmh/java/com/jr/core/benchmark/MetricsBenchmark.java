@@ -0,0 +1,75 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.common.async.AddTaskStatus;
+import com.jr.core.service.async.ServiceMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metrics for one task : addition, start ( queue wait ), end ( execution time ) and outcome.
+ *
+ * recordTask measures the counters and the histograms only, recordTaskWithClock adds the two System.nanoTime()
+ * calls of the worker ( start and end of the task ), whose cost depends on the clock source of the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private ServiceMetrics metrics;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.metrics = new ServiceMetrics( () -> 0, () -> 0 );
+    }
+
+    private long clock;
+
+    @Benchmark
+    public void recordTask() {
+        // A fake clock : 50 µs of wait, 200 µs of execution
+        long enqueuedNanos = this.clock;
+        long startNanos = enqueuedNanos + 50_000;
+        this.clock = startNanos + 200_000;
+        this.record( enqueuedNanos, startNanos, this.clock );
+    }
+
+    @Benchmark
+    public void recordTaskWithClock() {
+        long enqueuedNanos = this.clock;
+        long startNanos = System.nanoTime();
+        this.record( enqueuedNanos, startNanos, System.nanoTime() );
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordTaskContended() {
+        long startNanos = 50_000;
+        this.record( 0, startNanos, startNanos + 200_000 );
+    }
+
+    private void record( long enqueuedNanos, long startNanos, long endNanos ) {
+        this.metrics.recordOffer( AddTaskStatus.ACCEPTED );
+        this.metrics.recordStart( enqueuedNanos, startNanos );
+        this.metrics.recordEnd( startNanos, endNanos );
+        this.metrics.recordCompleted();
+    }
+
+    @Benchmark
+    public Object snapshot() {
+        return this.metrics.snapshot();
+    }
+
+}
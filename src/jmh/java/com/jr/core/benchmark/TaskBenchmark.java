@@ -0,0 +1,68 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.api.async.Task;
+import com.jr.core.api.async.TaskId;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the creation of a {@link Task} ( id, logger ) and of the methods used by the FIFO
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private BenchmarkTask task;
+    private int number;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.task = new BenchmarkTask( 0 );
+    }
+
+    @Benchmark
+    public Task<Integer> construct() {
+        return new BenchmarkTask( this.number++ );
+    }
+
+    @Benchmark
+    public Object identity() {
+        return this.task.getIdentity();
+    }
+
+    @Benchmark
+    public int hashCodeOfData() {
+        return this.task.hashCode();
+    }
+
+    @Benchmark
+    public long nextId() {
+        return TaskId.nextValue();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdContended() {
+        return TaskId.nextValue();
+    }
+
+    @Benchmark
+    public String idToString() {
+        // The text is cached by the id : a new id each time
+        return TaskId.of( this.number++ ).toString();
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.service.async.TimeOutWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the timeout check of an order : a deadline is armed at the start of the order and cancelled at its
+ * end. The wheel of the controller is compared with a ScheduledThreadPoolExecutor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeOutBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final Runnable NOTHING = () -> { };
+
+    private TimeOutWheel timeOutWheel;
+    private ScheduledThreadPoolExecutor scheduler;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.timeOutWheel = new TimeOutWheel( "benchmark-timeout" );
+        this.scheduler = new ScheduledThreadPoolExecutor( 1 );
+        this.scheduler.setRemoveOnCancelPolicy( true );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.timeOutWheel.stop();
+        this.scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean wheel() {
+        return this.timeOutWheel.newTimeOut( NOTHING, 1, TimeUnit.HOURS ).cancel();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean wheelContended() {
+        return this.timeOutWheel.newTimeOut( NOTHING, 1, TimeUnit.HOURS ).cancel();
+    }
+
+    @Benchmark
+    public boolean scheduledExecutor() {
+        ScheduledFuture<?> future = this.scheduler.schedule( NOTHING, 1, TimeUnit.HOURS );
+        return future.cancel( false );
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean scheduledExecutorContended() {
+        ScheduledFuture<?> future = this.scheduler.schedule( NOTHING, 1, TimeUnit.HOURS );
+        return future.cancel( false );
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.jr.core.benchmark;
+
+import com.jr.core.service.async.TimerByTask;
+import com.jr.core.service.async.TokenBucketByTask;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the sliding window of {@link TimerByTask} and of the token bucket of {@link TokenBucketByTask}.
+ *
+ * The window of 1 ms is always free ( permit path ), the window of 1 hour is always full ( refusal path ).
+ * Run with -prof gc to check that no path allocates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimerByTaskBenchmark {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private TimerByTask freeWindow;
+    private TimerByTask fullWindow;
+    private TokenBucketByTask tokenBucket;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.freeWindow = new TimerByTask( 100, 1, TimeUnit.NANOSECONDS );
+        this.fullWindow = new TimerByTask( 100, 1, TimeUnit.HOURS );
+        this.tokenBucket = new TokenBucketByTask( 100, 1, TimeUnit.NANOSECONDS, 100 );
+        for( int i = 0; i < 100; i++ ) {
+            this.fullWindow.setNewCommand();
+        }
+    }
+
+    @Benchmark
+    public boolean addNewCommandAndValid() {
+        return this.freeWindow.addNewCommandAndValid();
+    }
+
+    @Benchmark
+    public boolean validFull() {
+        return this.fullWindow.valid();
+    }
+
+    @Benchmark
+    public void checkCommandAndValidBlock() {
+        // Never blocks : the window is always free
+        this.freeWindow.checkCommandAndValidBlock();
+    }
+
+    @Benchmark
+    public boolean tryAcquire() {
+        return this.freeWindow.tryAcquire();
+    }
+
+    @Benchmark
+    public boolean tryAcquireRefused() {
+        return this.fullWindow.tryAcquire();
+    }
+
+    @Benchmark
+    public long nanosBeforeNextCommand() {
+        return this.fullWindow.getNanosBeforeNextCommand();
+    }
+
+    @Benchmark
+    public boolean tokenBucketTryAcquire() {
+        return this.tokenBucket.tryAcquire();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean tryAcquireContended() {
+        return this.freeWindow.tryAcquire();
+    }
+}
@@ -1,6 +1,7 @@
 package com.jr.core.api.async;
 
 import com.jr.core.common.async.TaskResultStatus;
+import com.jr.core.service.async.RetryPolicy;
 
 import java.io.Serializable;
 import java.util.List;
@@ -28,4 +29,39 @@ public interface ITask<T> extends Callable<T>, Serializable {
      */
     int getPercent();
 
+    /**
+     * The priority in a FIFO with aging ( FifoPolicy ), the highest first. Read when the task is added.
+     * @return
+     */
+    default int getPriority() {
+        return 0;
+    }
+
+    /**
+     * The identity used to detect the duplicates in the FIFO.
+     * Must not change while the task is waiting or running.
+     * @return
+     */
+    default Object getIdentity() {
+        return this;
+    }
+
+    /**
+     * The tasks with the same partition key run one after the other, in the order of the FIFO ( null : no order ).
+     * Read when the task is added.
+     * @return
+     */
+    default Object getPartitionKey() {
+        return null;
+    }
+
+    /**
+     * How the task is executed again when it throws an exception ( null : the policy of the service ).
+     * Read at each failure.
+     * @return
+     */
+    default RetryPolicy getRetryPolicy() {
+        return null;
+    }
+
 }
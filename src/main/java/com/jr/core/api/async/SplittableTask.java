@@ -0,0 +1,262 @@
+package com.jr.core.api.async;
+
+import com.jr.core.common.async.TaskResultStatus;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A task split in subtasks executed on a work-stealing pool ( {@link ForkJoinPool#commonPool()} by default ).
+ *
+ * The task added to the service is the root : {@link #call()} runs in the worker of the service, splits the task
+ * recursively ( {@link #split()} ), computes the leaves ( {@link #compute()} ) and merges the results
+ * ( {@link #merge(List)} ). The worker waits for the pool : the maximum time of the task and its cancellation apply
+ * to the whole tree, the subtasks not yet started are abandoned.
+ *
+ * The progress of the leaves ( {@link #setPercent(int)} ) is rolled up into the percent of the root : the subtasks
+ * of a split share the part of the task they split, in proportion to their {@link #getWeight()} ( equal shares by
+ * default ).
+ *
+ * @param <T> : The type of the result
+ */
+public abstract class SplittableTask<T> extends Task<T> {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long serialVersionUID = 1L;
+    // The share of the root in the progress
+    private static final long ROOT_SHARE = 1L << 40;
+
+    private transient ForkJoinPool pool;
+    // Null until the task is split ( the root is its own root )
+    private transient SplittableTask<T> root;
+    // The part of the progress of the root done by this task ( ROOT_SHARE for the root )
+    private transient long share;
+    // Root only : the sum of percent x share of the leaves, the last percent published
+    private transient AtomicLong progress;
+    private transient int publishedPercent;
+    private transient volatile boolean cancelled;
+    // Root only : the first error of a subtask ( the pool may rethrow a copy )
+    private transient volatile Throwable failure;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * Split the task
+     *
+     * @return The subtasks, null or empty if the task is small enough to be computed directly
+     */
+    protected abstract List<? extends SplittableTask<T>> split();
+
+    /**
+     * Compute a task that is not split
+     *
+     * @return The result
+     * @throws Exception : The whole task fails
+     */
+    protected abstract T compute() throws Exception;
+
+    /**
+     * Merge the results of the subtasks
+     *
+     * @param results : The results, in the order of {@link #split()}
+     * @return The result of the task
+     */
+    protected abstract T merge( List<T> results );
+
+    /**
+     * The cost of the task relative to the other subtasks of the same split ( the number of rows, of files ... ),
+     * 1 by default : the subtasks of a split share the progress of the task they split in proportion to their weights
+     *
+     * @return
+     */
+    protected long getWeight()
+    {
+        return 1;
+    }
+
+    /**
+     * The pool of the subtasks
+     *
+     * @param pool : The pool, null for {@link ForkJoinPool#commonPool()}
+     */
+    public void setPool( ForkJoinPool pool )
+    {
+        this.pool = pool;
+    }
+
+    /**
+     * Execute the whole tree ( the root only )
+     */
+    @Override
+    public T call() throws Exception
+    {
+        this.root       = this;
+        this.share      = ROOT_SHARE;
+        this.progress   = new AtomicLong();
+        this.publishedPercent = 0;
+        this.cancelled  = false;
+        this.failure    = null;
+        this.setStarted( new Date() );
+        ForkJoinPool forkJoinPool = this.pool != null ? this.pool : ForkJoinPool.commonPool();
+        ForkJoinTask<T> fork = forkJoinPool.submit( new Fork<>( this ) );
+        try {
+            T value = fork.get();
+            this.setResult( value );
+            this.setStatus( TaskResultStatus.OK );
+            this.updatePercent( 100 );
+            return value;
+        }
+        catch ( InterruptedException ex ) {
+            // Timeout or cancellation of the root : the subtasks not started are abandoned
+            this.cancelled = true;
+            fork.cancel( true );
+            this.setStatus( TaskResultStatus.CANCEL );
+            throw ex;
+        }
+        catch ( ExecutionException | CancellationException ex ) {
+            // A subtask failed, the others have been abandoned
+            this.cancelled = true;
+            // The error of the subtask, otherwise the cause of the cancellation, not the wrapper of the pool
+            Throwable cause = this.failure;
+            if( cause == null ) {
+                cause = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+            }
+            this.setStatus( cause instanceof CancellationException ? TaskResultStatus.CANCEL : TaskResultStatus.ERROR );
+            if( cause instanceof Error ) {
+                throw (Error) cause;
+            }
+            throw cause instanceof Exception ? (Exception) cause : ex;
+        }
+        finally {
+            this.setFinished( new Date() );
+        }
+    }
+
+    /**
+     * A long leaf should stop when the root is cancelled
+     *
+     * @return True if the root has been cancelled or has failed
+     */
+    protected boolean isCancelled()
+    {
+        SplittableTask<T> rootTask = this.root;
+        return rootTask != null && rootTask.cancelled;
+    }
+
+    /**
+     * The progress of a leaf, rolled up into the root
+     *
+     * @param percent : 0 to 100
+     */
+    @Override
+    protected void setPercent( int percent )
+    {
+        int oldPercent = this.getPercent();
+        super.setPercent( percent );
+        SplittableTask<T> rootTask = this.root;
+        if( rootTask != null && rootTask != this && percent != oldPercent ) {
+            long units = rootTask.progress.addAndGet( ( percent - oldPercent ) * this.share );
+            rootTask.updatePercent( (int) Math.min( 99, units / ROOT_SHARE ) );
+        }
+    }
+
+    /**
+     * The percent of the root only increases
+     */
+    private synchronized void updatePercent( int percent )
+    {
+        if( percent > this.publishedPercent ) {
+            this.publishedPercent = percent;
+            super.setPercent( percent );
+        }
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * A node of the tree on the pool
+     */
+    private static final class Fork<T> extends RecursiveTask<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final SplittableTask<T> task;
+
+        Fork( SplittableTask<T> task )
+        {
+            this.task = task;
+        }
+
+        @Override
+        protected T compute()
+        {
+            SplittableTask<T> rootTask = this.task.root;
+            if( rootTask.cancelled ) {
+                throw new CancellationException("The task " + rootTask + " has been cancelled");
+            }
+            try {
+                List<? extends SplittableTask<T>> parts = this.task.split();
+                if( parts == null || parts.isEmpty() ) {
+                    T value = this.task.compute();
+                    this.task.setPercent( 100 );
+                    return value;
+                }
+
+                double totalWeight = 0;
+                for( SplittableTask<T> part : parts ) {
+                    totalWeight += Math.max( 0, part.getWeight() );
+                }
+                List<Fork<T>> forks = new ArrayList<>( parts.size() );
+                for( SplittableTask<T> part : parts ) {
+                    part.root = rootTask;
+                    // The share of the split task, in proportion to the weights ( equal shares without weights )
+                    double ratio = totalWeight > 0 ? Math.max( 0, part.getWeight() ) / totalWeight : 1.0 / parts.size();
+                    part.share = (long) ( this.task.share * ratio );
+                    forks.add( new Fork<>( part ) );
+                }
+                ForkJoinTask.invokeAll( forks );
+                List<T> results = new ArrayList<>( forks.size() );
+                for( Fork<T> fork : forks ) {
+                    results.add( fork.join() );
+                }
+                return this.task.merge( results );
+            }
+            catch ( CancellationException ex ) {
+                throw ex;
+            }
+            catch ( InterruptedException ex ) {
+                // The root may be computed in the interrupted worker ( get() helps the pool )
+                Thread.currentThread().interrupt();
+                rootTask.cancelled = true;
+                throw new CancellationException("The task " + rootTask + " has been interrupted");
+            }
+            catch ( Exception | Error ex ) {
+                // The other subtasks stop at their next step
+                if( rootTask.failure == null ) {
+                    rootTask.failure = ex;
+                }
+                rootTask.cancelled = true;
+                if( ex instanceof Error ) {
+                    throw (Error) ex;
+                }
+                throw ex instanceof RuntimeException ? (RuntimeException) ex : new CompletionException( ex );
+            }
+        }
+    }
+
+}
@@ -1,29 +1,29 @@
 package com.jr.core.api.async;
 
 import com.jr.core.common.async.TaskResultStatus;
-import com.jr.core.service.async.Observable;
+import com.jr.core.service.async.ProgressBus;
 import lombok.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.beans.PropertyChangeListener;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
 
 
 @Data
-@EqualsAndHashCode(callSuper = true)
-public abstract class Task<T> extends Observable implements ITask<T>, Serializable {
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+public abstract class Task<T> implements ITask<T>, Serializable {
 
     // --------------------------------------
     // -        Attributes                  -
     // --------------------------------------
 
-    private static final SimpleDateFormat FORMAT_DATE_UUID = new SimpleDateFormat("yyyy-MM-dd_hh:mm:ss");
-    private final String id = String.format("%s_#_%s", FORMAT_DATE_UUID.format( new Date() ), UUID.randomUUID() );
+    // Two tasks are equal only when they have the same id ( the other fields change during the execution )
+    @EqualsAndHashCode.Include
+    private final TaskId id = TaskId.next();
 
     @Getter(AccessLevel.PROTECTED)
     private final transient Logger logger   = LoggerFactory.getLogger(getClass());
@@ -33,6 +33,10 @@ public abstract class Task<T> extends Observable implements ITask<T>, Serializab
     @Setter(AccessLevel.PROTECTED)
     private T result;
     private int percent = 0;
+    // The highest first, used by a FIFO with aging
+    private int priority = 0;
+    // The tasks with the same key run one after the other
+    private Serializable partitionKey;
     @Setter(AccessLevel.PROTECTED)
     private Date started;
     @Setter(AccessLevel.PROTECTED)
@@ -47,10 +51,38 @@ public abstract class Task<T> extends Observable implements ITask<T>, Serializab
     // -        Methods                     -
     // --------------------------------------
 
+    /**
+     * The listeners are called later by the thread of the {@link ProgressBus}, with the last percent only
+     * @param percent
+     */
     protected void setPercent( int percent ){
         int oldPercent = this.percent;
         this.percent = percent;
-        this.observers.firePropertyChange("percent", oldPercent, percent );
+        if( oldPercent != percent ) {
+            ProgressBus.getDefault().publish( this, oldPercent, percent );
+        }
+    }
+
+    /**
+     * Listen to the progress of this task ( property "percent", coalesced and delivered by the {@link ProgressBus} ).
+     * Dropped when the task ends in a service or is refused by it, otherwise see {@link #removePropertyChangeListener}
+     * @param listener
+     */
+    public void addPropertyChangeListener( PropertyChangeListener listener ){
+        ProgressBus.getDefault().addListener( this, listener );
+    }
+
+    public void removePropertyChangeListener( PropertyChangeListener listener ){
+        ProgressBus.getDefault().removeListener( this, listener );
+    }
+
+    /**
+     * The id does not change during the life of the task ( unlike the status, the result or the percent )
+     * @return
+     */
+    @Override
+    public TaskId getIdentity(){
+        return this.id;
     }
 
     /**
@@ -0,0 +1,189 @@
+package com.jr.core.api.async;
+
+import java.io.Serializable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The identity of a task : a 64 bits number, increasing in a JVM, unique between the nodes.
+ *
+ * [ 41 bits : milliseconds since 2024-01-01 | 12 bits : sequence | 10 bits : node ]. No lock : the next id is the
+ * current time, or the last id plus one sequence when the clock has not moved ( more than 4096 ids in a millisecond
+ * borrow the next milliseconds, the clock going back never produces a smaller id ).
+ *
+ * The node comes from the system property {@value #NODE_PROPERTY} ( 0 to 1023 ), random otherwise : set it when
+ * the ids of several JVM are compared. The text form is only created when it is asked for.
+ */
+public final class TaskId implements Serializable, Comparable<TaskId> {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String NODE_PROPERTY = "core.async.node";
+    // 2024-01-01T00:00:00Z
+    public static final long EPOCH_MILLIS = 1_704_067_200_000L;
+
+    private static final int NODE_BITS      = 10;
+    private static final int SEQUENCE_BITS  = 12;
+    private static final long NODE_MASK     = ( 1L << NODE_BITS ) - 1;
+    private static final long SEQUENCE_MASK = ( 1L << SEQUENCE_BITS ) - 1;
+    private static final int TIME_SHIFT     = NODE_BITS + SEQUENCE_BITS;
+    private static final long ONE_SEQUENCE  = 1L << NODE_BITS;
+
+    private static final long NODE = nodeOf( System.getProperty( NODE_PROPERTY ) );
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private final long value;
+    // Created on demand
+    private transient String text;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    private TaskId( long value )
+    {
+        this.value = value;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     *
+     * @return A new id, greater than all the ids created before in this JVM
+     */
+    public static TaskId next()
+    {
+        return new TaskId( nextValue() );
+    }
+
+    /**
+     *
+     * @return A new id as a number
+     */
+    public static long nextValue()
+    {
+        long now = ( ( System.currentTimeMillis() - EPOCH_MILLIS ) << TIME_SHIFT ) | NODE;
+        while( true )
+        {
+            long last = LAST.get();
+            long next = now > last ? now : last + ONE_SEQUENCE;
+            if( LAST.compareAndSet( last, next ) ) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     *
+     * @param value : A number returned by {@link #getValue()}
+     * @return The id
+     */
+    public static TaskId of( long value )
+    {
+        return new TaskId( value );
+    }
+
+    /**
+     *
+     * @param text : The text returned by {@link #toString()}
+     * @return The id
+     * @throws NumberFormatException : Not an id
+     */
+    public static TaskId parse( String text )
+    {
+        return new TaskId( Long.parseUnsignedLong( text, 16 ) );
+    }
+
+    public long getValue()
+    {
+        return this.value;
+    }
+
+    /**
+     *
+     * @return The creation time in milliseconds since 1970 ( later than the real time if the sequence overflowed )
+     */
+    public long getTimestamp()
+    {
+        return ( this.value >>> TIME_SHIFT ) + EPOCH_MILLIS;
+    }
+
+    public int getSequence()
+    {
+        return (int) ( ( this.value >>> NODE_BITS ) & SEQUENCE_MASK );
+    }
+
+    public int getNode()
+    {
+        return (int) ( this.value & NODE_MASK );
+    }
+
+    @Override
+    public int compareTo( TaskId other )
+    {
+        return Long.compare( this.value, other.value );
+    }
+
+    @Override
+    public boolean equals( Object other )
+    {
+        return other instanceof TaskId && ((TaskId) other).value == this.value;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        // The low bits of the node and of the sequence are the same for many ids : mixed
+        long mixed = this.value * 0x9E3779B97F4A7C15L;
+        return (int) ( mixed ^ ( mixed >>> 32 ) );
+    }
+
+    /**
+     *
+     * @return 16 hexadecimal digits, in the order of the ids
+     */
+    @Override
+    public String toString()
+    {
+        String current = this.text;
+        if( current == null ) {
+            char[] digits = new char[ 16 ];
+            long remaining = this.value;
+            for( int i = 15; i >= 0; i-- ) {
+                digits[ i ] = Character.forDigit( (int) ( remaining & 0xF ), 16 );
+                remaining >>>= 4;
+            }
+            current = new String( digits );
+            this.text = current;
+        }
+        return current;
+    }
+
+    /**
+     *
+     * @return The number of the node of this JVM
+     */
+    public static int getLocalNode()
+    {
+        return (int) NODE;
+    }
+
+    private static long nodeOf( String property )
+    {
+        if( property == null || property.trim().isEmpty() ) {
+            return ThreadLocalRandom.current().nextInt( 1 << NODE_BITS );
+        }
+        int node = Integer.parseInt( property.trim() );
+        if( node < 0 || node > NODE_MASK ) {
+            throw new IllegalArgumentException( NODE_PROPERTY + " must be between 0 and " + NODE_MASK + " : " + node );
+        }
+        return node;
+    }
+
+}
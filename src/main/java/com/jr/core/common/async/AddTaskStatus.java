@@ -0,0 +1,34 @@
+package com.jr.core.common.async;
+
+/**
+ * The outcome of adding a task to the FIFO
+ */
+public enum AddTaskStatus {
+    // The task is in the FIFO
+    ACCEPTED( true ),
+    // The task is in the FIFO, the oldest task has been removed to make room
+    DROPPED_OLDEST( true ),
+    // The FIFO is full, the task has been executed by the caller
+    CALLER_RUN( true ),
+    // An identical task is waiting or running, the task shares its execution ( coalescing mode )
+    COALESCED( true ),
+    // The task is already in the FIFO
+    DUPLICATE( false ),
+    // The FIFO is full
+    REJECTED( false ),
+    // The FIFO is still full after the maximum waiting time
+    TIMEOUT( false );
+
+    private final boolean accepted;
+
+    AddTaskStatus( boolean accepted ) {
+        this.accepted = accepted;
+    }
+
+    /**
+     * @return True if the task will be ( or has been ) executed
+     */
+    public boolean isAccepted() {
+        return this.accepted;
+    }
+}
@@ -21,6 +21,8 @@ public final class CoreAsyncNameSpace {
 
     public static final String ASYNC           = fLog("ASYNC_SERVICE");
     public static final String EXECUTOR        = fLog("EXECUTOR");
+    public static final String JOURNAL         = fLog("JOURNAL");
+    public static final String REMOTE          = fLog("REMOTE");
     
     private CoreAsyncNameSpace(){}
 }
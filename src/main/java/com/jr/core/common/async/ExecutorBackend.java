@@ -0,0 +1,13 @@
+package com.jr.core.common.async;
+
+/**
+ * The threads that execute the orders
+ */
+public enum ExecutorBackend {
+    // A fixed pool of platform threads ( one thread by parallel order )
+    FIXED,
+    // A work-stealing pool of platform threads
+    FORK_JOIN,
+    // One virtual thread by order ( Java 21 ), the concurrency is only bounded by the permits and the timers
+    VIRTUAL_THREAD
+}
@@ -0,0 +1,15 @@
+package com.jr.core.common.async;
+
+/**
+ * What to do when a task is added to a full FIFO
+ */
+public enum OverflowPolicy {
+    // Wait for a free place ( with a maximum time )
+    BLOCK,
+    // Refuse the new task
+    REJECT,
+    // Remove the oldest task of the FIFO ( the least urgent with priorities ) to make room for the new one
+    DROP_OLDEST,
+    // Execute the new task in the thread of the caller
+    CALLER_RUNS
+}
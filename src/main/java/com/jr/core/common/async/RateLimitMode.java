@@ -0,0 +1,11 @@
+package com.jr.core.common.async;
+
+/**
+ * How a TimerTask limits the number of orders
+ */
+public enum RateLimitMode {
+    // At most N orders in any window of time
+    SLIDING_WINDOW,
+    // A sustained rate of N orders by unit of time, with a burst ( GCRA )
+    TOKEN_BUCKET
+}
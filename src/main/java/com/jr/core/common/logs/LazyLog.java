@@ -0,0 +1,294 @@
+package com.jr.core.common.logs;
+
+
+import org.slf4j.Logger;
+import org.slf4j.event.Level;
+
+import static com.jr.core.common.logs.LogUtil.END_TAG_SERVICE;
+import static com.jr.core.common.logs.LogUtil.END_TAG_SUMMARY;
+import static com.jr.core.common.logs.LogUtil.SIZE_MAX_SUMMARY;
+import static com.jr.core.common.logs.LogUtil.START_TAG_SERVICE;
+import static com.jr.core.common.logs.LogUtil.START_TAG_SUMMARY;
+
+/**
+ * Same lines as {@link LogUtil#format}, rendered only if the level is enabled.
+ *
+ * The line is written in a buffer of the thread ( no String.format, no regex, no intermediate string ), the
+ * content is a pattern with {} replaced by the arguments. Nothing is allocated when the level is disabled.
+ */
+public final class LazyLog {
+
+    // --------------------------------------
+    // -    ATTRIBUTES                      -
+    // --------------------------------------
+
+    private static final int INITIAL_BUFFER = 256;
+    // A buffer grown above is not kept
+    private static final int MAX_BUFFER     = 16 * 1024;
+    private static final ThreadLocal<Buffer> BUFFER = ThreadLocal.withInitial( Buffer::new );
+    // Stands for the primitive argument in the content
+    private static final Object NUMBER = new Object();
+
+    private LazyLog(){}
+
+    // --------------------------------------
+    // -            Methods                 -
+    // --------------------------------------
+
+    public static boolean isEnabled( Logger logger, Level level )
+    {
+        switch ( level ) {
+            case ERROR: return logger.isErrorEnabled();
+            case WARN:  return logger.isWarnEnabled();
+            case INFO:  return logger.isInfoEnabled();
+            case DEBUG: return logger.isDebugEnabled();
+            case TRACE:
+            default:    return logger.isTraceEnabled();
+        }
+    }
+
+    /**
+     * Log : [service][subservice] ## summary ## EXCEPTION : ...
+     *
+     * @param exception : The exception ( null : none )
+     */
+    public static void log( Logger logger, Level level, String service, String subservice, String summary,
+                            Throwable exception )
+    {
+        if( isEnabled( logger, level ) ) {
+            render( logger, level, service, subservice, summary, exception, null, 0, null, null, null, 0 );
+        }
+    }
+
+    /**
+     * Log : [service][subservice] ## summary ## content -- EXCEPTION : ...
+     *
+     * @param exception : The exception ( null : none )
+     * @param content : The content
+     */
+    public static void log( Logger logger, Level level, String service, String subservice, String summary,
+                            Throwable exception, String content )
+    {
+        if( isEnabled( logger, level ) ) {
+            render( logger, level, service, subservice, summary, exception, content, 0, null, null, null, 0 );
+        }
+    }
+
+    /**
+     * @param content : The content, {} is replaced by the number ( not boxed )
+     */
+    public static void log( Logger logger, Level level, String service, String subservice, String summary,
+                            Throwable exception, String content, long number )
+    {
+        if( isEnabled( logger, level ) ) {
+            render( logger, level, service, subservice, summary, exception, content, 1, NUMBER, null, null, number );
+        }
+    }
+
+    /**
+     * @param content : The content, {} is replaced by the argument
+     */
+    public static void log( Logger logger, Level level, String service, String subservice, String summary,
+                            Throwable exception, String content, Object arg1 )
+    {
+        if( isEnabled( logger, level ) ) {
+            render( logger, level, service, subservice, summary, exception, content, 1, arg1, null, null, 0 );
+        }
+    }
+
+    /**
+     * @param content : The content, each {} is replaced by the next argument
+     */
+    public static void log( Logger logger, Level level, String service, String subservice, String summary,
+                            Throwable exception, String content, Object arg1, Object arg2 )
+    {
+        if( isEnabled( logger, level ) ) {
+            render( logger, level, service, subservice, summary, exception, content, 2, arg1, arg2, null, 0 );
+        }
+    }
+
+    /**
+     * @param content : The content, each {} is replaced by the next argument
+     */
+    public static void log( Logger logger, Level level, String service, String subservice, String summary,
+                            Throwable exception, String content, Object arg1, Object arg2, Object arg3 )
+    {
+        if( isEnabled( logger, level ) ) {
+            render( logger, level, service, subservice, summary, exception, content, 3, arg1, arg2, arg3, 0 );
+        }
+    }
+
+    private static void render( Logger logger, Level level, String service, String subservice, String summary,
+                                Throwable exception, String content, int argCount,
+                                Object arg1, Object arg2, Object arg3, long number )
+    {
+        Buffer buffer = BUFFER.get();
+        // A toString() of an argument can log too
+        StringBuilder builder = buffer.inUse ? new StringBuilder( INITIAL_BUFFER ) : buffer.builder;
+        boolean owner = ! buffer.inUse;
+        buffer.inUse = true;
+        try {
+            appendTag( builder, service );
+            appendTag( builder, subservice );
+            builder.append( ' ' ).append( START_TAG_SUMMARY ).append( ' ' );
+            appendClean( builder, summary, SIZE_MAX_SUMMARY );
+            builder.append( ' ' ).append( END_TAG_SUMMARY );
+
+            if( content != null ) {
+                builder.append( ' ' );
+                appendContent( builder, content, argCount, arg1, arg2, arg3, number );
+            }
+            if( exception != null ) {
+                builder.append( content != null ? " -- EXCEPTION : " : " EXCEPTION : " );
+                appendException( builder, exception );
+            }
+            write( logger, level, builder.toString() );
+        }
+        finally {
+            if( owner ) {
+                buffer.inUse = false;
+                if( builder.capacity() > MAX_BUFFER ) {
+                    buffer.builder = new StringBuilder( INITIAL_BUFFER );
+                }
+                else {
+                    builder.setLength( 0 );
+                }
+            }
+        }
+    }
+
+    private static void write( Logger logger, Level level, String message )
+    {
+        switch ( level ) {
+            case ERROR: logger.error( message ); break;
+            case WARN:  logger.warn( message ); break;
+            case INFO:  logger.info( message ); break;
+            case DEBUG: logger.debug( message ); break;
+            case TRACE:
+            default:    logger.trace( message ); break;
+        }
+    }
+
+    /**
+     * Same as {@link LogUtil#fLog(String)}
+     */
+    private static void appendTag( StringBuilder builder, String name )
+    {
+        if( hasEverTag( name ) ) {
+            builder.append( name );
+        }
+        else {
+            builder.append( START_TAG_SERVICE ).append( name ).append( END_TAG_SERVICE );
+        }
+    }
+
+    /**
+     * Same as {@link LogUtil#hasEverTag(String)} without regex
+     */
+    private static boolean hasEverTag( String name )
+    {
+        if( name == null ) {
+            return false;
+        }
+        char start = START_TAG_SERVICE.charAt( 0 );
+        char end = END_TAG_SERVICE.charAt( 0 );
+        for( int i = name.indexOf( start ); i >= 0; i = name.indexOf( start, i + 1 ) ) {
+            int j = i + 1;
+            while( j < name.length() && name.charAt( j ) == ';' ) {
+                j++;
+            }
+            if( j < name.length() && name.charAt( j ) == end ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void appendContent( StringBuilder builder, String content, int argCount,
+                                       Object arg1, Object arg2, Object arg3, long number )
+    {
+        int arg = 0;
+        int from = 0;
+        int placeholder;
+        while( arg < argCount && ( placeholder = content.indexOf( "{}", from ) ) >= 0 )
+        {
+            appendClean( builder, content, from, placeholder );
+            Object value = arg == 0 ? arg1 : arg == 1 ? arg2 : arg3;
+            if( value == NUMBER ) {
+                builder.append( number );
+            }
+            else {
+                appendClean( builder, value instanceof CharSequence ? (CharSequence) value : String.valueOf( value ),
+                        Integer.MAX_VALUE );
+            }
+            from = placeholder + 2;
+            arg++;
+        }
+        appendClean( builder, content, from, content.length() );
+    }
+
+    /**
+     * EXCEPTION : the exception - CAUSE : the first cause - DETAILS : the stack trace of the first cause
+     */
+    private static void appendException( StringBuilder builder, Throwable exception )
+    {
+        appendThrowable( builder, exception );
+        Throwable first = exception;
+        while( first.getCause() != null && first.getCause() != first ) {
+            first = first.getCause();
+        }
+        builder.append( " - CAUSE : " );
+        appendThrowable( builder, first );
+        builder.append( " - DETAILS : [" );
+        StackTraceElement[] stackTrace = first.getStackTrace();
+        for( int i = 0; i < stackTrace.length; i++ ) {
+            if( i > 0 ) {
+                builder.append( ", " );
+            }
+            builder.append( stackTrace[ i ] );
+        }
+        builder.append( ']' );
+    }
+
+    private static void appendThrowable( StringBuilder builder, Throwable throwable )
+    {
+        builder.append( throwable.getClass().getName() );
+        String message = throwable.getLocalizedMessage();
+        if( message != null ) {
+            builder.append( ": " );
+            appendClean( builder, message, Integer.MAX_VALUE );
+        }
+    }
+
+    /**
+     * Append without the line breaks, cut at the size
+     */
+    private static void appendClean( StringBuilder builder, CharSequence text, int size )
+    {
+        if( text == null ) {
+            builder.append( "null" );
+            return;
+        }
+        appendClean( builder, text, 0, Math.min( text.length(), size ) );
+    }
+
+    private static void appendClean( StringBuilder builder, CharSequence text, int from, int to )
+    {
+        for( int i = from; i < to; i++ ) {
+            char c = text.charAt( i );
+            if( c != '\n' && c != '\r' ) {
+                builder.append( c );
+            }
+        }
+    }
+
+    /**
+     * The buffer of a thread
+     */
+    private static final class Buffer {
+
+        private StringBuilder builder = new StringBuilder( INITIAL_BUFFER );
+        private boolean inUse;
+    }
+
+}
@@ -0,0 +1,143 @@
+package com.jr.core.service.async;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The number of orders executed in parallel, adapted to the latency and to the errors of the orders ( AIMD ).
+ *
+ * Each order ended is a sample : an order done within the latency threshold while the limit is used increases the
+ * limit by 1 / limit ( about 1 by limit orders ), an order failed, timed out or slower than the threshold
+ * multiplies the limit by the backoff ratio. The limit stays between the floor and the ceiling, the controller
+ * starts a new order only when the orders running are under the limit : the pool is never created again, its
+ * threads above the limit stay idle.
+ *
+ * The changes of the limit are published to the listeners ( property "limit" ).
+ */
+public class AdaptiveConcurrencyLimit extends Observable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final int floor;
+    private final int ceiling;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    // Guarded by this
+    private double limit;
+    // The integer part of the limit, read by the controller without lock
+    private volatile int published;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     * Start at the floor, back off by 10 %
+     *
+     * @param floor : The minimum number of orders executed in parallel ( at least 1 )
+     * @param ceiling : The maximum number of orders executed in parallel
+     * @param latencyThreshold : An order slower than this threshold is a sign of overload
+     */
+    public AdaptiveConcurrencyLimit( int floor, int ceiling, TimeOutTask latencyThreshold )
+    {
+        this( floor, ceiling, latencyThreshold, floor, DEFAULT_BACKOFF_RATIO );
+    }
+
+    /**
+     *
+     * @param floor : The minimum number of orders executed in parallel ( at least 1 )
+     * @param ceiling : The maximum number of orders executed in parallel
+     * @param latencyThreshold : An order slower than this threshold is a sign of overload
+     * @param initialLimit : The limit before the first sample
+     * @param backoffRatio : The factor applied to the limit on overload ( between 0 and 1 )
+     */
+    public AdaptiveConcurrencyLimit( int floor, int ceiling, TimeOutTask latencyThreshold, int initialLimit,
+                                     double backoffRatio )
+    {
+        if( floor < 1 || ceiling < floor ) {
+            throw new IllegalArgumentException("Invalid limits : floor " + floor + ", ceiling " + ceiling);
+        }
+        if( backoffRatio <= 0 || backoffRatio >= 1 ) {
+            throw new IllegalArgumentException("The backoff ratio must be between 0 and 1 : " + backoffRatio);
+        }
+        this.floor                  = floor;
+        this.ceiling                = ceiling;
+        this.latencyThresholdNanos  = latencyThreshold.getTimeConvert().toNanos( latencyThreshold.getUnitTime() );
+        this.backoffRatio           = backoffRatio;
+        this.limit                  = Math.max( floor, Math.min( ceiling, initialLimit ) );
+        this.published              = (int) this.limit;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * An order has ended ( called by the worker or the thread that ends the order )
+     *
+     * @param latencyNanos : The execution time of the order
+     * @param failed : The order failed or timed out
+     * @param inFlight : The number of orders running when the order started or ended
+     */
+    public void onSample( long latencyNanos, boolean failed, int inFlight )
+    {
+        int oldLimit;
+        int newLimit;
+        synchronized ( this ) {
+            oldLimit = this.published;
+            if( failed || latencyNanos > this.latencyThresholdNanos ) {
+                this.limit = Math.max( this.floor, this.limit * this.backoffRatio );
+            }
+            else if( inFlight * 2 >= oldLimit ) {
+                // Only grows when the limit is used : an idle service keeps its limit
+                this.limit = Math.min( this.ceiling, this.limit + 1.0 / this.limit );
+            }
+            newLimit = (int) this.limit;
+            this.published = newLimit;
+        }
+        if( newLimit != oldLimit ) {
+            this.observers.firePropertyChange( "limit", oldLimit, newLimit );
+        }
+    }
+
+    /**
+     *
+     * @return The number of orders that can run in parallel now
+     */
+    public int getLimit()
+    {
+        return this.published;
+    }
+
+    public int getFloor()
+    {
+        return this.floor;
+    }
+
+    public int getCeiling()
+    {
+        return this.ceiling;
+    }
+
+    public long getLatencyThreshold( TimeUnit timeUnit )
+    {
+        return timeUnit.convert( this.latencyThresholdNanos, TimeUnit.NANOSECONDS );
+    }
+
+    public double getBackoffRatio()
+    {
+        return this.backoffRatio;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AdaptiveConcurrencyLimit{limit=" + this.published + ", floor=" + this.floor
+                + ", ceiling=" + this.ceiling + '}';
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.jr.core.service.async;
+
+/**
+ * First in, first out : a ring of entries
+ */
+public class ArrayTaskQueue extends TaskQueue {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final TaskEntry[] items;
+    private int head;
+    private int tail;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    public ArrayTaskQueue( int capacity )
+    {
+        super( capacity );
+        this.items = new TaskEntry[ capacity ];
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    protected void enqueue( TaskEntry entry )
+    {
+        this.items[ this.tail ] = entry;
+        this.tail = this.next( this.tail );
+    }
+
+    @Override
+    protected TaskEntry dequeue()
+    {
+        TaskEntry entry = this.items[ this.head ];
+        this.items[ this.head ] = null;
+        this.head = this.next( this.head );
+        return entry;
+    }
+
+    @Override
+    protected TaskEntry first()
+    {
+        return this.items[ this.head ];
+    }
+
+    /**
+     * The oldest entry
+     */
+    @Override
+    protected TaskEntry dequeueEvicted()
+    {
+        return this.dequeue();
+    }
+
+    @Override
+    protected boolean removeEntry( Object entry )
+    {
+        int size = this.size();
+        for( int i = 0, index = this.head; i < size; i++, index = this.next( index ) )
+        {
+            if( entry.equals( this.items[ index ] ) ) {
+                // Shift the following entries
+                for( int j = i + 1, current = index; j < size; j++ ) {
+                    int following = this.next( current );
+                    this.items[ current ] = this.items[ following ];
+                    current = following;
+                }
+                this.tail = this.tail == 0 ? this.items.length - 1 : this.tail - 1;
+                this.items[ this.tail ] = null;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected TaskEntry[] toOrderedArray()
+    {
+        int size = this.size();
+        TaskEntry[] snapshot = new TaskEntry[ size ];
+        for( int i = 0, index = this.head; i < size; i++, index = this.next( index ) ) {
+            snapshot[ i ] = this.items[ index ];
+        }
+        return snapshot;
+    }
+
+    private int next( int index )
+    {
+        return index + 1 == this.items.length ? 0 : index + 1;
+    }
+
+}
@@ -1,36 +1,56 @@
 package com.jr.core.service.async;
 
-import com.jr.core.common.logs.LogUtil;
+import com.jr.core.api.async.ITask;
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.common.async.AddTaskStatus;
+import com.jr.core.common.async.OverflowPolicy;
+import com.jr.core.common.logs.LazyLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
+import javax.management.ObjectName;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.*;
 
 import static com.jr.core.common.async.CoreAsyncNameSpace.ASYNC;
 import static com.jr.core.common.async.CoreAsyncNameSpace.EXECUTOR;
+import static com.jr.core.common.async.CoreAsyncNameSpace.JOURNAL;
 
 
 public abstract class AsyncService< T extends Callable<?> > {
 
 
-    private static final int NUMBER_OF_CONTROLLER       = 1;
     private static final int NUMBER_MAX_ELEMENT_IN_FIFO = 100;
     private final Integer numberMaxPoolThread;
+    private final FifoPolicy fifoPolicy;
 
     // --------------------------------------
     // -        Attributes                  -
     // --------------------------------------
 
     private final Logger logger                                         = LoggerFactory.getLogger(getClass());
-    private final ExecutorService executorController                    = Executors.newFixedThreadPool(NUMBER_OF_CONTROLLER);
-    private final BlockingQueue<Callable<?>> fifo                       = new ArrayBlockingQueue<>(NUMBER_MAX_ELEMENT_IN_FIFO);
-    private final CopyOnWriteArrayList<Callable<?>> toAnalyseTask       = new CopyOnWriteArrayList<>();
-
-    private FifoController fifoController;
-    private boolean running;
+    private final IExecutorFactory executorFactory;
+    private final ExecutorService executorController;
+    private final TaskQueue fifo;
+    private final TaskIndex toAnalyseTask                               = new TaskIndex();
+    private final ServiceMetrics metrics;
+    private final TaskScheduler scheduler                               = new TaskScheduler( this::releaseScheduled,
+            this::signalController );
+    private final TaskRetrier retrier;
+
+    private volatile FifoController fifoController;
+    private volatile boolean running;
+    private volatile boolean persistent;
+    private volatile boolean coalescing;
+    private TimeOutTask idleTrim;
+    private volatile TaskJournal journal;
+    private volatile RemoteCoordinator remoteCoordinator;
+    private volatile AdaptiveConcurrencyLimit concurrencyLimit;
+    private int partitionLanes = KeyedLanes.DEFAULT_LANES;
 
     private final List<TimerTask> counterList;
     private final TimeOutTask timeOutTask;
@@ -58,9 +78,56 @@ public abstract class AsyncService< T extends Callable<?> > {
      * @param timeOutTask : The maximum execution time of an order
      */
     protected AsyncService(int maxThread, List<TimerTask> timerTaskList, TimeOutTask timeOutTask)
+    {
+        this( maxThread, timerTaskList, timeOutTask, null );
+    }
+
+    /**
+     *
+     * @param maxThread : The number of threads executed in parallel
+     * @param timerTaskList : The list of timers to respect
+     * @param timeOutTask : The maximum execution time of an order
+     * @param fifoPolicy : The capacity of the FIFO and what to do when it is full
+     */
+    protected AsyncService(int maxThread, List<TimerTask> timerTaskList, TimeOutTask timeOutTask, FifoPolicy fifoPolicy)
+    {
+        this( maxThread, timerTaskList, timeOutTask, fifoPolicy, null );
+    }
+
+    /**
+     *
+     * @param maxThread : The number of orders executed in parallel
+     * @param timerTaskList : The list of timers to respect
+     * @param timeOutTask : The maximum execution time of an order
+     * @param fifoPolicy : The capacity of the FIFO and what to do when it is full
+     * @param executorFactory : Create the threads of the orders and of the controller ( fixed pool by default )
+     */
+    protected AsyncService(int maxThread, List<TimerTask> timerTaskList, TimeOutTask timeOutTask, FifoPolicy fifoPolicy,
+                           IExecutorFactory executorFactory)
     {
         this.numberMaxPoolThread = maxThread;
 
+        if( executorFactory == null ){
+            this.executorFactory = new DefaultExecutorFactory();
+        }
+        else {
+            this.executorFactory = executorFactory;
+        }
+        this.executorController = this.executorFactory.newControllerExecutor();
+
+        if( fifoPolicy == null ){
+            this.fifoPolicy = new FifoPolicy( NUMBER_MAX_ELEMENT_IN_FIFO, OverflowPolicy.REJECT );
+        }
+        else {
+            this.fifoPolicy = fifoPolicy;
+        }
+        this.fifo = this.fifoPolicy.newTaskQueue();
+        this.metrics = new ServiceMetrics( this.fifo::size, () -> {
+            FifoController controller = this.fifoController;
+            return controller == null ? 0 : controller.getActiveWorkers();
+        }, this::getConcurrencyLimitValue );
+        this.retrier = new TaskRetrier( this.scheduler, this.metrics );
+
         if( timeOutTask == null ){
             this.timeOutTask = new TimeOutTask( 5, TimeUnit.MINUTES );
         }
@@ -83,29 +150,445 @@ public abstract class AsyncService< T extends Callable<?> > {
     /**
      *
      * @param task : The order to add to the FIFO
-     * @return False if the order is already in the Fifo otherwise True
-     * @throws IllegalStateException : The fifo is full
+     * @return False if the order is already in the Fifo or if the Fifo is full otherwise True
+     */
+    public boolean addTask( T task )
+    {
+        return this.offerTask( task ).isAccepted();
+    }
+
+    /**
+     * Add an order to the FIFO, the overflow policy is applied if the FIFO is full
+     *
+     * @param task : The order to add to the FIFO
+     * @return The outcome of the addition
+     */
+    public AddTaskStatus offerTask( T task )
+    {
+        TaskEntry entry = this.newEntry( task, false );
+        AddTaskStatus status = this.offerEntry( entry );
+        if( ! status.isAccepted() ) {
+            entry.refuse( status );
+        }
+        return status;
+    }
+
+    /**
+     * Add a batch of orders : the index is checked for each order, then the new orders enter the FIFO in one step.
+     * The orders that do not fit follow the overflow policy one by one.
+     *
+     * @param tasks : The orders to add to the FIFO
+     * @return The outcome of each addition, in the order of the collection
      */
-    public boolean addTask( T task ) throws IllegalStateException
+    public List<AddTaskStatus> addAll( Collection<? extends T> tasks )
     {
-        // Checks if the order is already in the FIFO
-        if( this.isInFifo( task ) )
+        AddTaskStatus[] statuses = new AddTaskStatus[ tasks.size() ];
+        List<TaskEntry> candidates = new ArrayList<>( tasks.size() );
+        int[] positions = new int[ tasks.size() ];
+
+        int position = 0;
+        for( T task : tasks )
         {
-            this.logger.debug("{}{} The task ({}) is already in the FIFO (total : {}) : {}",
-                    ASYNC, EXECUTOR, task, this.toAnalyseTask.size(), this.toAnalyseTask);
-            return false;
+            TaskEntry entry = this.newEntry( task, false );
+            // A duplicate of the FIFO or of the batch
+            TaskEntry original = this.toAnalyseTask.putIfAbsent( entry );
+            if( original == null ) {
+                positions[ candidates.size() ] = position;
+                candidates.add( entry );
+            }
+            else {
+                statuses[ position ] = this.coalesce( entry, original );
+                this.metrics.recordOffer( statuses[ position ] );
+                if( ! statuses[ position ].isAccepted() ) {
+                    entry.refuse( statuses[ position ] );
+                }
+            }
+            position++;
+        }
+
+        // Journaled before entering the FIFO : a task can end as soon as it is in the FIFO
+        for( TaskEntry entry : candidates ) {
+            this.journalEnqueue( entry );
+        }
+        int added = this.fifo.offerAll( candidates );
+        for( int i = 0; i < added; i++ ) {
+            this.metrics.recordOffer( AddTaskStatus.ACCEPTED );
+            statuses[ positions[ i ] ] = AddTaskStatus.ACCEPTED;
+        }
+        // Wake up the controller before waiting for room
+        this.signalController();
+
+        for( int i = added; i < candidates.size(); i++ )
+        {
+            TaskEntry entry = candidates.get( i );
+            AddTaskStatus status = this.offerInFifo( entry );
+            if( status == AddTaskStatus.ACCEPTED || status == AddTaskStatus.DROPPED_OLDEST ) {
+                this.signalController();
+            }
+            else {
+                this.toAnalyseTask.remove( entry );
+                this.journalComplete( entry );
+                entry.refuse( status );
+            }
+            this.metrics.recordOffer( status );
+            statuses[ positions[ i ] ] = status;
         }
 
-        // Adding the identifier only
-        this.fifo.add( task );
-        // The list is used to view the orders already in the FIFO
-        this.toAnalyseTask.add( task );
+        this.logger.debug("{}{} {} task(s) added in one step, {} by the overflow policy (total : {})",
+                ASYNC, EXECUTOR, added, candidates.size() - added, this.fifo.size());
+        return Arrays.asList( statuses );
+    }
+
+    /**
+     * Add an order to the FIFO and follow its execution without blocking a thread.
+     *
+     * In coalescing mode, the future of a duplicate follows the execution of the identical task.
+     * The future completes with the result of the task, or fails with the error of the task, a
+     * {@link TimeoutException} if the maximum execution time is exceeded, a {@link CancellationException} if the
+     * task is cancelled or dropped from the FIFO, a {@link RejectedExecutionException} if the task is not added.
+     *
+     * The future is completed by the worker before it is released : the dependent stages not async run in the worker.
+     *
+     * @param task : The order to add to the FIFO
+     * @return The future of the result
+     */
+    public CompletableFuture<ITaskResult<?>> submit( T task )
+    {
+        return this.submit( task, 0 );
+    }
+
+    /**
+     * Submit tasks with dependencies : each task enters the FIFO when its parents have completed, the tasks on the
+     * critical path first. A failure cancels the tasks that depend on the failed one.
+     *
+     * @param graph : The tasks and their dependencies ( submitted once )
+     * @return The future of the graph : the results in the order of addition, or the first failure
+     */
+    public CompletableFuture<List<ITaskResult<?>>> submitGraph( TaskGraph<T> graph )
+    {
+        CompletableFuture<List<ITaskResult<?>>> graphResult = graph.start( this );
+        this.logger.debug("{}{} Graph of {} task(s) submitted", ASYNC, EXECUTOR, graph.size());
+        return graphResult;
+    }
+
+    /**
+     * Add an order to the FIFO after a delay. At its time, the order is added like {@link #submit} ( duplicates,
+     * timers ), without blocking the controller : while the FIFO is full, it waits for a free place.
+     *
+     * @param task : The order
+     * @param delay : The time before the order enters the FIFO
+     * @return The future of the result ( cancelling it before the delay cancels the order )
+     */
+    public CompletableFuture<ITaskResult<?>> schedule( T task, TimeOutTask delay )
+    {
+        ScheduledTask scheduled = this.scheduler.schedule( task, toNanos( delay ), 0 );
+        CompletableFuture<ITaskResult<?>> result = scheduled.getResult();
+        result.whenComplete( ( taskResult, ex ) -> {
+            if( result.isCancelled() ) {
+                scheduled.cancel();
+            }
+        });
+        return result;
+    }
 
-        this.logger.debug("The order list in the FIFO (total : {}) : {}",
-                this.toAnalyseTask.size(), this.toAnalyseTask);
+    /**
+     * Add an order to the FIFO at a fixed rate : the run n is planned at initialDelay + n * period. A run never
+     * overlaps the previous one, a late run starts as soon as the previous one is done.
+     *
+     * @param task : The order, added again for each run
+     * @param initialDelay : The time before the first run
+     * @param period : The time between the starts of two runs
+     * @return The scheduled order, until {@link ScheduledTask#cancel()}
+     */
+    public ScheduledTask scheduleAtFixedRate( T task, TimeOutTask initialDelay, TimeOutTask period )
+    {
+        long periodNanos = toNanos( period );
+        if( periodNanos <= 0 ) {
+            throw new IllegalArgumentException("The period must be positive");
+        }
+        return this.scheduler.schedule( task, toNanos( initialDelay ), periodNanos );
+    }
+
+    /**
+     * Add an order to the FIFO with a fixed delay between the end of a run and the start of the next one
+     *
+     * @param task : The order, added again for each run
+     * @param initialDelay : The time before the first run
+     * @param delay : The time between the end of a run and the next run
+     * @return The scheduled order, until {@link ScheduledTask#cancel()}
+     */
+    public ScheduledTask scheduleWithFixedDelay( T task, TimeOutTask initialDelay, TimeOutTask delay )
+    {
+        long delayNanos = toNanos( delay );
+        if( delayNanos <= 0 ) {
+            throw new IllegalArgumentException("The delay must be positive");
+        }
+        return this.scheduler.schedule( task, toNanos( initialDelay ), -delayNanos );
+    }
+
+    /**
+     *
+     * @return The number of delayed orders waiting for their time ( and of the recovered orders waiting for room )
+     */
+    public int getScheduledCount()
+    {
+        return this.scheduler.size();
+    }
+
+    private static long toNanos( TimeOutTask time )
+    {
+        return time.getTimeConvert().toNanos( time.getUnitTime() );
+    }
+
+    /**
+     * A delayed order whose time has come ( called by the controller, never blocks )
+     *
+     * @return False if the FIFO is full : the order stays in the scheduler
+     */
+    private boolean releaseScheduled( ScheduledTask scheduled )
+    {
+        TaskEntry entry = new TaskEntry( scheduled.getTask(), true, scheduled.boost );
+        entry.attempt = scheduled.getAttempt();
+        entry.journalId = scheduled.journalId;
+        TaskEntry original = this.toAnalyseTask.putIfAbsent( entry );
+        if( original != null )
+        {
+            this.journalComplete( entry );
+            AddTaskStatus status = this.coalesce( entry, original );
+            this.metrics.recordOffer( status );
+            if( status != AddTaskStatus.COALESCED ) {
+                entry.refuse( status );
+            }
+            scheduled.released( entry.getResult() );
+            return true;
+        }
+
+        if( this.fifo.remainingCapacity() == 0 ) {
+            // Checked before the journal : no record written and completed at each try while the FIFO is full
+            this.toAnalyseTask.remove( entry );
+            return false;
+        }
+        boolean journaled = entry.journalId < 0;
+        if( journaled ) {
+            this.journalEnqueue( entry );
+        }
+        if( ! this.fifo.offer( entry ) ) {
+            this.toAnalyseTask.remove( entry );
+            if( journaled ) {
+                this.journalComplete( entry );
+            }
+            return false;
+        }
+        this.metrics.recordOffer( AddTaskStatus.ACCEPTED );
+        scheduled.released( entry.getResult() );
         return true;
     }
 
+    /**
+     *
+     * @param boost : Added to the priority of the task in a FIFO with aging
+     */
+    CompletableFuture<ITaskResult<?>> submit( T task, int boost )
+    {
+        TaskEntry entry = new TaskEntry( task, true, boost );
+        AddTaskStatus status = this.offerEntry( entry );
+        if( ! status.isAccepted() ) {
+            entry.refuse( status );
+        }
+        return entry.getResult();
+    }
+
+    /**
+     * Add a task from a worker ( a task of a graph whose parents have completed ) : never waits for room nor runs
+     * the task, the controller adds it to the FIFO as soon as there is room
+     *
+     * @param boost : Added to the priority of the task in a FIFO with aging
+     */
+    CompletableFuture<ITaskResult<?>> release( T task, int boost )
+    {
+        return this.scheduler.ready( task, boost ).getResult();
+    }
+
+    private AddTaskStatus offerEntry( TaskEntry entry )
+    {
+        // The index is used to view the orders already in the FIFO ( checked and added atomically )
+        TaskEntry original = this.toAnalyseTask.putIfAbsent( entry );
+        if( original != null )
+        {
+            AddTaskStatus status = this.coalesce( entry, original );
+            this.metrics.recordOffer( status );
+            return status;
+        }
+
+        this.journalEnqueue( entry );
+        AddTaskStatus status = this.offerInFifo( entry );
+        this.metrics.recordOffer( status );
+        if( status == AddTaskStatus.ACCEPTED || status == AddTaskStatus.DROPPED_OLDEST ) {
+            this.signalController();
+        }
+        else {
+            this.toAnalyseTask.remove( entry );
+            this.journalComplete( entry );
+            LazyLog.log( this.logger, Level.DEBUG, ASYNC, EXECUTOR, "The task has not been added to the FIFO", null,
+                    "{} : {}", entry, status );
+        }
+        return status;
+    }
+
+    /**
+     * In coalescing mode, all the entries have a future : a duplicate can follow the identical task
+     */
+    private TaskEntry newEntry( T task, boolean withResult )
+    {
+        return new TaskEntry( task, withResult || this.coalescing );
+    }
+
+    /**
+     * A task identical to a waiting or running one
+     *
+     * @return COALESCED if the entry follows the execution of the original one, otherwise DUPLICATE
+     */
+    private AddTaskStatus coalesce( TaskEntry entry, TaskEntry original )
+    {
+        if( this.coalescing && entry.follow( original ) ) {
+            this.logger.debug("{}{} The task ({}) shares the execution of an identical task",
+                    ASYNC, EXECUTOR, entry);
+            return AddTaskStatus.COALESCED;
+        }
+        LazyLog.log( this.logger, Level.DEBUG, ASYNC, EXECUTOR, "The task is already in the FIFO", null,
+                "{}", entry );
+        return AddTaskStatus.DUPLICATE;
+    }
+
+    /**
+     * Wake up the controller if it is waiting for orders
+     */
+    private void signalController()
+    {
+        FifoController controller = this.fifoController;
+        if( controller != null ) {
+            controller.signal();
+        }
+    }
+
+    private void journalEnqueue( TaskEntry entry )
+    {
+        TaskJournal taskJournal = this.journal;
+        if( taskJournal != null ) {
+            entry.journalId = taskJournal.enqueue( entry.getTask() );
+        }
+    }
+
+    private void journalComplete( TaskEntry entry )
+    {
+        TaskJournal taskJournal = this.journal;
+        if( taskJournal != null ) {
+            taskJournal.complete( entry.journalId );
+        }
+    }
+
+    /**
+     * A task of the journal never completed before the last stop : the capacity and the overflow policy do not apply,
+     * a task that does not fit in the FIFO waits in the scheduler for room ( never blocks, never drops a task )
+     */
+    @SuppressWarnings("unchecked")
+    private void replay( Object task, long journalId )
+    {
+        if( ! ( task instanceof Callable ) ) {
+            this.journal.complete( journalId );
+            return;
+        }
+        TaskEntry entry = this.newEntry( (T) task, false );
+        entry.journalId = journalId;
+        if( this.toAnalyseTask.putIfAbsent( entry ) != null ) {
+            this.journal.complete( journalId );
+            this.metrics.recordOffer( AddTaskStatus.DUPLICATE );
+            return;
+        }
+        if( this.fifo.offer( entry ) ) {
+            this.metrics.recordOffer( AddTaskStatus.ACCEPTED );
+            this.signalController();
+            return;
+        }
+        this.toAnalyseTask.remove( entry );
+        this.scheduler.recover( (Callable<?>) task, journalId );
+        LazyLog.log( this.logger, Level.DEBUG, ASYNC, JOURNAL, "The FIFO is full, the task waits for room", null,
+                "{}", task );
+    }
+
+    /**
+     * Apply the overflow policy
+     *
+     * @param task : The order to add to the FIFO
+     * @return The outcome of the addition
+     */
+    private AddTaskStatus offerInFifo( TaskEntry task )
+    {
+        if( this.fifo.offer( task ) ) {
+            return AddTaskStatus.ACCEPTED;
+        }
+
+        switch ( this.fifoPolicy.getOverflowPolicy() ) {
+            case BLOCK:
+                return this.offerAndWait( task );
+            case DROP_OLDEST:
+                return this.offerAndDropOldest( task );
+            case CALLER_RUNS:
+                return this.runInCaller( task );
+            case REJECT:
+            default:
+                return AddTaskStatus.REJECTED;
+        }
+    }
+
+    private AddTaskStatus offerAndWait( TaskEntry task )
+    {
+        TimeOutTask offerTimeOut = this.fifoPolicy.getOfferTimeOut();
+        try {
+            if( offerTimeOut == null ) {
+                this.fifo.put( task );
+                return AddTaskStatus.ACCEPTED;
+            }
+            boolean added = this.fifo.offer( task, offerTimeOut.getUnitTime(), offerTimeOut.getTimeConvert() );
+            return added ? AddTaskStatus.ACCEPTED : AddTaskStatus.TIMEOUT;
+        }
+        catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return AddTaskStatus.REJECTED;
+        }
+    }
+
+    private AddTaskStatus offerAndDropOldest( TaskEntry task )
+    {
+        boolean dropped = false;
+        while( ! this.fifo.offer( task ) )
+        {
+            TaskEntry oldest = this.fifo.evict();
+            if( oldest != null ) {
+                dropped = true;
+                this.toAnalyseTask.remove( oldest );
+                this.journalComplete( oldest );
+                oldest.cancel( "dropped from the full FIFO" );
+                this.logger.warn("{}{} The FIFO is full ( {} ), the oldest task is dropped : {}",
+                        ASYNC, EXECUTOR, this.fifoPolicy.getCapacity(), oldest);
+            }
+        }
+        return dropped ? AddTaskStatus.DROPPED_OLDEST : AddTaskStatus.ACCEPTED;
+    }
+
+    private AddTaskStatus runInCaller( TaskEntry task )
+    {
+        try {
+            task.complete( task.call() );
+        }
+        catch ( Exception ex ) {
+            task.fail( ex );
+            LazyLog.log( this.logger, Level.ERROR, ASYNC, EXECUTOR, "Error during the execution of a task in the caller !",
+                    ex, "Task : {}", task );
+        }
+        return AddTaskStatus.CALLER_RUN;
+    }
+
     /**
      * Start the order analysis controller
      */
@@ -123,7 +606,8 @@ public abstract class AsyncService< T extends Callable<?> > {
             this.logger.info("{}{} Starting the scheduler",
                     ASYNC, EXECUTOR);
 
-            this.fifoController = new FifoController( this.fifo, this.toAnalyseTask, numberMaxPoolThread);
+            this.fifoController = new FifoController( this.fifo, this.toAnalyseTask, numberMaxPoolThread,
+                    this.executorFactory );
 
             // Adding Timers
             for( TimerTask timerCommand : this.counterList )
@@ -134,6 +618,20 @@ public abstract class AsyncService< T extends Callable<?> > {
             // Maximum time of a command execution
             this.fifoController.setMaxTimerCommand( this.timeOutTask);
 
+            // Long-running service : the controller and its threads wait for the next orders
+            this.fifoController.setPersistent( this.persistent );
+            this.fifoController.setCoalescing( this.coalescing );
+            this.fifoController.setMetrics( this.metrics );
+            this.fifoController.setJournal( this.journal );
+            this.fifoController.setPartitionLanes( this.partitionLanes );
+            this.fifoController.setRemote( this.remoteCoordinator );
+            this.fifoController.setConcurrencyLimit( this.concurrencyLimit );
+            this.fifoController.setScheduler( this.scheduler );
+            this.fifoController.setRetrier( this.retrier );
+            if( this.idleTrim != null ) {
+                this.fifoController.setIdleTrim( this.idleTrim.getUnitTime(), this.idleTrim.getTimeConvert() );
+            }
+
             futureOfFifoController = this.executorController.submit( this.fifoController );
 
             try {
@@ -147,8 +645,8 @@ public abstract class AsyncService< T extends Callable<?> > {
             finally
             {
                 if( ! futureOfFifoController.isDone() ){
-                    this.logger.warn(LogUtil.format(ASYNC, EXECUTOR,
-                            "The FIFO controller will be shut down !"));
+                    LazyLog.log( this.logger, Level.WARN, ASYNC, EXECUTOR,
+                            "The FIFO controller will be shut down !", null );
                     futureOfFifoController.cancel( true );
                 }
 
@@ -173,6 +671,186 @@ public abstract class AsyncService< T extends Callable<?> > {
         this.fifoController.stopController();
     }
 
+    /**
+     * Persistent : the controller and its threads stay alive when the FIFO is empty and the next orders start
+     * immediately, the service runs until {@link #stop()}.
+     * Not persistent ( default ) : the controller stops as soon as the FIFO is empty.
+     *
+     * @param persistent
+     */
+    public void setPersistent( boolean persistent )
+    {
+        this.persistent = persistent;
+        FifoController controller = this.fifoController;
+        if( controller != null ) {
+            controller.setPersistent( persistent );
+        }
+    }
+
+    public boolean isPersistent()
+    {
+        return this.persistent;
+    }
+
+    /**
+     * Coalescing : a task identical to a waiting or running one is not executed again, it shares the execution
+     * ( and the future ) of the first one. The tasks stay in the index until the end of their execution.
+     * Without coalescing ( default ) : a task identical to a waiting one is refused, a task identical to a running
+     * one is executed again.
+     *
+     * @param coalescing
+     */
+    public void setCoalescing( boolean coalescing )
+    {
+        this.coalescing = coalescing;
+        FifoController controller = this.fifoController;
+        if( controller != null ) {
+            controller.setCoalescing( coalescing );
+        }
+    }
+
+    public boolean isCoalescing()
+    {
+        return this.coalescing;
+    }
+
+    /**
+     * Durable FIFO : the tasks are journaled when they are added, started and completed. The tasks of the journal
+     * never completed ( FIFO not empty at the stop, crash ) are added to the FIFO now, without its capacity and its
+     * overflow policy : the tasks that do not fit wait for room and enter the FIFO once the service is started. The
+     * failed, timed out or dropped tasks are not replayed. The journal is closed by its owner after the stop of the
+     * service.
+     *
+     * @param journal : The journal, opened on the directory of this service only
+     */
+    public void setJournal( TaskJournal journal )
+    {
+        if( journal == null ) {
+            throw new IllegalArgumentException("The journal must not be null");
+        }
+        this.journal = journal;
+        journal.replay( this::replay );
+    }
+
+    public TaskJournal getJournal()
+    {
+        return this.journal;
+    }
+
+    /**
+     * The number of tasks executed in parallel adapts to their latency and to their errors ( AIMD ), between the
+     * floor and the ceiling of the limit. The pool keeps maxThread threads : the ceiling must not exceed maxThread
+     * ( the limit would grow beyond the threads running ). Applied immediately.
+     *
+     * @param concurrencyLimit : The limit, null for maxThread tasks in parallel
+     * @throws IllegalArgumentException : The ceiling of the limit exceeds maxThread
+     */
+    public void setConcurrencyLimit( AdaptiveConcurrencyLimit concurrencyLimit )
+    {
+        if( concurrencyLimit != null && concurrencyLimit.getCeiling() > this.numberMaxPoolThread ) {
+            throw new IllegalArgumentException("The ceiling of the limit " + concurrencyLimit.getCeiling()
+                    + " exceeds maxThread " + this.numberMaxPoolThread);
+        }
+        this.concurrencyLimit = concurrencyLimit;
+        FifoController controller = this.fifoController;
+        if( controller != null ) {
+            controller.setConcurrencyLimit( concurrencyLimit );
+        }
+    }
+
+    public AdaptiveConcurrencyLimit getConcurrencyLimit()
+    {
+        return this.concurrencyLimit;
+    }
+
+    private int getConcurrencyLimitValue()
+    {
+        AdaptiveConcurrencyLimit limit = this.concurrencyLimit;
+        return limit == null ? this.numberMaxPoolThread : Math.min( this.numberMaxPoolThread, limit.getLimit() );
+    }
+
+    /**
+     * A task that throws an exception is executed again after a backoff, in the scheduler of the service : its
+     * worker is released at once and its future completes with the last attempt. The policy of a task
+     * ( {@link ITask#getRetryPolicy()} ) comes first.
+     *
+     * @param retryPolicy : null to retry only the tasks with their own policy
+     */
+    public void setRetryPolicy( RetryPolicy retryPolicy )
+    {
+        this.retrier.setPolicy( retryPolicy );
+    }
+
+    public RetryPolicy getRetryPolicy()
+    {
+        return this.retrier.getPolicy();
+    }
+
+    /**
+     * Limit the share of the work that can be retries, for all the tasks of the service
+     *
+     * @param retryBudget : null for no limit
+     */
+    public void setRetryBudget( RetryBudget retryBudget )
+    {
+        this.retrier.setBudget( retryBudget );
+    }
+
+    public RetryBudget getRetryBudget()
+    {
+        return this.retrier.getBudget();
+    }
+
+    /**
+     * The tasks are leased to remote workers ( {@link RemoteWorker} ) instead of the threads of this JVM. The FIFO,
+     * the duplicates, the timers and the maximum execution time stay in this service, the number of tasks executed
+     * in parallel is bounded by the number of threads of the service and by the slots of the workers connected.
+     * Applied at the next start of the controller. The coordinator is closed by its owner after the stop of the service.
+     *
+     * @param remoteCoordinator : The coordinator of the workers, null to execute the tasks in this JVM
+     */
+    public void setRemoteCoordinator( RemoteCoordinator remoteCoordinator )
+    {
+        this.remoteCoordinator = remoteCoordinator;
+    }
+
+    public RemoteCoordinator getRemoteCoordinator()
+    {
+        return this.remoteCoordinator;
+    }
+
+    /**
+     * The tasks with the same partition key ( {@link ITask#getPartitionKey()} ) run one after the other, in the
+     * order of the FIFO, the other tasks run in parallel. The keys are spread over striped lanes : two keys of the
+     * same lane are serialized too. The timeout of a task starts with its execution, the timers count the real starts.
+     * Applied at the next start of the controller.
+     *
+     * @param lanes : The number of lanes ( 256 by default, rounded up to a power of 2 )
+     */
+    public void setPartitionLanes( int lanes )
+    {
+        if( lanes <= 0 ) {
+            throw new IllegalArgumentException("The number of lanes must be positive");
+        }
+        this.partitionLanes = lanes;
+    }
+
+    public int getPartitionLanes()
+    {
+        return this.partitionLanes;
+    }
+
+    /**
+     * The time after which an idle thread of the pool is released in persistent mode ( 1 min by default ).
+     * Applied at the next start of the controller.
+     *
+     * @param idleTrim
+     */
+    public void setIdleTrim( TimeOutTask idleTrim )
+    {
+        this.idleTrim = idleTrim;
+    }
+
     /**
      * Wait the end of execution controller
      * @throws ExecutionException
@@ -203,21 +881,14 @@ public abstract class AsyncService< T extends Callable<?> > {
 
 
     /**
-     * Checks if the order has already been put in the FIFO
+     * Checks if the order has already been put in the FIFO ( or is running, in coalescing mode )
      *
      * @param command : The command to check
      * @return
      */
     public boolean isInFifo( Callable<?> command )
     {
-        for( Callable<?> taskToAnalyse : this.toAnalyseTask)
-        {
-            if( Objects.equals( taskToAnalyse, command ) )
-            {
-                return true;
-            }
-        }
-        return false;
+        return this.toAnalyseTask.contains( command );
     }
 
     /**
@@ -235,7 +906,50 @@ public abstract class AsyncService< T extends Callable<?> > {
      */
     public int getMaxSizeFifo()
     {
-        return NUMBER_MAX_ELEMENT_IN_FIFO;
+        return this.fifoPolicy.getCapacity();
+    }
+
+    /**
+     *
+     * @return The capacity of the FIFO and what to do when it is full
+     */
+    public FifoPolicy getFifoPolicy()
+    {
+        return this.fifoPolicy;
+    }
+
+    /**
+     *
+     * @return Create the threads of the orders and of the controller
+     */
+    public IExecutorFactory getExecutorFactory()
+    {
+        return this.executorFactory;
+    }
+
+    /**
+     *
+     * @return An immutable view of the metrics of the service ( cumulated since its creation )
+     */
+    public MetricsSnapshot getMetrics()
+    {
+        return this.metrics.snapshot();
+    }
+
+    /**
+     * Export the metrics of the service by JMX ( domain {@value ServiceMetrics#JMX_DOMAIN} )
+     *
+     * @param name : The name of the service ( unique in the JVM )
+     * @return The name of the MBean
+     */
+    public ObjectName registerMBean( String name )
+    {
+        return this.metrics.register( name );
+    }
+
+    public void unregisterMBean()
+    {
+        this.metrics.unregister();
     }
 
     public List<TimerTask> getCounterList() {
@@ -248,7 +962,11 @@ public abstract class AsyncService< T extends Callable<?> > {
      */
     public List<Callable<?>> getAllCommands()
     {
-        return new ArrayList<>( this.toAnalyseTask);
+        List<Callable<?>> commands = new ArrayList<>( this.fifo.size() );
+        for( TaskEntry entry : this.fifo ) {
+            commands.add( entry.getTask() );
+        }
+        return commands;
     }
 
 
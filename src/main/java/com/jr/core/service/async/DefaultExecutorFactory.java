@@ -0,0 +1,138 @@
+package com.jr.core.service.async;
+
+import com.jr.core.common.async.ExecutorBackend;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The built-in executors : fixed pool, fork/join pool or virtual threads.
+ *
+ * The virtual threads are created by reflection, the library stays compiled for Java 8 and uses them when the
+ * runtime is Java 21 or later. The controller always runs on a platform thread.
+ */
+public class DefaultExecutorFactory implements IExecutorFactory {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+    private final ExecutorBackend backend;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    public DefaultExecutorFactory()
+    {
+        this( ExecutorBackend.FIXED );
+    }
+
+    /**
+     *
+     * @param backend : The threads that execute the orders
+     * @throws IllegalStateException : The virtual threads are not available in this runtime
+     */
+    public DefaultExecutorFactory( ExecutorBackend backend )
+    {
+        if( backend == ExecutorBackend.VIRTUAL_THREAD && ! isVirtualThreadSupported() ) {
+            throw new IllegalStateException("The virtual threads need Java 21 or later, runtime : "
+                    + System.getProperty("java.version"));
+        }
+        this.backend = backend;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    public ExecutorService newWorkerExecutor( int maxPoolThread )
+    {
+        switch ( this.backend ) {
+            case FORK_JOIN:
+                return new ForkJoinPool( maxPoolThread );
+            case VIRTUAL_THREAD:
+                return newVirtualThreadExecutor();
+            case FIXED:
+            default:
+                ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool( maxPoolThread,
+                        new NamedThreadFactory( "core-async-worker-" ) );
+                // The first orders do not wait for the creation of the threads
+                executor.prestartAllCoreThreads();
+                return executor;
+        }
+    }
+
+    @Override
+    public ExecutorService newControllerExecutor()
+    {
+        return Executors.newSingleThreadExecutor( new NamedThreadFactory( "core-async-controller-" ) );
+    }
+
+    public ExecutorBackend getBackend()
+    {
+        return this.backend;
+    }
+
+    /**
+     *
+     * @return True if the runtime provides the virtual threads ( Java 21 or later )
+     */
+    public static boolean isVirtualThreadSupported()
+    {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    private static ExecutorService newVirtualThreadExecutor()
+    {
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke( null );
+        }
+        catch ( ReflectiveOperationException ex ) {
+            throw new IllegalStateException("Unable to create the executor of virtual threads", ex);
+        }
+    }
+
+    private static Method findVirtualThreadExecutor()
+    {
+        try {
+            return Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+        }
+        catch ( NoSuchMethodException ex ) {
+            return null;
+        }
+    }
+
+    /**
+     * Named platform threads, easier to find in a thread dump
+     */
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory( String prefix )
+        {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread( Runnable runnable )
+        {
+            Thread thread = new Thread( runnable, this.prefix + this.counter.incrementAndGet() );
+            // Same as the default factory of Executors
+            thread.setDaemon( false );
+            thread.setPriority( Thread.NORM_PRIORITY );
+            return thread;
+        }
+    }
+
+}
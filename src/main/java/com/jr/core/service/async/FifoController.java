@@ -1,12 +1,17 @@
 package com.jr.core.service.async;
 
-import com.jr.core.common.logs.LogUtil;
+import com.jr.core.common.async.RateLimitMode;
+import com.jr.core.common.logs.LazyLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import static com.jr.core.common.async.CoreAsyncNameSpace.*;
 
@@ -25,17 +30,46 @@ public class FifoController implements Runnable {
     // --------------------------------------
 
     protected final Logger logger = LoggerFactory.getLogger(getClass());
-    protected final BlockingQueue< ? extends Callable<?> >          fifo;
-    protected final CopyOnWriteArrayList< ? extends Callable<?> >   toCurrentObject;
-    protected final CopyOnWriteArrayList< Future<?> >     resultOrderWaiting = new CopyOnWriteArrayList<>();
+    protected final BlockingQueue< TaskEntry >                      fifo;
+    protected final TaskIndex                                       toCurrentObject;
+    protected final Set< Future<?> >                                resultOrderWaiting = ConcurrentHashMap.newKeySet();
+    protected final AtomicInteger                                   inFlight = new AtomicInteger();
     protected final ExecutorService executorService;
-    protected final ExecutorService executorServiceCheckout;
+    protected final int maxPoolThread;
+    // Tracks the deadlines of all the running orders
+    protected volatile TimeOutWheel timeOutWheel;
 
+    private volatile Thread dispatcher;
+    // Set by signal() : a permit of LockSupport can be consumed by any lock taken by the controller
+    private volatile boolean signalled                  = false;
     protected volatile boolean running                  = false;
     protected volatile boolean stop                     = false;
     protected long maxTimeMillisByCommand               = 60 * 60 * 1000 ; // 1H00
-
-    protected List<TimerByTask> timerList;
+    // Logged by the timeouts without formatting the duration each time
+    private String maxTimeLabel                         = maxTimeMillisByCommand + " " + TimeUnit.MILLISECONDS;
+    protected long toleranceMillisByCommand             = TimeOutWheel.DEFAULT_TICK_MILLIS;
+    // Persistent : the controller waits for the next orders instead of stopping when the FIFO is empty
+    protected volatile boolean persistent               = false;
+    protected long idleTrimMillis                       = 60 * 1000 ; // 1 min
+    // Coalescing : the orders stay in the index until the end of their execution
+    protected volatile boolean coalescing               = false;
+
+    protected List<IRateLimiter> timerList;
+    protected ServiceMetrics metrics;
+    // Null if the FIFO is not durable
+    protected TaskJournal journal;
+    // The orders with a partition key, only used by the thread of the controller
+    protected KeyedLanes keyedLanes                     = new KeyedLanes();
+    // The orders taken from the FIFO while waiting in the lanes ( at most the capacity of the FIFO )
+    protected final int backlogLimit;
+    // Null if the orders run in the workers of this JVM
+    protected RemoteCoordinator remote;
+    // Null if the number of orders in parallel is fixed ( maxPoolThread )
+    protected volatile AdaptiveConcurrencyLimit concurrencyLimit;
+    // Null if the service has no delayed task
+    private volatile TaskScheduler scheduler;
+    // Null if the failed orders are never retried
+    private volatile TaskRetrier retrier;
 
     // --------------------------------------
     // -        Constructors                -
@@ -43,18 +77,34 @@ public class FifoController implements Runnable {
 
     /**
      * @param fifo : The FIFO to read
-     * @param toCurrentObject : The list of all the objects that are currently in the FIFO. This avoids duplicating existing ones.
+     * @param toCurrentObject : The index of all the objects that are currently in the FIFO. This avoids duplicating existing ones.
      * @param maxPoolThread : The number of commands to be executed in parallel
      */
-    public FifoController( BlockingQueue< ? extends Callable<?> > fifo,
-                           CopyOnWriteArrayList< ? extends Callable<?> > toCurrentObject,
+    public FifoController( BlockingQueue< TaskEntry > fifo,
+                           TaskIndex toCurrentObject,
                            int maxPoolThread )
+    {
+        this( fifo, toCurrentObject, maxPoolThread, new DefaultExecutorFactory() );
+    }
+
+    /**
+     * @param fifo : The FIFO to read
+     * @param toCurrentObject : The index of all the objects that are currently in the FIFO. This avoids duplicating existing ones.
+     * @param maxPoolThread : The number of commands to be executed in parallel
+     * @param executorFactory : Create the executor of the commands
+     */
+    public FifoController( BlockingQueue< TaskEntry > fifo,
+                           TaskIndex toCurrentObject,
+                           int maxPoolThread,
+                           IExecutorFactory executorFactory )
     {
         this.fifo               = fifo;
         this.toCurrentObject    = toCurrentObject;
-        this.executorService    = Executors.newFixedThreadPool(maxPoolThread);
-        this.executorServiceCheckout  = Executors.newFixedThreadPool(maxPoolThread + 1 );
+        this.maxPoolThread      = maxPoolThread;
+        this.executorService    = executorFactory.newWorkerExecutor( maxPoolThread );
         this.timerList          = new ArrayList<>();
+        this.metrics            = new ServiceMetrics( fifo::size, this.inFlight::get );
+        this.backlogLimit       = fifo instanceof TaskQueue ? ((TaskQueue) fifo).getCapacity() : Integer.MAX_VALUE;
     }
 
     // --------------------------------------
@@ -64,47 +114,41 @@ public class FifoController implements Runnable {
     @Override
     public void run ()
     {
+        this.dispatcher = Thread.currentThread();
+        this.timeOutWheel = new TimeOutWheel( "core-async-timeout", this.toleranceMillisByCommand,
+                TimeUnit.MILLISECONDS, TimeOutWheel.DEFAULT_WHEEL_SIZE );
         running = true;
+        if( this.persistent ) {
+            this.trimIdleWorkers();
+        }
         try {
             while ( ! stop )
             {
-                Future<?> future;
-                // Retrieving an order
-                Callable<?> command = fifo.poll( TIME_OUT_MAX_FIFO, TimeUnit.MILLISECONDS );
-                // Deletion of the order removed from the FIFO
-                this.toCurrentObject.remove( command );
-
-                if ( command != null ) {
-                    this.getLogger().debug("{}{}{} Execute the order {}",
-                            FIFO_CONTROLLER, EXECUTE, RUN, command );
-                    // Execute the orders
-                    future = executorService.submit( command );
-
-                    for( TimerByTask timer : this.timerList ) {
-                        // Increments counters
-                        timer.setNewCommand();
-                    }
-
-                    // Add the list of pending results ( with maximum time )
-                    this.resultOrderWaiting.add( future );
-                    // Check timeOut order asynchronous
-                    this.executorServiceCheckout.execute(() -> checkTimeOutCommand( future, command ));
+                this.signalled = false;
+                // The delayed orders whose time has come enter the FIFO first
+                TaskScheduler taskScheduler = this.scheduler;
+                if( taskScheduler != null ) {
+                    taskScheduler.releaseDue( System.nanoTime() );
                 }
+                // Moves as many orders as the permits and the timers allow
+                int dispatched = this.dispatchReadyCommands();
 
-                // Checking the counters / timers
-                for( TimerByTask timer : this.timerList ) {
-                    // Checking the counter and block if necessary
-                    timer.checkCommandAndValidBlock();
+                if( this.persistent && dispatched == 0 ) {
+                    // Idle or waiting : the threads stay alive for the next orders
+                    this.park();
                 }
-
-                if( this.fifo.isEmpty() && this.resultOrderWaiting.isEmpty() ) {
+                else if( this.fifo.isEmpty() && this.inFlight.get() == 0 && this.keyedLanes.getBacklog() == 0
+                        && ( taskScheduler == null || taskScheduler.isEmpty() ) ) {
                     this.stop = true;
                     // No other task can be performed
                     this.executorService.shutdown();
-                    this.getLogger().info("{}{}{} The FIFO is empty : {}. Request to stop the service.",
-                            FIFO_CONTROLLER, EXECUTE, RUN, this.toCurrentObject );
+                    this.getLogger().info("{}{}{} The FIFO is empty : {} order(s) indexed. Request to stop the service.",
+                            FIFO_CONTROLLER, EXECUTE, RUN, this.toCurrentObject.size() );
+                }
+                else if( dispatched == 0 ) {
+                    // Nothing can be done : sleep until a new order, a free worker or the next timer permit
+                    this.park();
                 }
-
             }
         } catch ( InterruptedException e ) {
             int sizeCommand = fifo.size();
@@ -116,26 +160,38 @@ public class FifoController implements Runnable {
                     FIFO_CONTROLLER, EXECUTE, FAIL, sizeCommand, ex.getMessage(), ex.getStackTrace() );
         } finally {
 
-            // Wait for the last threads
-            if( ! this.resultOrderWaiting.isEmpty() ) {
-                this.getLogger().info(LogUtil.format(FIFO_CONTROLLER, EXECUTE, "The controller waits for the last Threads",
-                        String.format("The controller wait %s ms for the last Threads to complete successfully",
-                                TIME_OUT_MAX_FIFO )));
+            // Wait for the last threads ( an order cancelled by its timeout can still be ending in its thread )
+            if( ! this.resultOrderWaiting.isEmpty()
+                    || ( this.executorService.isShutdown() && ! this.executorService.isTerminated() ) ) {
+                LazyLog.log( this.getLogger(), Level.INFO, FIFO_CONTROLLER, EXECUTE,
+                        "The controller waits for the last Threads", null,
+                        "The controller wait {} ms for the last Threads to complete successfully", TIME_OUT_MAX_FIFO );
                 try {
                     this.executorService.awaitTermination( TIME_OUT_MAX_FIFO, TimeUnit.MILLISECONDS );
                 } catch (InterruptedException e) {
-                    this.getLogger().warn(LogUtil.format(FIFO_CONTROLLER, EXECUTE,
-                            "Request for a sudden stop of the controller !",
-                            e));
+                    LazyLog.log( this.getLogger(), Level.WARN, FIFO_CONTROLLER, EXECUTE,
+                            "Request for a sudden stop of the controller !", e );
                 }
             }
 
             if( ! this.executorService.isTerminated() ){
-                this.getLogger().warn( LogUtil.format(FIFO_CONTROLLER, EXECUTE, "Some Threads will be stopped suddenly !"));
+                LazyLog.log( this.getLogger(), Level.WARN, FIFO_CONTROLLER, EXECUTE,
+                        "Some Threads will be stopped suddenly !", null );
             }
             // Stopping all Threads and the service
             this.executorService.shutdownNow();
+            // The orders never started by the executor are cancelled : their futures and their index complete
+            for( Future<?> future : this.resultOrderWaiting ) {
+                future.cancel( false );
+            }
+            this.keyedLanes.clear( command -> {
+                this.toCurrentObject.remove( command );
+                this.metrics.recordCancellation();
+                command.cancel( "the controller is stopped" );
+            });
+            this.timeOutWheel.stop();
 
+            this.dispatcher = null;
             running = false;
             stop    = false;
 
@@ -145,66 +201,261 @@ public class FifoController implements Runnable {
     }
 
     /**
-     * Check the max time of execution order
+     * Drain the FIFO in one batch, limited by the free workers and by the timers.
+     * The orders of the free lanes go first, an order whose lane is busy waits in the lane.
+     *
+     * @return The number of orders sent to the workers
+     */
+    protected int dispatchReadyCommands()
+    {
+        int available = this.getConcurrencyLimit() - this.inFlight.get();
+        if( this.remote != null ) {
+            available = Math.min( available, this.remote.getAvailableSlots() );
+        }
+        for( IRateLimiter timer : this.timerList ) {
+            available = Math.min( available, timer.getAvailableCommand( available ) );
+        }
+        if( available <= 0 || ! this.hasReadyCommands() ) {
+            return 0;
+        }
+
+        List<TaskEntry> batch = new ArrayList<>( available );
+        List<KeyedLanes.Lane> batchLanes = new ArrayList<>( available );
+        if( this.keyedLanes.getBacklog() > 0 ) {
+            this.keyedLanes.drainReady( batch, batchLanes, available );
+        }
+        List<TaskEntry> drained = new ArrayList<>( available );
+        while( batch.size() < available && this.keyedLanes.getBacklog() < this.backlogLimit
+                && this.fifo.drainTo( drained, available - batch.size() ) > 0 )
+        {
+            for( TaskEntry command : drained )
+            {
+                // Deletion of the order removed from the FIFO ( at the end of its execution in coalescing mode )
+                if( ! this.coalescing ) {
+                    this.toCurrentObject.remove( command );
+                }
+                KeyedLanes.Lane lane = null;
+                if( command.getPartitionKey() != null && ( lane = this.keyedLanes.admit( command ) ) == null ) {
+                    // Runs after the orders of its lane
+                    continue;
+                }
+                batch.add( command );
+                batchLanes.add( lane );
+            }
+            drained.clear();
+        }
+
+        List<DispatchedCommand> leased = this.remote != null ? new ArrayList<>( batch.size() ) : null;
+        for( int b = 0; b < batch.size(); b++ )
+        {
+            TaskEntry command = batch.get( b );
+            LazyLog.log( this.getLogger(), Level.DEBUG, FIFO_CONTROLLER, EXECUTE, "Execute the order", null,
+                    "{}", command );
+
+            DispatchedCommand future = new DispatchedCommand( command, batchLanes.get( b ) );
+            // Add the list of pending results ( with maximum time )
+            this.inFlight.incrementAndGet();
+            this.resultOrderWaiting.add( future );
+
+            for( int i = 0; i < this.timerList.size(); i++ ) {
+                // Increments counters ( the stamps are moved to the real start by the worker )
+                future.timerOrders[ i ] = this.timerList.get( i ).setNewCommand();
+            }
+
+            if( leased != null ) {
+                leased.add( future );
+                continue;
+            }
+            // Execute the orders ( the deadline starts with the execution )
+            this.executorService.execute( future );
+        }
+        if( leased != null ) {
+            // One batch by remote worker ( the deadline starts with the lease )
+            this.remote.lease( leased );
+        }
+        return batch.size();
+    }
+
+    /**
+     * An order can be sent to a worker : in the FIFO ( if the lanes can take more orders ) or in a free lane
+     */
+    protected boolean hasReadyCommands()
+    {
+        return ( ! this.fifo.isEmpty() && this.keyedLanes.getBacklog() < this.backlogLimit )
+                || ( this.keyedLanes.getBacklog() > 0 && this.keyedLanes.hasReady() );
+    }
+
+    /**
+     * The idle threads of a pool are released after the idle trim and created again by the next orders
+     */
+    protected void trimIdleWorkers()
+    {
+        if( this.executorService instanceof ThreadPoolExecutor ) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) this.executorService;
+            pool.setKeepAliveTime( this.idleTrimMillis, TimeUnit.MILLISECONDS );
+            pool.allowCoreThreadTimeOut( true );
+        }
+    }
+
+    /**
+     * Park the controller until {@link #signal()} is called, until the next timer permit is released or until the
+     * time of the next delayed order
+     *
+     * @throws InterruptedException : The controller has been interrupted
+     */
+    protected void park() throws InterruptedException
+    {
+        long waitNanos = 0;
+        if( this.inFlight.get() < this.getConcurrencyLimit() && this.hasReadyCommands() ) {
+            // Blocked by a timer only
+            for( IRateLimiter timer : this.timerList ) {
+                waitNanos = Math.max( waitNanos, timer.getNanosBeforeNextCommand() );
+            }
+            if( waitNanos == 0 ) {
+                // The window moved since the last dispatch
+                return;
+            }
+        }
+
+        TaskScheduler taskScheduler = this.scheduler;
+        long scheduledNanos = taskScheduler == null ? Long.MAX_VALUE : taskScheduler.getNanosBeforeNext( System.nanoTime() );
+        if( scheduledNanos == 0 ) {
+            // A delayed order is late
+            return;
+        }
+
+        // Nothing happened since the last dispatch : blocked by a timer
+        if( ! this.signalled && waitNanos > 0 ) {
+            long parkedAt = System.nanoTime();
+            LockSupport.parkNanos( this, Math.min( waitNanos, scheduledNanos ) );
+            this.metrics.recordLimiterStall( System.nanoTime() - parkedAt );
+        }
+        else if( ! this.signalled ) {
+            // Until the next delayed order or a signal
+            if( scheduledNanos != Long.MAX_VALUE ) {
+                LockSupport.parkNanos( this, scheduledNanos );
+            }
+            else {
+                LockSupport.park( this );
+            }
+        }
+
+        if( Thread.interrupted() ) {
+            throw new InterruptedException();
+        }
+    }
+
+    /**
+     * Wake up the controller : a new order is in the FIFO or a worker is free
+     */
+    public void signal()
+    {
+        this.signalled = true;
+        Thread thread = this.dispatcher;
+        if( thread != null ) {
+            LockSupport.unpark( thread );
+        }
+    }
+
+    /**
+     * Check the end of execution order ( called when the order is done, never blocks )
      * @param future
      * @param command
      */
-    protected void checkTimeOutCommand( Future<?> future, Callable<?> command )  {
+    protected void checkTimeOutCommand( Future<?> future, TaskEntry command )  {
+        if( future.isCancelled() ) {
+            // Without get() : no CancellationException is created for each timeout
+            this.cancelledCommand( future, command, null );
+            return;
+        }
         try {
-            // Attend l'éxecution de la commande ( avec un temps maximum )
-            future.get(this.maxTimeMillisByCommand, TimeUnit.MILLISECONDS);
+            Object value = future.get();
+            this.metrics.recordCompleted();
+            this.journalCompleted( command );
+            if( this.retrier != null ) {
+                this.retrier.succeeded( command );
+            }
+            command.complete( value );
         }
         catch ( InterruptedException te ){
-            boolean isCancelled = future.cancel( true );
-            this.getLogger().warn( LogUtil.format(  FIFO_CONTROLLER, EXECUTE, "Interruption de la commande !",
-                    String.format("Commande : %s - Durée max : %s %s - Is canceled : %s",
-                            command, this.maxTimeMillisByCommand, TimeUnit.MILLISECONDS , isCancelled ),
-                    te ));
-        }
-        catch ( TimeoutException te) {
-            // Annulation de la commande si celle-ci est trop longue
-            boolean isCancelled = future.cancel( true );
-            this.getLogger().warn( LogUtil.format(  FIFO_CONTROLLER, EXECUTE, "Timeout de la commande !",
-                    String.format("Commande : %s - Durée max : %s %s - Is canceled : %s ",
-                            command, this.maxTimeMillisByCommand, TimeUnit.MILLISECONDS, isCancelled ),
-                    te ));
-        } catch ( CancellationException ce ) {
-            this.getLogger().warn( LogUtil.format(  FIFO_CONTROLLER, EXECUTE, "Annulation de la commande !",
-                    String.format("Commande : %s - Durée max : %s %s", command, this.maxTimeMillisByCommand, TimeUnit.MILLISECONDS),
-                    ce ));
+            Thread.currentThread().interrupt();
+            this.metrics.recordFailed();
+            this.journalCompleted( command );
+            command.fail( te );
+        }
+        catch ( CancellationException ce ) {
+            this.cancelledCommand( future, command, ce );
         } catch ( ExecutionException ex ){
-            this.getLogger().error( LogUtil.format(  FIFO_CONTROLLER, EXECUTE, "Erreur en interne de la commande !",
-                    String.format("Commande : %s - Durée max : %s %s", command, this.maxTimeMillisByCommand, TimeUnit.MILLISECONDS),
-                    ex ));
+            TaskRetrier taskRetrier = this.retrier;
+            if( taskRetrier != null && taskRetrier.retry( command, ex.getCause() ) ) {
+                // A new attempt after its backoff, in the scheduler : the future and the record of the journal
+                // follow the new attempt
+                return;
+            }
+            this.metrics.recordFailed();
+            this.journalCompleted( command );
+            command.fail( ex.getCause() );
+            LazyLog.log( this.getLogger(), Level.ERROR, FIFO_CONTROLLER, EXECUTE, "Erreur en interne de la commande !",
+                    ex, "Commande : {} - Durée max : {}", command, this.maxTimeLabel );
         }
         catch ( Exception ex ){
-            this.getLogger().error( LogUtil.format( FIFO_CONTROLLER, EXECUTE,
-                    "Erreur pendant l'execution d'une commande !",
-                    String.format("Commande : %s", command ),
-                    ex
-            ));
-        }
-        finally {
-            if ( ! future.isDone() && ! future.isCancelled() ) {
-                // Annulation de la commande si celle-ci est trop longue
-                future.cancel( true );
-                this.getLogger().warn("{}{}{} Commande non terminée : {} ! Durée max : {} {} - Tâche terminée : {} - Tâche annulée : {}",
-                        FIFO_CONTROLLER, EXECUTE, RUN, command, this.maxTimeMillisByCommand, TimeUnit.MILLISECONDS, future.isDone(),
-                        future.isCancelled() );
-            }
-            // Supprime de la liste des commandes en attente
-            this.resultOrderWaiting.remove( future );
+            this.metrics.recordFailed();
+            this.journalCompleted( command );
+            command.fail( ex );
+            LazyLog.log( this.getLogger(), Level.ERROR, FIFO_CONTROLLER, EXECUTE,
+                    "Erreur pendant l'execution d'une commande !", ex, "Commande : {}", command );
         }
     }
 
+    /**
+     * The order has been cancelled by its timeout or by the shutdown of the controller
+     *
+     * @param cause : The exception of get(), null if not called
+     */
+    private void cancelledCommand( Future<?> future, TaskEntry command, CancellationException cause )
+    {
+        if( future instanceof DispatchedCommand && ((DispatchedCommand) future).isTimedOut() ) {
+            // Already logged by the timeout
+            this.metrics.recordTimeOut();
+            this.journalCompleted( command );
+            command.timeOut( this.maxTimeMillisByCommand );
+            return;
+        }
+        // Stopped before its execution : replayed by the journal at the next start
+        this.metrics.recordCancellation();
+        command.cancel( "the execution has been cancelled" );
+        LazyLog.log( this.getLogger(), Level.WARN, FIFO_CONTROLLER, EXECUTE, "Annulation de la commande !",
+                cause, "Commande : {} - Durée max : {}", command, this.maxTimeLabel );
+    }
+
+    private void journalCompleted( TaskEntry command )
+    {
+        if( this.journal != null ) {
+            this.journal.complete( command.journalId );
+        }
+    }
+
+    /**
+     * Cancel the order when its deadline is reached ( called by the thread of the wheel )
+     * @param future
+     */
+    protected void cancelTimeOutCommand( DispatchedCommand future )  {
+        // Annulation de la commande si celle-ci est trop longue
+        future.timedOut = true;
+        boolean isCancelled = future.cancel( true );
+        LazyLog.log( this.getLogger(), Level.WARN, FIFO_CONTROLLER, EXECUTE, "Timeout de la commande !", null,
+                "Commande : {} - Durée max : {} - Is canceled : {} ", future.command, this.maxTimeLabel, isCancelled );
+    }
+
     /**
      * Stop the controller
      *
-     * The controller wiil be stop in (TIME_OUT_MAX_FIFO x 2) ms MAX
+     * The controller wiil be stop in TIME_OUT_MAX_FIFO ms MAX
      */
     public void stopController()
     {
         this.stop = true;
+        this.signal();
         this.getLogger().info("{}{}{} Request to stop the controller.",
                 FIFO_CONTROLLER, EXECUTE, STOP);
     }
@@ -227,9 +478,7 @@ public class FifoController implements Runnable {
      */
     public void addCounter( int numberOfCommand, long time, TimeUnit timeUnit )
     {
-        TimeUnit timeConvert    = TimeUnit.MILLISECONDS;
-        long timer              = timeConvert.convert( time, timeUnit );
-        this.timerList.add( new TimerByTask( numberOfCommand, timer ));
+        this.timerList.add( new TimerByTask( numberOfCommand, time, timeUnit ));
     }
 
     /**
@@ -238,21 +487,287 @@ public class FifoController implements Runnable {
      */
     public void addCounter( TimerTask timerTask)
     {
+        if( timerTask.getMode() == RateLimitMode.TOKEN_BUCKET ) {
+            this.timerList.add( new TokenBucketByTask( timerTask.getNumberOfCommand(),
+                    timerTask.getUnitTime(),
+                    timerTask.getTimeConvert(),
+                    timerTask.getBurst() ));
+            return;
+        }
         this.addCounter( timerTask.getNumberOfCommand(),
                 timerTask.getUnitTime(),
                 timerTask.getTimeConvert() );
     }
 
+    /**
+     * Persistent : the controller waits for the next orders instead of stopping when the FIFO is empty.
+     * Not persistent : a running controller stops as soon as it is idle.
+     *
+     * @param persistent
+     */
+    public void setPersistent( boolean persistent )
+    {
+        this.persistent = persistent;
+        this.signal();
+    }
+
+    /**
+     * The metrics written by the controller and the workers
+     *
+     * @param metrics
+     */
+    public void setMetrics( ServiceMetrics metrics )
+    {
+        this.metrics = metrics;
+    }
+
+    /**
+     * The journal of the durable FIFO : the start and the end of the orders are journaled
+     *
+     * @param journal : null if the FIFO is not durable
+     */
+    public void setJournal( TaskJournal journal )
+    {
+        this.journal = journal;
+    }
+
+    /**
+     * The orders are leased to remote workers instead of the workers of this JVM, before the start of the controller
+     *
+     * @param remote : null to execute the orders in this JVM
+     */
+    public void setRemote( RemoteCoordinator remote )
+    {
+        this.remote = remote;
+        if( remote != null ) {
+            remote.attach( this );
+        }
+    }
+
+    /**
+     * The delayed and periodic orders, moved into the FIFO by the controller at their time
+     *
+     * @param scheduler : null if the service has no delayed order
+     */
+    void setScheduler( TaskScheduler scheduler )
+    {
+        this.scheduler = scheduler;
+        this.signal();
+    }
+
+    /**
+     * The failed orders are planned again by the retrier instead of failing
+     *
+     * @param retrier : null to never retry an order
+     */
+    void setRetrier( TaskRetrier retrier )
+    {
+        this.retrier = retrier;
+    }
+
+    /**
+     * The number of orders in parallel adapts to their latency and to their errors, between the floor and the
+     * ceiling of the limit
+     *
+     * @param concurrencyLimit : null for maxPoolThread orders in parallel
+     * @throws IllegalArgumentException : The ceiling of the limit exceeds maxPoolThread
+     */
+    public void setConcurrencyLimit( AdaptiveConcurrencyLimit concurrencyLimit )
+    {
+        if( concurrencyLimit != null && concurrencyLimit.getCeiling() > this.maxPoolThread ) {
+            throw new IllegalArgumentException("The ceiling of the limit " + concurrencyLimit.getCeiling()
+                    + " exceeds maxPoolThread " + this.maxPoolThread);
+        }
+        this.concurrencyLimit = concurrencyLimit;
+        this.signal();
+    }
+
+    /**
+     *
+     * @return The number of orders that can run in parallel now
+     */
+    public int getConcurrencyLimit()
+    {
+        AdaptiveConcurrencyLimit limit = this.concurrencyLimit;
+        return limit == null ? this.maxPoolThread : Math.min( this.maxPoolThread, limit.getLimit() );
+    }
+
+    /**
+     * The number of striped lanes of the partition keys, before the start of the controller
+     *
+     * @param lanes : The number of lanes ( rounded up to a power of 2 )
+     */
+    public void setPartitionLanes( int lanes )
+    {
+        this.keyedLanes = new KeyedLanes( lanes );
+    }
+
+    /**
+     *
+     * @return The number of orders running
+     */
+    public int getActiveWorkers()
+    {
+        return this.inFlight.get();
+    }
+
+    /**
+     * Coalescing : the orders stay in the index until the end of their execution, an identical order shares the
+     * running execution
+     *
+     * @param coalescing
+     */
+    public void setCoalescing( boolean coalescing )
+    {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * The time after which an idle thread of the pool is released ( persistent mode only )
+     *
+     * @param time : the time
+     * @param timeUnit : the unit of time
+     */
+    public void setIdleTrim( long time, TimeUnit timeUnit )
+    {
+        if( time <= 0 ) {
+            throw new IllegalArgumentException("The idle trim must be positive");
+        }
+        this.idleTrimMillis = timeUnit.toMillis( time );
+    }
+
     public void setMaxTimerCommand( long time, TimeUnit timeUnit )
     {
         TimeUnit timeConvert    = TimeUnit.MILLISECONDS;
         this.maxTimeMillisByCommand = timeConvert.convert( time, timeUnit );
+        this.maxTimeLabel           = this.maxTimeMillisByCommand + " " + TimeUnit.MILLISECONDS;
     }
 
     public void setMaxTimerCommand( TimeOutTask timeOutTask)
     {
         this.setMaxTimerCommand( timeOutTask.getUnitTime(),
                 timeOutTask.getTimeConvert() );
+        if( timeOutTask.getToleranceInMillisecond() != null ) {
+            this.toleranceMillisByCommand = timeOutTask.getToleranceInMillisecond();
+        }
+    }
+
+    /**
+     * The order sent to the workers ( or leased to a remote worker ).
+     * Releases its worker permit and wakes up the controller as soon as it is done ( OK, error or cancel )
+     */
+    protected final class DispatchedCommand extends FutureTask<Object> {
+
+        private final TaskEntry command;
+        // The lane of the partition key, null if none
+        private final KeyedLanes.Lane lane;
+        // The number of the order in each timer
+        private final long[] timerOrders;
+        private volatile boolean timedOut;
+        private volatile boolean failed;
+        // Set by begin(), read by end() ( the same thread, or after the lock of the remote coordinator )
+        private long startNanos;
+        private TimeOutWheel.TimeOut timeOut;
+
+        DispatchedCommand( TaskEntry command, KeyedLanes.Lane lane ) {
+            super( command );
+            this.command        = command;
+            this.lane           = lane;
+            this.timerOrders    = new long[ timerList.size() ];
+        }
+
+        public boolean isTimedOut() {
+            return this.timedOut;
+        }
+
+        @Override
+        public void run() {
+            this.begin();
+            try {
+                super.run();
+            }
+            finally {
+                this.end();
+            }
+        }
+
+        /**
+         * The order starts : in a worker, or when it is leased to a remote worker
+         */
+        void begin() {
+            this.startNanos = System.nanoTime();
+            metrics.recordStart( this.command.getEnqueuedNanos(), this.startNanos );
+            try {
+                this.timeOut = timeOutWheel.newTimeOut( () -> cancelTimeOutCommand( this ),
+                        maxTimeMillisByCommand, TimeUnit.MILLISECONDS );
+            }
+            catch ( IllegalStateException ex ) {
+                // The controller is stopping
+            }
+            // As close as possible to the real start ( the first deadline starts the thread of the wheel )
+            for( int i = 0; i < this.timerOrders.length; i++ ) {
+                timerList.get( i ).startCommand( this.timerOrders[ i ] );
+            }
+            if( journal != null ) {
+                journal.started( this.command.journalId );
+            }
+        }
+
+        /**
+         * The thread of the order is really done ( even after a timeout )
+         */
+        void end() {
+            if( this.timeOut != null ) {
+                this.timeOut.cancel();
+            }
+            metrics.recordEnd( this.startNanos, System.nanoTime() );
+            if( this.lane != null ) {
+                // The next order of the key starts when this thread is really done ( even after a timeout )
+                this.lane.release();
+                signal();
+            }
+        }
+
+        /**
+         * The result of a remote worker
+         */
+        void completeRemotely( Object value ) {
+            this.set( value );
+        }
+
+        void failRemotely( Throwable cause ) {
+            this.setException( cause );
+        }
+
+        Callable<?> getTask() {
+            return this.command.getTask();
+        }
+
+        @Override
+        protected void setException( Throwable cause ) {
+            this.failed = true;
+            super.setException( cause );
+        }
+
+        @Override
+        protected void done() {
+            // An identical order added from now is executed again ( no-op if already removed at the dispatch )
+            toCurrentObject.remove( this.command );
+            if( remote != null && this.isCancelled() ) {
+                // The remote worker stops the order, its permit is released with its last result
+                remote.cancelled( this );
+            }
+            AdaptiveConcurrencyLimit limit = concurrencyLimit;
+            if( limit != null && ( this.timedOut || ! this.isCancelled() ) ) {
+                // A cancellation by the stop of the controller says nothing about the load
+                limit.onSample( System.nanoTime() - this.startNanos, this.timedOut || this.failed, inFlight.get() );
+            }
+            checkTimeOutCommand( this, this.command );
+            // Supprime de la liste des commandes en attente
+            resultOrderWaiting.remove( this );
+            inFlight.decrementAndGet();
+            signal();
+        }
     }
 
     /**
@@ -0,0 +1,86 @@
+package com.jr.core.service.async;
+
+import com.jr.core.common.async.OverflowPolicy;
+import lombok.Data;
+
+import java.io.Serializable;
+
+@Data
+public class FifoPolicy implements Serializable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long serialVersionUID = 1L;
+
+    // The maximum number of tasks in the FIFO
+    private final Integer           capacity;
+    // What to do when the FIFO is full
+    private final OverflowPolicy    overflowPolicy;
+    // The maximum time to wait for a free place with OverflowPolicy.BLOCK ( null : no limit )
+    private final TimeOutTask       offerTimeOut;
+    // The waiting time that counts as one level of priority ( null : first in, first out )
+    private final TimeOutTask       aging;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param capacity : The maximum number of tasks in the FIFO
+     * @param overflowPolicy : What to do when the FIFO is full
+     */
+    public FifoPolicy( Integer capacity, OverflowPolicy overflowPolicy )
+    {
+        this( capacity, overflowPolicy, null );
+    }
+
+    /**
+     *
+     * @param capacity : The maximum number of tasks in the FIFO
+     * @param overflowPolicy : What to do when the FIFO is full
+     * @param offerTimeOut : The maximum time to wait for a free place with OverflowPolicy.BLOCK
+     */
+    public FifoPolicy( Integer capacity, OverflowPolicy overflowPolicy, TimeOutTask offerTimeOut )
+    {
+        this( capacity, overflowPolicy, offerTimeOut, null );
+    }
+
+    /**
+     *
+     * @param capacity : The maximum number of tasks in the FIFO
+     * @param overflowPolicy : What to do when the FIFO is full
+     * @param offerTimeOut : The maximum time to wait for a free place with OverflowPolicy.BLOCK
+     * @param aging : The tasks are ordered by priority ( ITask#getPriority ), a waiting task gains one level of
+     *              priority by aging ( null : first in, first out )
+     * @throws IllegalArgumentException : The capacity is not positive, or the overflow policy is null
+     */
+    public FifoPolicy( Integer capacity, OverflowPolicy overflowPolicy, TimeOutTask offerTimeOut, TimeOutTask aging )
+    {
+        if( capacity == null || capacity < 1 ) {
+            throw new IllegalArgumentException("The capacity of the FIFO must be positive : " + capacity);
+        }
+        if( overflowPolicy == null ) {
+            throw new IllegalArgumentException("The overflow policy must not be null");
+        }
+        this.capacity       = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeOut   = offerTimeOut;
+        this.aging          = aging;
+    }
+
+    /**
+     *
+     * @return A new FIFO for this policy
+     */
+    public TaskQueue newTaskQueue()
+    {
+        if( this.aging == null ) {
+            return new ArrayTaskQueue( this.capacity );
+        }
+        return new PriorityTaskQueue( this.capacity, this.aging.getUnitTime(), this.aging.getTimeConvert() );
+    }
+
+}
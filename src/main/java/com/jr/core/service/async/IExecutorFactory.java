@@ -0,0 +1,25 @@
+package com.jr.core.service.async;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Create the executors of the service : the workers of the orders and the thread of the controller
+ */
+public interface IExecutorFactory {
+
+    /**
+     * The executor of the orders, shut down when the controller stops.
+     * The controller never sends more than maxPoolThread orders at the same time.
+     *
+     * @param maxPoolThread : The number of orders executed in parallel
+     * @return
+     */
+    ExecutorService newWorkerExecutor( int maxPoolThread );
+
+    /**
+     * The executor of the controller, one long task by start of the service
+     * @return
+     */
+    ExecutorService newControllerExecutor();
+
+}
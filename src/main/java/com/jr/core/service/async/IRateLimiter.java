@@ -0,0 +1,39 @@
+package com.jr.core.service.async;
+
+/**
+ * Limit the number of orders started by the controller
+ */
+public interface IRateLimiter {
+
+    /**
+     * Take a place if one is free ( never blocks )
+     * @return True if the order can be executed
+     */
+    boolean tryAcquire();
+
+    /**
+     * Take a place even if none is free
+     * @return The number of the order, used by {@link #startCommand(long)}
+     */
+    long setNewCommand();
+
+    /**
+     * The order really starts ( later than its reservation )
+     * @param order : The number returned by {@link #setNewCommand()}
+     */
+    void startCommand( long order );
+
+    /**
+     * The number of orders that can be executed now
+     * @param max : Stop counting at this number
+     * @return
+     */
+    int getAvailableCommand( int max );
+
+    /**
+     * The exact time before a place is free
+     * @return 0 if an order can be executed now, otherwise the time to wait in nanoseconds
+     */
+    long getNanosBeforeNextCommand();
+
+}
@@ -0,0 +1,181 @@
+package com.jr.core.service.async;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Striped serial lanes : the orders with the same partition key run one after the other, in the order of the FIFO,
+ * the orders of different lanes run in parallel.
+ *
+ * A key is mapped to one lane of a fixed array ( two keys can share a lane : they are then serialized too ). A lane
+ * runs one order at a time, the next orders of the lane wait in its backlog without holding a worker. No lock : the
+ * backlogs are only used by the thread of the controller, a worker only releases the lane of its order.
+ */
+public class KeyedLanes {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final int DEFAULT_LANES = 256;
+
+    private final Lane[] lanes;
+    private final int mask;
+    // The lanes with a backlog, in the order of their first waiting order
+    private final ArrayDeque<Lane> waitingLanes = new ArrayDeque<>();
+    private int backlog;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    public KeyedLanes()
+    {
+        this( DEFAULT_LANES );
+    }
+
+    /**
+     *
+     * @param lanes : The number of lanes ( rounded up to a power of 2 )
+     */
+    public KeyedLanes( int lanes )
+    {
+        if( lanes <= 0 ) {
+            throw new IllegalArgumentException("The number of lanes must be positive");
+        }
+        int size = Integer.highestOneBit( lanes );
+        if( size < lanes ) {
+            size <<= 1;
+        }
+        this.lanes  = new Lane[ size ];
+        this.mask   = size - 1;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * An order of the FIFO with a partition key
+     *
+     * @param entry : The order
+     * @return The lane reserved for the order if it can run now, null if it waits in the backlog of its lane
+     */
+    Lane admit( TaskEntry entry )
+    {
+        Lane lane = this.laneOf( entry.getPartitionKey() );
+        if( ! lane.busy && lane.backlog.isEmpty() ) {
+            lane.busy = true;
+            return lane;
+        }
+        if( lane.backlog.isEmpty() ) {
+            this.waitingLanes.add( lane );
+        }
+        lane.backlog.add( entry );
+        this.backlog++;
+        return null;
+    }
+
+    /**
+     * Take the next order of each free lane, the lanes of the orders taken are reserved
+     *
+     * @param ready : The orders that can run now
+     * @param readyLanes : Their lanes, in the same order
+     * @param max : The maximum number of orders taken
+     */
+    void drainReady( List<TaskEntry> ready, List<Lane> readyLanes, int max )
+    {
+        for( int i = this.waitingLanes.size(); i > 0 && ready.size() < max; i-- )
+        {
+            Lane lane = this.waitingLanes.poll();
+            if( ! lane.busy ) {
+                lane.busy = true;
+                ready.add( lane.backlog.poll() );
+                readyLanes.add( lane );
+                this.backlog--;
+            }
+            if( ! lane.backlog.isEmpty() ) {
+                this.waitingLanes.add( lane );
+            }
+        }
+    }
+
+    /**
+     *
+     * @return True if a lane with a backlog is free
+     */
+    boolean hasReady()
+    {
+        for( Lane lane : this.waitingLanes ) {
+            if( ! lane.busy ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove all the waiting orders ( the controller is stopped )
+     *
+     * @param action : Called for each order removed
+     */
+    void clear( Consumer<TaskEntry> action )
+    {
+        Lane lane;
+        while( ( lane = this.waitingLanes.poll() ) != null )
+        {
+            TaskEntry entry;
+            while( ( entry = lane.backlog.poll() ) != null ) {
+                action.accept( entry );
+            }
+        }
+        this.backlog = 0;
+    }
+
+    /**
+     *
+     * @return The number of orders waiting in the backlogs
+     */
+    public int getBacklog()
+    {
+        return this.backlog;
+    }
+
+    public int getLanes()
+    {
+        return this.lanes.length;
+    }
+
+    private Lane laneOf( Object key )
+    {
+        int hash = key.hashCode();
+        int index = ( hash ^ ( hash >>> 16 ) ) & this.mask;
+        Lane lane = this.lanes[ index ];
+        if( lane == null ) {
+            lane = new Lane();
+            this.lanes[ index ] = lane;
+        }
+        return lane;
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * One order running at a time
+     */
+    static final class Lane {
+
+        // Set by the controller, released by the worker at the end of the thread of the order
+        private volatile boolean busy;
+        private final ArrayDeque<TaskEntry> backlog = new ArrayDeque<>();
+
+        void release()
+        {
+            this.busy = false;
+        }
+    }
+
+}
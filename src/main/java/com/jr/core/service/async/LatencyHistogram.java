@@ -0,0 +1,114 @@
+package com.jr.core.service.async;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ *
+ * A power of two is split in 4 buckets ( error below 25 % ), each bucket is a striped counter : recording a value
+ * costs a few nanoseconds and never blocks, even with many workers.
+ */
+public class LatencyHistogram {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final int SUB_BUCKET_BITS    = 2;
+    private static final int SUB_BUCKET_COUNT   = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT       = SUB_BUCKET_COUNT + ( 63 - SUB_BUCKET_BITS ) * SUB_BUCKET_COUNT;
+
+    private final LongAdder[] buckets   = new LongAdder[ BUCKET_COUNT ];
+    private final LongAdder total       = new LongAdder();
+    private final LongAccumulator max   = new LongAccumulator( Math::max, 0 );
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    public LatencyHistogram()
+    {
+        for( int i = 0; i < BUCKET_COUNT; i++ ) {
+            this.buckets[ i ] = new LongAdder();
+        }
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     *
+     * @param nanos : The duration in nanoseconds ( a negative duration counts as 0 )
+     */
+    public void record( long nanos )
+    {
+        long value = Math.max( 0, nanos );
+        this.buckets[ indexOf( value ) ].increment();
+        this.total.add( value );
+        this.max.accumulate( value );
+    }
+
+    /**
+     * The percentiles are the upper bound of their bucket, never above the maximum
+     *
+     * @return An immutable view of the histogram
+     */
+    public LatencySnapshot snapshot()
+    {
+        long[] counts = new long[ BUCKET_COUNT ];
+        long count = 0;
+        for( int i = 0; i < BUCKET_COUNT; i++ ) {
+            counts[ i ] = this.buckets[ i ].sum();
+            count += counts[ i ];
+        }
+        long maxNanos = this.max.get();
+        if( count == 0 ) {
+            return new LatencySnapshot( 0, 0, 0, 0, 0, 0, 0 );
+        }
+        return new LatencySnapshot( count,
+                this.total.sum() / count,
+                maxNanos,
+                percentile( counts, count, 0.50, maxNanos ),
+                percentile( counts, count, 0.90, maxNanos ),
+                percentile( counts, count, 0.99, maxNanos ),
+                percentile( counts, count, 0.999, maxNanos ) );
+    }
+
+    static int indexOf( long value )
+    {
+        if( value < SUB_BUCKET_COUNT ) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros( value );
+        int shift = exponent - SUB_BUCKET_BITS;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + (int) ( ( value >>> shift ) & ( SUB_BUCKET_COUNT - 1 ) );
+    }
+
+    static long upperBoundOf( int index )
+    {
+        if( index < SUB_BUCKET_COUNT ) {
+            return index;
+        }
+        int shift = ( index - SUB_BUCKET_COUNT ) / SUB_BUCKET_COUNT;
+        long mantissa = SUB_BUCKET_COUNT + ( index - SUB_BUCKET_COUNT ) % SUB_BUCKET_COUNT;
+        long upper = ( ( mantissa + 1 ) << shift ) - 1;
+        // The last bucket
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    private static long percentile( long[] counts, long count, double quantile, long maxNanos )
+    {
+        long rank = (long) Math.ceil( quantile * count );
+        long seen = 0;
+        for( int i = 0; i < counts.length; i++ ) {
+            seen += counts[ i ];
+            if( seen >= rank ) {
+                return Math.min( upperBoundOf( i ), maxNanos );
+            }
+        }
+        return maxNanos;
+    }
+
+}
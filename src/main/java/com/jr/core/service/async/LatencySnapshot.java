@@ -0,0 +1,27 @@
+package com.jr.core.service.async;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * An immutable view of a {@link LatencyHistogram}, in nanoseconds
+ */
+@Data
+public class LatencySnapshot implements Serializable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long serialVersionUID = 1L;
+
+    private final long count;
+    private final long meanNanos;
+    private final long maxNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+
+}
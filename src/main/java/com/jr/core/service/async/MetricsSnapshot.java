@@ -0,0 +1,50 @@
+package com.jr.core.service.async;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * An immutable view of the metrics of a service, the counters are cumulated since its creation
+ */
+@Data
+public class MetricsSnapshot implements Serializable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long serialVersionUID = 1L;
+
+    // The tasks waiting in the FIFO
+    private final int queueDepth;
+    // The tasks running
+    private final int activeWorkers;
+    // The tasks that can run in parallel ( adaptive limit or number of threads )
+    private final int concurrencyLimit;
+
+    // The outcome of the additions ( AddTaskStatus )
+    private final long accepted;
+    private final long droppedOldest;
+    private final long callerRuns;
+    private final long coalesced;
+    private final long duplicates;
+    private final long rejected;
+    private final long offerTimeOuts;
+
+    // The end of the executions
+    private final long completed;
+    private final long failed;
+    private final long timeOuts;
+    private final long cancellations;
+    // The failed tasks executed again, the retries refused by the budget
+    private final long retries;
+    private final long retriesRefused;
+
+    // From the addition to the start of the execution
+    private final LatencySnapshot queueWait;
+    private final LatencySnapshot execution;
+    // The controller waits for a permit of the timers
+    private final LatencySnapshot limiterStall;
+
+}
@@ -0,0 +1,112 @@
+package com.jr.core.service.async;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The most urgent first, with aging : a task of priority p is ranked as if it had been added p * aging earlier.
+ *
+ * The rank is fixed when the task is added, so a waiting task is never reordered and a low priority ends up
+ * before the new high priorities ( no starvation ). The tasks of the same priority keep their order of addition.
+ */
+public class PriorityTaskQueue extends TaskQueue {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final Comparator<TaskEntry> BY_RANK = ( a, b ) -> {
+        int compare = Long.compare( a.rank, b.rank );
+        return compare != 0 ? compare : Long.compare( a.sequence, b.sequence );
+    };
+
+    private final long agingNanos;
+    private final long maxPriority;
+    private final PriorityQueue<TaskEntry> heap;
+    private long sequence;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param capacity : The maximum number of tasks
+     * @param aging : The waiting time that counts as one level of priority
+     * @param agingUnit : The unit of the aging
+     */
+    public PriorityTaskQueue( int capacity, long aging, TimeUnit agingUnit )
+    {
+        super( capacity );
+        if( aging <= 0 ) {
+            throw new IllegalArgumentException("The aging must be positive");
+        }
+        this.agingNanos     = agingUnit.toNanos( aging );
+        // The offset of a priority stays far from an overflow
+        this.maxPriority    = ( Long.MAX_VALUE / 4 ) / this.agingNanos;
+        this.heap           = new PriorityQueue<>( Math.min( capacity, 1024 ), BY_RANK );
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    protected void enqueue( TaskEntry entry )
+    {
+        long priority = Math.max( -this.maxPriority, Math.min( this.maxPriority, entry.getPriority() ) );
+        entry.rank      = System.nanoTime() - priority * this.agingNanos;
+        entry.sequence  = this.sequence++;
+        this.heap.add( entry );
+    }
+
+    @Override
+    protected TaskEntry dequeue()
+    {
+        return this.heap.poll();
+    }
+
+    @Override
+    protected TaskEntry first()
+    {
+        return this.heap.peek();
+    }
+
+    /**
+     * The least urgent entry
+     */
+    @Override
+    protected TaskEntry dequeueEvicted()
+    {
+        TaskEntry last = null;
+        for( TaskEntry entry : this.heap ) {
+            if( last == null || BY_RANK.compare( entry, last ) > 0 ) {
+                last = entry;
+            }
+        }
+        this.heap.remove( last );
+        return last;
+    }
+
+    @Override
+    protected boolean removeEntry( Object entry )
+    {
+        return this.heap.remove( entry );
+    }
+
+    @Override
+    protected TaskEntry[] toOrderedArray()
+    {
+        TaskEntry[] snapshot = this.heap.toArray( new TaskEntry[0] );
+        Arrays.sort( snapshot, BY_RANK );
+        return snapshot;
+    }
+
+    public long getAgingNanos()
+    {
+        return this.agingNanos;
+    }
+
+}
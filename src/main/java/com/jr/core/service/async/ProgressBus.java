@@ -0,0 +1,320 @@
+package com.jr.core.service.async;
+
+import com.jr.core.api.async.ITask;
+import com.jr.core.common.logs.LazyLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.*;
+
+/**
+ * The progress events of the tasks ( property "percent" ), delivered by one thread outside the workers.
+ *
+ * A worker only records the last percent of its task : the updates of a task between two deliveries are coalesced
+ * in one event ( the first old value, the last new value ). The events are delivered every interval, so at most one
+ * event by task and by interval. A slow listener delays the next events, never the tasks.
+ *
+ * The listeners are shared by all the tasks : a listener of all the tasks, or the listeners of one task ( by its
+ * identity, removed by {@link #removeListener(ITask, PropertyChangeListener)} or when the task ends, after its last
+ * event ). Registering and reading the listeners never locks the workers.
+ */
+public final class ProgressBus {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 100;
+
+    private static final PropertyChangeListener[] NONE = new PropertyChangeListener[ 0 ];
+    private static final ProgressBus DEFAULT = new ProgressBus(
+            new TimeOutTask( (int) DEFAULT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS ) );
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    // The listeners of all the tasks ( copy on write )
+    private final AtomicReference<PropertyChangeListener[]> listeners = new AtomicReference<>( NONE );
+    // The listeners of one task, by identity ( copy on write )
+    private final Map<Object, PropertyChangeListener[]> taskListeners = new ConcurrentHashMap<>();
+    // The last update of each task not delivered yet
+    private final Map<Object, Update> pending = new ConcurrentHashMap<>();
+    private final Object delivery = new Object();
+    private volatile long intervalNanos;
+    private volatile Thread deliverer;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param interval : The time between two deliveries
+     */
+    public ProgressBus( TimeOutTask interval )
+    {
+        this.setInterval( interval );
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     *
+     * @return The bus of the tasks ( {@link com.jr.core.api.async.Task#setPercent} )
+     */
+    public static ProgressBus getDefault()
+    {
+        return DEFAULT;
+    }
+
+    /**
+     * The maximum rate of the events of a task : one by interval
+     *
+     * @param interval : The time between two deliveries
+     */
+    public void setInterval( TimeOutTask interval )
+    {
+        long nanos = interval.getTimeConvert().toNanos( interval.getUnitTime() );
+        if( nanos <= 0 ) {
+            throw new IllegalArgumentException("The interval must be positive");
+        }
+        this.intervalNanos = nanos;
+    }
+
+    /**
+     * Listen to the progress of all the tasks
+     */
+    public void addListener( PropertyChangeListener listener )
+    {
+        PropertyChangeListener[] current;
+        PropertyChangeListener[] updated;
+        do {
+            current = this.listeners.get();
+            updated = Arrays.copyOf( current, current.length + 1 );
+            updated[ current.length ] = listener;
+        }
+        while( ! this.listeners.compareAndSet( current, updated ) );
+        this.startDeliverer();
+    }
+
+    public void removeListener( PropertyChangeListener listener )
+    {
+        PropertyChangeListener[] current;
+        PropertyChangeListener[] updated;
+        do {
+            current = this.listeners.get();
+            updated = without( current, listener );
+        }
+        while( updated != current && ! this.listeners.compareAndSet( current, updated ) );
+    }
+
+    /**
+     * Listen to the progress of one task. The listener is dropped when the task ends in a service or is refused by
+     * it : for a task never added to a service, or that has already ended, the caller must remove it
+     * ( {@link #removeListener(ITask, PropertyChangeListener)} ), the bus would keep the task otherwise
+     */
+    public void addListener( ITask<?> task, PropertyChangeListener listener )
+    {
+        this.taskListeners.merge( task.getIdentity(), new PropertyChangeListener[]{ listener }, ( current, added ) -> {
+            PropertyChangeListener[] updated = Arrays.copyOf( current, current.length + 1 );
+            updated[ current.length ] = listener;
+            return updated;
+        });
+        this.startDeliverer();
+    }
+
+    public void removeListener( ITask<?> task, PropertyChangeListener listener )
+    {
+        this.taskListeners.computeIfPresent( task.getIdentity(), ( identity, current ) -> {
+            PropertyChangeListener[] updated = without( current, listener );
+            return updated.length == 0 ? null : updated;
+        });
+    }
+
+    /**
+     *
+     * @return True if the task has its own listeners
+     */
+    public boolean hasListeners( ITask<?> task )
+    {
+        return this.taskListeners.containsKey( task.getIdentity() );
+    }
+
+    /**
+     * The task has ended ( completed, failed, timed out or cancelled, called by the service ) : its last event is
+     * still delivered, then its own listeners are dropped
+     *
+     * @param task : The task
+     */
+    public void ended( ITask<?> task )
+    {
+        if( this.taskListeners.isEmpty() ) {
+            return;
+        }
+        this.pending.compute( task.getIdentity(), ( identity, update ) -> {
+            if( update == null ) {
+                this.taskListeners.remove( identity );
+            }
+            else {
+                // Dropped by the delivery
+                update.ended = true;
+            }
+            return update;
+        });
+    }
+
+    /**
+     * The percent of a task has changed ( called by the worker, never blocks on a listener )
+     *
+     * @param task : The task
+     * @param oldPercent : The previous percent
+     * @param newPercent : The new percent
+     */
+    public void publish( ITask<?> task, int oldPercent, int newPercent )
+    {
+        if( this.listeners.get().length == 0 ) {
+            if( this.taskListeners.isEmpty() || ! this.taskListeners.containsKey( task.getIdentity() ) ) {
+                // Nobody listens
+                return;
+            }
+        }
+        this.pending.compute( task.getIdentity(), ( identity, update ) -> {
+            if( update == null ) {
+                return new Update( task, oldPercent, newPercent );
+            }
+            update.newPercent = newPercent;
+            return update;
+        });
+    }
+
+    /**
+     * Deliver the pending events now, in the caller
+     */
+    public void flush()
+    {
+        synchronized ( this.delivery ) {
+            for( Iterator<Object> it = this.pending.keySet().iterator(); it.hasNext(); )
+            {
+                Object identity = it.next();
+                // Before the update : the listeners of a task ending now still get its last event
+                PropertyChangeListener[] ofTask = this.taskListeners.get( identity );
+                Update update = this.pending.remove( identity );
+                if( update == null ) {
+                    continue;
+                }
+                if( update.ended ) {
+                    this.taskListeners.remove( identity );
+                }
+                if( update.oldPercent == update.newPercent ) {
+                    continue;
+                }
+                PropertyChangeEvent event = new PropertyChangeEvent( update.task, "percent",
+                        update.oldPercent, update.newPercent );
+                this.deliver( this.listeners.get(), event );
+                if( ofTask != null ) {
+                    this.deliver( ofTask, event );
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return The number of tasks with an event not delivered yet
+     */
+    public int getPending()
+    {
+        return this.pending.size();
+    }
+
+    private void deliver( PropertyChangeListener[] targets, PropertyChangeEvent event )
+    {
+        for( PropertyChangeListener listener : targets ) {
+            try {
+                listener.propertyChange( event );
+            }
+            catch ( RuntimeException ex ) {
+                LazyLog.log( this.logger, Level.ERROR, TASK, FAIL, "Error of a progress listener", ex,
+                        "{}", event.getSource() );
+            }
+        }
+    }
+
+    /**
+     * The thread of the deliveries starts with the first listener
+     */
+    private void startDeliverer()
+    {
+        if( this.deliverer != null ) {
+            return;
+        }
+        synchronized ( this.delivery ) {
+            if( this.deliverer != null ) {
+                return;
+            }
+            Thread thread = new Thread( this::runDeliverer, "core-async-progress" );
+            thread.setDaemon( true );
+            thread.start();
+            this.deliverer = thread;
+        }
+    }
+
+    private void runDeliverer()
+    {
+        while( ! Thread.currentThread().isInterrupted() )
+        {
+            LockSupport.parkNanos( this, this.intervalNanos );
+            if( ! this.pending.isEmpty() ) {
+                this.flush();
+            }
+        }
+    }
+
+    private static PropertyChangeListener[] without( PropertyChangeListener[] current, PropertyChangeListener listener )
+    {
+        for( int i = 0; i < current.length; i++ ) {
+            if( current[ i ] == listener ) {
+                PropertyChangeListener[] updated = new PropertyChangeListener[ current.length - 1 ];
+                System.arraycopy( current, 0, updated, 0, i );
+                System.arraycopy( current, i + 1, updated, i, current.length - i - 1 );
+                return updated;
+            }
+        }
+        return current;
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * The progress of a task since its last event
+     */
+    private static final class Update {
+
+        private final ITask<?> task;
+        private final int oldPercent;
+        private volatile int newPercent;
+        // The task has ended : its listeners are dropped after this event
+        private volatile boolean ended;
+
+        Update( ITask<?> task, int oldPercent, int newPercent )
+        {
+            this.task       = task;
+            this.oldPercent = oldPercent;
+            this.newPercent = newPercent;
+        }
+    }
+
+}
@@ -0,0 +1,589 @@
+package com.jr.core.service.async;
+
+import com.jr.core.common.logs.LazyLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.*;
+
+/**
+ * Lease the orders of a service to {@link RemoteWorker}s over TCP, instead of the workers of this JVM.
+ *
+ * The controller keeps the FIFO, the index, the timers and the deadlines : an order is leased when the controller
+ * would start it, its deadline starts with the lease. The orders of one dispatch are sent in one frame by worker,
+ * without waiting for the previous results ( a worker never gets more orders than its slots ).
+ *
+ * A worker sends a heartbeat every interval. A lease expires when its worker has been silent for the lease timeout or
+ * when the connection is lost : the worker is dropped and its orders are leased again to the other workers, first.
+ * An order that expires its deadline is cancelled in its worker.
+ *
+ * A worker must know the shared secret of the coordinator : the handshake of a connection is checked before anything
+ * is deserialized ( see {@link RemoteProtocol} ). The results and the errors of the tasks are limited to the value
+ * types of the JDK, another value fails its order. The coordinator listens on the loopback interface unless an
+ * address is given : the secret is not an encryption, listen on a trusted network only. The remote copy of a task is
+ * not sent back, the result of the order is the value returned by the task.
+ *
+ * The workers run any task leased by a coordinator that knows the secret : whoever holds the secret executes code in
+ * the workers.
+ */
+public class RemoteCoordinator implements Closeable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final ServerSocket serverSocket;
+    private final byte[] secret;
+    private final long leaseTimeoutNanos;
+    private final Thread acceptor;
+    private final Thread monitor;
+    private final AtomicInteger connectionCounter = new AtomicInteger();
+    private volatile FifoController controller;
+    private volatile boolean closed;
+
+    // Guarded by this
+    private final List<Connection> connections = new ArrayList<>();
+    private final Map<Long, Lease> leases = new HashMap<>();
+    private final Map<FifoController.DispatchedCommand, Lease> byCommand = new HashMap<>();
+    // The leases waiting for a free slot, the leases of a lost worker first
+    private final ArrayDeque<Lease> waiting = new ArrayDeque<>();
+    private long nextLeaseId;
+    private long leased;
+    private long requeued;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     * Listen for the workers of this host ( loopback interface )
+     *
+     * @param port : The port, 0 for any free port
+     * @param leaseTimeout : The silence of a worker after which its orders are leased to the other workers
+     * @param secret : The secret shared with the workers ( 16 bytes at least )
+     * @throws IOException : The port cannot be opened
+     */
+    public RemoteCoordinator( int port, TimeOutTask leaseTimeout, byte[] secret ) throws IOException
+    {
+        this( InetAddress.getLoopbackAddress(), port, leaseTimeout, secret );
+    }
+
+    /**
+     *
+     * @param address : The address to listen on ( the wildcard address for all the interfaces ), null for the loopback
+     * @param port : The port, 0 for any free port
+     * @param leaseTimeout : The silence of a worker after which its orders are leased to the other workers
+     * @param secret : The secret shared with the workers ( 16 bytes at least )
+     * @throws IOException : The port cannot be opened
+     */
+    public RemoteCoordinator( InetAddress address, int port, TimeOutTask leaseTimeout, byte[] secret )
+            throws IOException
+    {
+        this.secret             = RemoteProtocol.checkSecret( secret );
+        this.leaseTimeoutNanos  = leaseTimeout.getTimeConvert().toNanos( leaseTimeout.getUnitTime() );
+        if( this.leaseTimeoutNanos <= 0 ) {
+            throw new IllegalArgumentException("The lease timeout must be positive");
+        }
+        this.serverSocket       = new ServerSocket( port, 50,
+                address != null ? address : InetAddress.getLoopbackAddress() );
+
+        this.acceptor = new Thread( this::runAcceptor, "core-async-remote-acceptor" );
+        this.acceptor.setDaemon( true );
+        this.acceptor.start();
+        this.monitor = new Thread( this::runMonitor, "core-async-remote-lease" );
+        this.monitor.setDaemon( true );
+        this.monitor.start();
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * The controller of the service ( one at a time )
+     */
+    void attach( FifoController controller )
+    {
+        this.controller = controller;
+    }
+
+    /**
+     *
+     * @return The free slots of the workers, less the orders waiting for a slot
+     */
+    synchronized int getAvailableSlots()
+    {
+        int free = 0;
+        for( Connection connection : this.connections ) {
+            free += Math.max( 0, connection.slots - connection.used );
+        }
+        return Math.max( 0, free - this.waiting.size() );
+    }
+
+    /**
+     * Lease the orders of a dispatch ( called by the thread of the controller )
+     *
+     * @param commands : The orders, started now
+     */
+    void lease( List<FifoController.DispatchedCommand> commands )
+    {
+        List<Lease> created = new ArrayList<>( commands.size() );
+        for( FifoController.DispatchedCommand command : commands )
+        {
+            try {
+                created.add( new Lease( command, RemoteProtocol.serializeTask( command.getTask() ) ) );
+            }
+            catch ( IOException ex ) {
+                LazyLog.log( this.logger, Level.ERROR, REMOTE, FAIL, "The task cannot be sent to a worker", ex,
+                        "{}", command.getTask() );
+                command.begin();
+                command.failRemotely( ex );
+                command.end();
+            }
+        }
+        synchronized ( this ) {
+            for( Lease lease : created ) {
+                // Under the lock : a deadline reached now finds the lease
+                lease.command.begin();
+                this.waiting.add( lease );
+                this.byCommand.put( lease.command, lease );
+            }
+        }
+        this.dispatchWaiting();
+    }
+
+    /**
+     * The order has been cancelled ( timeout, stop of the controller ) : its worker stops it
+     */
+    void cancelled( FifoController.DispatchedCommand command )
+    {
+        Lease lease;
+        Connection connection;
+        long id;
+        synchronized ( this ) {
+            lease = this.byCommand.get( command );
+            if( lease == null ) {
+                return;
+            }
+            connection = lease.connection;
+            id = lease.id;
+            if( connection == null ) {
+                // Not leased yet
+                this.waiting.remove( lease );
+                this.byCommand.remove( command );
+            }
+        }
+        if( connection == null ) {
+            command.end();
+            return;
+        }
+        this.send( connection, new RemoteProtocol.Cancel( id ) );
+    }
+
+    /**
+     *
+     * @return The number of workers connected
+     */
+    public synchronized int getWorkers()
+    {
+        return this.connections.size();
+    }
+
+    /**
+     *
+     * @return The number of leases sent to the workers
+     */
+    public synchronized long getLeased()
+    {
+        return this.leased;
+    }
+
+    /**
+     *
+     * @return The number of orders leased again after the loss of their worker
+     */
+    public synchronized long getRequeued()
+    {
+        return this.requeued;
+    }
+
+    /**
+     *
+     * @return The port the workers connect to
+     */
+    public int getPort()
+    {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stop listening and drop the workers : the orders not done fail ( the service should be stopped first )
+     */
+    @Override
+    public void close()
+    {
+        if( this.closed ) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.serverSocket.close();
+        }
+        catch ( IOException ex ) {
+            LazyLog.log( this.logger, Level.WARN, REMOTE, STOP, "The server socket cannot be closed", ex );
+        }
+        LockSupport.unpark( this.monitor );
+
+        List<Connection> dropped;
+        List<Lease> pending;
+        synchronized ( this ) {
+            dropped = new ArrayList<>( this.connections );
+            this.connections.clear();
+            pending = new ArrayList<>( this.byCommand.values() );
+            this.byCommand.clear();
+            this.leases.clear();
+            this.waiting.clear();
+        }
+        for( Connection connection : dropped ) {
+            connection.close();
+        }
+        for( Lease lease : pending ) {
+            if( ! lease.command.isDone() ) {
+                lease.command.failRemotely( new CancellationException("The remote coordinator is closed") );
+            }
+            lease.command.end();
+        }
+    }
+
+    /**
+     * Send the waiting leases to the workers with a free slot, one frame by worker
+     */
+    private void dispatchWaiting()
+    {
+        Map<Connection, List<Lease>> batches = new LinkedHashMap<>();
+        synchronized ( this ) {
+            while( ! this.waiting.isEmpty() )
+            {
+                Connection target = null;
+                int targetFree = 0;
+                for( Connection connection : this.connections ) {
+                    int free = connection.slots - connection.used;
+                    if( free > targetFree ) {
+                        target      = connection;
+                        targetFree  = free;
+                    }
+                }
+                if( target == null ) {
+                    break;
+                }
+                Lease lease = this.waiting.poll();
+                // A new id : a late result of a lost worker is ignored
+                lease.id            = this.nextLeaseId++;
+                lease.connection    = target;
+                target.used++;
+                this.leases.put( lease.id, lease );
+                this.leased++;
+                batches.computeIfAbsent( target, key -> new ArrayList<>() ).add( lease );
+            }
+        }
+
+        for( Map.Entry<Connection, List<Lease>> batch : batches.entrySet() )
+        {
+            List<Lease> batchLeases = batch.getValue();
+            long[] ids = new long[ batchLeases.size() ];
+            List<byte[]> tasks = new ArrayList<>( batchLeases.size() );
+            for( int i = 0; i < ids.length; i++ ) {
+                ids[ i ] = batchLeases.get( i ).id;
+                tasks.add( batchLeases.get( i ).task );
+            }
+            LazyLog.log( this.logger, Level.DEBUG, REMOTE, EXECUTE, "Lease the orders", null,
+                    "{} order(s) to {}", ids.length, batch.getKey() );
+            this.send( batch.getKey(), new RemoteProtocol.Leases( ids, tasks ) );
+        }
+    }
+
+    private void send( Connection connection, Object message )
+    {
+        try {
+            RemoteProtocol.write( connection.out, message );
+        }
+        catch ( IOException ex ) {
+            this.disconnect( connection, ex );
+        }
+    }
+
+    /**
+     * The end of a leased order
+     */
+    private void onResult( Connection connection, RemoteProtocol.Result result )
+    {
+        Lease lease;
+        synchronized ( this ) {
+            lease = this.leases.get( result.id );
+            if( lease == null || lease.connection != connection ) {
+                // Expired : the order has been leased again
+                return;
+            }
+            this.leases.remove( result.id );
+            this.byCommand.remove( lease.command );
+            connection.used--;
+        }
+
+        FifoController.DispatchedCommand command = lease.command;
+        if( ! command.isDone() ) {
+            if( result.cancelled ) {
+                command.failRemotely( new CancellationException("The task has been cancelled by " + connection) );
+            }
+            else if( result.error != null ) {
+                command.failRemotely( result.error );
+            }
+            else {
+                command.completeRemotely( result.value );
+            }
+        }
+        command.end();
+        this.dispatchWaiting();
+        this.signalController();
+    }
+
+    /**
+     * Drop a worker : its orders not done are leased again
+     */
+    private void disconnect( Connection connection, Exception cause )
+    {
+        List<FifoController.DispatchedCommand> ended = new ArrayList<>();
+        int count = 0;
+        synchronized ( this ) {
+            if( ! this.connections.remove( connection ) ) {
+                return;
+            }
+            List<Lease> lost = new ArrayList<>();
+            for( Iterator<Lease> it = this.leases.values().iterator(); it.hasNext(); ) {
+                Lease lease = it.next();
+                if( lease.connection == connection ) {
+                    it.remove();
+                    lost.add( lease );
+                }
+            }
+            // In the order of the leases, before the new orders
+            lost.sort( ( a, b ) -> Long.compare( b.id, a.id ) );
+            for( Lease lease : lost ) {
+                lease.connection = null;
+                if( lease.command.isDone() ) {
+                    this.byCommand.remove( lease.command );
+                    ended.add( lease.command );
+                }
+                else {
+                    this.waiting.addFirst( lease );
+                    this.requeued++;
+                    count++;
+                }
+            }
+        }
+        connection.close();
+        // Without running orders, a worker leaving is not an incident
+        LazyLog.log( this.logger, count > 0 ? Level.WARN : Level.INFO, REMOTE, count > 0 ? FAIL : STOP,
+                "A worker has been dropped", count > 0 ? cause : null,
+                "{} : {} order(s) leased again", connection, count );
+        for( FifoController.DispatchedCommand command : ended ) {
+            command.end();
+        }
+        this.dispatchWaiting();
+        this.signalController();
+    }
+
+    private void signalController()
+    {
+        FifoController fifoController = this.controller;
+        if( fifoController != null ) {
+            fifoController.signal();
+        }
+    }
+
+    private void runAcceptor()
+    {
+        while( ! this.closed )
+        {
+            try {
+                Socket socket = this.serverSocket.accept();
+                socket.setTcpNoDelay( true );
+                Thread reader = new Thread( () -> this.runConnection( socket ),
+                        "core-async-remote-" + this.connectionCounter.incrementAndGet() );
+                reader.setDaemon( true );
+                reader.start();
+            }
+            catch ( IOException ex ) {
+                if( ! this.closed ) {
+                    LazyLog.log( this.logger, Level.ERROR, REMOTE, FAIL, "Error while accepting a worker", ex );
+                }
+            }
+        }
+    }
+
+    /**
+     * The reader of a worker : the handshake, its hello, then its results and its heartbeats
+     */
+    private void runConnection( Socket socket )
+    {
+        Connection connection = null;
+        try {
+            DataInputStream in = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+            DataOutputStream out = new DataOutputStream( new BufferedOutputStream( socket.getOutputStream() ) );
+            socket.setSoTimeout( RemoteProtocol.HANDSHAKE_TIMEOUT_MILLIS );
+            try {
+                RemoteProtocol.handshake( in, out, this.secret, true );
+            }
+            catch ( IOException ex ) {
+                LazyLog.log( this.logger, Level.WARN, REMOTE, FAIL, "A connection has been refused", null,
+                        "{} : {}", socket.getRemoteSocketAddress(), ex.getMessage() );
+                throw ex;
+            }
+            Object hello = RemoteProtocol.read( in );
+            socket.setSoTimeout( 0 );
+            if( ! ( hello instanceof RemoteProtocol.Hello ) || ((RemoteProtocol.Hello) hello).slots <= 0 ) {
+                throw new IOException("Invalid hello from " + socket.getRemoteSocketAddress());
+            }
+            connection = new Connection( socket, out, (RemoteProtocol.Hello) hello );
+            synchronized ( this ) {
+                if( this.closed ) {
+                    throw new IOException("The coordinator is closed");
+                }
+                this.connections.add( connection );
+            }
+            LazyLog.log( this.logger, Level.INFO, REMOTE, START, "A worker is connected", null,
+                    "{} : {} slot(s)", connection, connection.slots );
+            this.dispatchWaiting();
+            this.signalController();
+
+            while( ! this.closed )
+            {
+                Object message = RemoteProtocol.read( in );
+                connection.lastSeenNanos = System.nanoTime();
+                if( message instanceof RemoteProtocol.Result ) {
+                    this.onResult( connection, (RemoteProtocol.Result) message );
+                }
+            }
+        }
+        catch ( IOException | ClassNotFoundException | RuntimeException ex ) {
+            if( connection != null ) {
+                this.disconnect( connection, this.closed ? null : ex );
+            }
+            else {
+                try {
+                    socket.close();
+                }
+                catch ( IOException closeEx ) {
+                    // Already lost
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the workers silent for the lease timeout
+     */
+    private void runMonitor()
+    {
+        long tick = Math.max( TimeUnit.MILLISECONDS.toNanos( 1 ), this.leaseTimeoutNanos / 4 );
+        while( ! this.closed )
+        {
+            LockSupport.parkNanos( this, tick );
+            long now = System.nanoTime();
+            List<Connection> silent = new ArrayList<>();
+            synchronized ( this ) {
+                for( Connection connection : this.connections ) {
+                    if( now - connection.lastSeenNanos > this.leaseTimeoutNanos ) {
+                        silent.add( connection );
+                    }
+                }
+            }
+            for( Connection connection : silent ) {
+                this.disconnect( connection, new IOException("The leases of " + connection + " have expired") );
+            }
+        }
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * An order leased, or waiting for a worker
+     */
+    private static final class Lease {
+
+        private final FifoController.DispatchedCommand command;
+        private final byte[] task;
+        // Guarded by the coordinator
+        private long id = -1;
+        private Connection connection;
+
+        Lease( FifoController.DispatchedCommand command, byte[] task )
+        {
+            this.command    = command;
+            this.task       = task;
+        }
+    }
+
+    /**
+     * A worker connected
+     */
+    private static final class Connection {
+
+        private final Socket socket;
+        private final DataOutputStream out;
+        private final String name;
+        private final int slots;
+        // Guarded by the coordinator
+        private int used;
+        private volatile long lastSeenNanos = System.nanoTime();
+
+        Connection( Socket socket, DataOutputStream out, RemoteProtocol.Hello hello )
+        {
+            this.socket = socket;
+            this.out    = out;
+            this.name   = hello.name;
+            this.slots  = hello.slots;
+        }
+
+        void close()
+        {
+            try {
+                this.socket.close();
+            }
+            catch ( IOException ex ) {
+                // Already lost
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.name;
+        }
+    }
+
+}
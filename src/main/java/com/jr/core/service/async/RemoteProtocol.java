@@ -0,0 +1,371 @@
+package com.jr.core.service.async;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+
+/**
+ * The messages between the {@link RemoteCoordinator} and the {@link RemoteWorker}s.
+ *
+ * A connection starts with a handshake without any serialization : each side proves that it knows the shared secret
+ * ( HMAC-SHA256 of the nonce of the other side ), nothing is deserialized from a peer that has not.
+ *
+ * A frame is [ length | serialized message ] : a message is serialized in memory before it is written, an object not
+ * serializable never leaves a connection with half a frame. The messages only hold the classes of this protocol and
+ * the value types of the JDK ( java.lang, java.util, java.math, java.time, java.io, java.net ), other classes are
+ * refused when a message is written and when it is read. The tasks are serialized once, when they are leased, and
+ * read by the worker without this restriction.
+ */
+final class RemoteProtocol {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    // A larger frame is a corrupted stream
+    static final int MAX_FRAME = 64 * 1024 * 1024;
+    // The shortest shared secret
+    static final int MIN_SECRET = 16;
+    // The time for the peer to complete the handshake
+    static final int HANDSHAKE_TIMEOUT_MILLIS = 10_000;
+
+    private static final int MAGIC = 0x4A524331;
+    private static final int NONCE = 32;
+    private static final String HMAC = "HmacSHA256";
+    private static final String[] ALLOWED_PACKAGES = { "java.lang.", "java.util.", "java.math.", "java.time.",
+            "java.io.", "java.net." };
+    private static final String[] REFUSED_PACKAGES = { "java.lang.invoke.", "java.lang.reflect." };
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    private RemoteProtocol(){}
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * Check a shared secret
+     *
+     * @return A copy of the secret
+     */
+    static byte[] checkSecret( byte[] secret )
+    {
+        if( secret == null || secret.length < MIN_SECRET ) {
+            throw new IllegalArgumentException("The shared secret must hold " + MIN_SECRET + " bytes at least");
+        }
+        return secret.clone();
+    }
+
+    /**
+     * Prove to the peer that this side knows the secret, and check that the peer does ( before any frame )
+     *
+     * @param coordinator : True on the side of the coordinator ( a proof is never valid for the other side )
+     * @throws IOException : The peer does not know the secret, or the connection is lost
+     */
+    static void handshake( DataInputStream in, DataOutputStream out, byte[] secret, boolean coordinator )
+            throws IOException
+    {
+        byte[] nonce = new byte[ NONCE ];
+        RANDOM.nextBytes( nonce );
+        synchronized ( out ) {
+            out.writeInt( MAGIC );
+            out.write( nonce );
+            out.flush();
+        }
+        if( in.readInt() != MAGIC ) {
+            throw new IOException("The peer does not speak the remote protocol");
+        }
+        byte[] peerNonce = new byte[ NONCE ];
+        in.readFully( peerNonce );
+
+        byte[] proof = proof( secret, coordinator, peerNonce, nonce );
+        synchronized ( out ) {
+            out.write( proof );
+            out.flush();
+        }
+        byte[] peerProof = new byte[ proof.length ];
+        in.readFully( peerProof );
+        if( ! MessageDigest.isEqual( peerProof, proof( secret, ! coordinator, nonce, peerNonce ) ) ) {
+            throw new IOException("The peer does not know the shared secret");
+        }
+    }
+
+    private static byte[] proof( byte[] secret, boolean coordinator, byte[] challenge, byte[] nonce )
+    {
+        try {
+            Mac mac = Mac.getInstance( HMAC );
+            mac.init( new SecretKeySpec( secret, HMAC ) );
+            mac.update( (byte) ( coordinator ? 'C' : 'W' ) );
+            mac.update( challenge );
+            mac.update( nonce );
+            return mac.doFinal();
+        }
+        catch ( GeneralSecurityException ex ) {
+            throw new IllegalStateException( "No " + HMAC + " in this JVM", ex );
+        }
+    }
+
+    /**
+     * Write a frame ( the writers of a connection are serialized on its stream )
+     */
+    static void write( DataOutputStream out, Object message ) throws IOException
+    {
+        byte[] frame = serialize( message );
+        synchronized ( out ) {
+            out.writeInt( frame.length );
+            out.write( frame );
+            out.flush();
+        }
+    }
+
+    /**
+     * Read the next frame ( by the reader of the connection only )
+     */
+    static Object read( DataInputStream in ) throws IOException, ClassNotFoundException
+    {
+        int length = in.readInt();
+        if( length <= 0 || length > MAX_FRAME ) {
+            throw new IOException("Invalid frame of " + length + " bytes");
+        }
+        byte[] frame = new byte[ length ];
+        in.readFully( frame );
+        return deserialize( frame );
+    }
+
+    /**
+     * Serialize a message
+     *
+     * @throws InvalidClassException : The message holds a class refused by the protocol
+     */
+    static byte[] serialize( Object message ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+        try( ObjectOutputStream out = new CheckedOutputStream( bytes ) ) {
+            out.writeObject( message );
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize a message
+     *
+     * @throws InvalidClassException : The message holds a class refused by the protocol ( it is never loaded )
+     */
+    static Object deserialize( byte[] bytes ) throws IOException, ClassNotFoundException
+    {
+        try( ObjectInputStream in = new CheckedInputStream( new ByteArrayInputStream( bytes ) ) ) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     * Serialize a task, any class ( by the coordinator )
+     */
+    static byte[] serializeTask( Object task ) throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream( 256 );
+        try( ObjectOutputStream out = new ObjectOutputStream( bytes ) ) {
+            out.writeObject( task );
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserialize a task, any class ( by a worker, from its authenticated coordinator only )
+     */
+    static Object deserializeTask( byte[] bytes ) throws IOException, ClassNotFoundException
+    {
+        try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes ) ) ) {
+            return in.readObject();
+        }
+    }
+
+    /**
+     *
+     * @param name : The name of a class ( or of an array )
+     * @return True if the class can be in a message
+     */
+    static boolean isAllowed( String name )
+    {
+        int dimensions = 0;
+        while( dimensions < name.length() && name.charAt( dimensions ) == '[' ) {
+            dimensions++;
+        }
+        if( dimensions > 0 ) {
+            // An array of primitives ( [B ), or of objects ( [Ljava.lang.String; )
+            if( name.charAt( dimensions ) != 'L' ) {
+                return name.length() == dimensions + 1;
+            }
+            name = name.substring( dimensions + 1, name.length() - 1 );
+        }
+        if( name.startsWith( RemoteProtocol.class.getName() + '$' ) ) {
+            return true;
+        }
+        for( String refused : REFUSED_PACKAGES ) {
+            if( name.startsWith( refused ) ) {
+                return false;
+            }
+        }
+        for( String allowed : ALLOWED_PACKAGES ) {
+            if( name.startsWith( allowed ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * Refuse the classes out of the protocol before they are loaded
+     */
+    private static final class CheckedInputStream extends ObjectInputStream {
+
+        CheckedInputStream( InputStream in ) throws IOException
+        {
+            super( in );
+        }
+
+        @Override
+        protected Class<?> resolveClass( ObjectStreamClass desc ) throws IOException, ClassNotFoundException
+        {
+            if( ! isAllowed( desc.getName() ) ) {
+                throw new InvalidClassException( desc.getName(), "Refused by the remote protocol" );
+            }
+            return super.resolveClass( desc );
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass( String[] interfaces ) throws IOException
+        {
+            throw new InvalidClassException( "Proxy", "Refused by the remote protocol" );
+        }
+    }
+
+    /**
+     * Refuse the classes out of the protocol before a frame is written ( the peer would refuse them )
+     */
+    private static final class CheckedOutputStream extends ObjectOutputStream {
+
+        CheckedOutputStream( OutputStream out ) throws IOException
+        {
+            super( out );
+        }
+
+        @Override
+        protected void annotateClass( Class<?> type ) throws IOException
+        {
+            if( ! isAllowed( type.getName() ) ) {
+                throw new InvalidClassException( type.getName(), "Refused by the remote protocol" );
+            }
+        }
+
+        @Override
+        protected void annotateProxyClass( Class<?> type ) throws IOException
+        {
+            throw new InvalidClassException( type.getName(), "Refused by the remote protocol" );
+        }
+    }
+
+    /**
+     * First message of a worker
+     */
+    static final class Hello implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final String name;
+        // The number of tasks the worker runs in parallel
+        final int slots;
+
+        Hello( String name, int slots )
+        {
+            this.name   = name;
+            this.slots  = slots;
+        }
+    }
+
+    /**
+     * The tasks leased to a worker in one frame
+     */
+    static final class Leases implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long[] ids;
+        // The serialized tasks, in the order of the ids
+        final List<byte[]> tasks;
+
+        Leases( long[] ids, List<byte[]> tasks )
+        {
+            this.ids    = ids;
+            this.tasks  = tasks;
+        }
+    }
+
+    /**
+     * The end of a leased task : its value, its error, or its cancellation
+     */
+    static final class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long id;
+        final Object value;
+        final Throwable error;
+        final boolean cancelled;
+
+        Result( long id, Object value, Throwable error, boolean cancelled )
+        {
+            this.id         = id;
+            this.value      = value;
+            this.error      = error;
+            this.cancelled  = cancelled;
+        }
+    }
+
+    /**
+     * Stop a leased task ( timeout or cancellation of the order )
+     */
+    static final class Cancel implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        final long id;
+
+        Cancel( long id )
+        {
+            this.id = id;
+        }
+    }
+
+    /**
+     * The worker is alive : its leases are extended
+     */
+    static final class Heartbeat implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.jr.core.service.async;
+
+import com.jr.core.common.logs.LazyLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.*;
+
+/**
+ * A worker process of a {@link RemoteCoordinator} : runs the orders leased by the coordinator and sends back their
+ * results and a heartbeat every interval.
+ *
+ * The deadlines and the timers are checked by the coordinator, the worker only stops an order when the coordinator
+ * cancels it. The worker stops when the connection is lost, its running orders are interrupted ( the coordinator
+ * leases them again ).
+ *
+ * The worker and the coordinator check that the other knows the shared secret before anything is deserialized. The
+ * worker then runs any {@link Callable} leased by the coordinator : a worker executes the code of whoever holds the
+ * secret. A value returned by a task must be a value type of the JDK ( see {@link RemoteProtocol} ), another value
+ * fails the order with a {@link NotSerializableException}.
+ */
+public class RemoteWorker implements Closeable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final ExecutorService executorService;
+    private final long heartbeatNanos;
+    // The orders running or waiting for a thread, by lease
+    private final Map<Long, Execution> executions = new ConcurrentHashMap<>();
+    private final AtomicLong executed = new AtomicLong();
+    private final Thread reader;
+    private final Thread heartbeat;
+    private volatile boolean closed;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     * Connect to the coordinator and wait for its orders
+     *
+     * @param host : The host of the coordinator
+     * @param port : The port of the coordinator
+     * @param slots : The number of orders executed in parallel
+     * @param heartbeat : The time between two heartbeats ( shorter than the lease timeout of the coordinator )
+     * @param secret : The secret shared with the coordinator
+     * @throws IOException : The coordinator cannot be reached, or does not know the secret
+     */
+    public RemoteWorker( String host, int port, int slots, TimeOutTask heartbeat, byte[] secret ) throws IOException
+    {
+        this( host, port, slots, heartbeat, secret, new DefaultExecutorFactory() );
+    }
+
+    /**
+     *
+     * @param host : The host of the coordinator
+     * @param port : The port of the coordinator
+     * @param slots : The number of orders executed in parallel
+     * @param heartbeat : The time between two heartbeats ( shorter than the lease timeout of the coordinator )
+     * @param secret : The secret shared with the coordinator
+     * @param executorFactory : Create the threads of the orders
+     * @throws IOException : The coordinator cannot be reached, or does not know the secret
+     */
+    public RemoteWorker( String host, int port, int slots, TimeOutTask heartbeat, byte[] secret,
+                         IExecutorFactory executorFactory ) throws IOException
+    {
+        if( slots <= 0 ) {
+            throw new IllegalArgumentException("The number of slots must be positive");
+        }
+        byte[] sharedSecret = RemoteProtocol.checkSecret( secret );
+        this.heartbeatNanos = Math.max( 1, heartbeat.getTimeConvert().toNanos( heartbeat.getUnitTime() ) );
+        this.socket         = new Socket( host, port );
+        try {
+            this.socket.setTcpNoDelay( true );
+            this.in         = new DataInputStream( new BufferedInputStream( this.socket.getInputStream() ) );
+            this.out        = new DataOutputStream( new BufferedOutputStream( this.socket.getOutputStream() ) );
+            this.socket.setSoTimeout( RemoteProtocol.HANDSHAKE_TIMEOUT_MILLIS );
+            RemoteProtocol.handshake( this.in, this.out, sharedSecret, false );
+            this.socket.setSoTimeout( 0 );
+        }
+        catch ( IOException ex ) {
+            this.socket.close();
+            throw ex;
+        }
+        this.executorService = executorFactory.newWorkerExecutor( slots );
+
+        RemoteProtocol.write( this.out, new RemoteProtocol.Hello( String.valueOf( this.socket.getLocalSocketAddress() ),
+                slots ) );
+
+        this.reader = new Thread( this::runReader, "core-async-worker-link" );
+        this.reader.setDaemon( true );
+        this.reader.start();
+        this.heartbeat = new Thread( this::runHeartbeat, "core-async-worker-heartbeat" );
+        this.heartbeat.setDaemon( true );
+        this.heartbeat.start();
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     *
+     * @return The number of orders executed by this worker ( done or failed )
+     */
+    public long getExecuted()
+    {
+        return this.executed.get();
+    }
+
+    public boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    /**
+     * Leave the coordinator : the running orders are interrupted, their results are not sent
+     */
+    @Override
+    public void close()
+    {
+        if( this.closed ) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.socket.close();
+        }
+        catch ( IOException ex ) {
+            // Already lost
+        }
+        LockSupport.unpark( this.heartbeat );
+        this.executorService.shutdownNow();
+        LazyLog.log( this.logger, Level.INFO, REMOTE, STOP, "The worker is stopped", null,
+                "{} order(s) executed", this.executed.get() );
+    }
+
+    private void runReader()
+    {
+        try {
+            while( ! this.closed )
+            {
+                Object message = RemoteProtocol.read( this.in );
+                if( message instanceof RemoteProtocol.Leases ) {
+                    this.execute( (RemoteProtocol.Leases) message );
+                }
+                else if( message instanceof RemoteProtocol.Cancel ) {
+                    Execution execution = this.executions.get( ((RemoteProtocol.Cancel) message).id );
+                    if( execution != null ) {
+                        execution.cancel( true );
+                    }
+                }
+            }
+        }
+        catch ( IOException | ClassNotFoundException | RuntimeException ex ) {
+            if( ! this.closed ) {
+                LazyLog.log( this.logger, Level.WARN, REMOTE, FAIL, "The coordinator is lost", ex );
+                this.close();
+            }
+        }
+    }
+
+    private void execute( RemoteProtocol.Leases leases )
+    {
+        for( int i = 0; i < leases.ids.length; i++ )
+        {
+            long id = leases.ids[ i ];
+            Callable<?> task;
+            try {
+                task = (Callable<?>) RemoteProtocol.deserializeTask( leases.tasks.get( i ) );
+            }
+            catch ( IOException | ClassNotFoundException | ClassCastException ex ) {
+                LazyLog.log( this.logger, Level.ERROR, REMOTE, FAIL, "A leased task cannot be read", ex,
+                        "Lease : {}", id );
+                this.send( new RemoteProtocol.Result( id, null, ex, false ) );
+                continue;
+            }
+            Execution execution = new Execution( id, task );
+            this.executions.put( id, execution );
+            this.executorService.execute( execution );
+        }
+    }
+
+    /**
+     * Send a result : an error that cannot be sent is replaced by its description, a value that cannot be sent fails
+     * the order
+     */
+    private void send( RemoteProtocol.Result result )
+    {
+        if( this.closed ) {
+            return;
+        }
+        try {
+            try {
+                RemoteProtocol.write( this.out, result );
+            }
+            catch ( IOException ex ) {
+                if( this.socket.isClosed() ) {
+                    throw ex;
+                }
+                Throwable error;
+                if( result.error != null ) {
+                    error = new IllegalStateException( String.valueOf( result.error ) );
+                    error.setStackTrace( result.error.getStackTrace() );
+                }
+                else {
+                    error = new NotSerializableException( result.value != null ? result.value.getClass().getName()
+                            : ex.getMessage() );
+                }
+                RemoteProtocol.write( this.out, new RemoteProtocol.Result( result.id, null, error, result.cancelled ) );
+            }
+        }
+        catch ( IOException ex ) {
+            if( ! this.closed ) {
+                LazyLog.log( this.logger, Level.WARN, REMOTE, FAIL, "The result cannot be sent", ex,
+                        "Lease : {}", result.id );
+                this.close();
+            }
+        }
+    }
+
+    private void runHeartbeat()
+    {
+        while( ! this.closed )
+        {
+            LockSupport.parkNanos( this, this.heartbeatNanos );
+            if( this.closed ) {
+                return;
+            }
+            try {
+                RemoteProtocol.write( this.out, new RemoteProtocol.Heartbeat() );
+            }
+            catch ( IOException ex ) {
+                if( ! this.closed ) {
+                    LazyLog.log( this.logger, Level.WARN, REMOTE, FAIL, "The heartbeat cannot be sent", ex );
+                    this.close();
+                }
+            }
+        }
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * A leased order : its result is sent when it is done ( OK, error or cancel )
+     */
+    private final class Execution extends FutureTask<Object> {
+
+        private final long id;
+
+        Execution( long id, Callable<?> task )
+        {
+            super( () -> {
+                try {
+                    return task.call();
+                }
+                finally {
+                    executed.incrementAndGet();
+                }
+            });
+            this.id = id;
+        }
+
+        @Override
+        protected void done()
+        {
+            executions.remove( this.id );
+            if( this.isCancelled() ) {
+                send( new RemoteProtocol.Result( this.id, null, null, true ) );
+                return;
+            }
+            try {
+                Object value = this.get();
+                if( value != null && ! ( value instanceof Serializable ) ) {
+                    send( new RemoteProtocol.Result( this.id, null,
+                            new NotSerializableException( value.getClass().getName() ), false ) );
+                    return;
+                }
+                send( new RemoteProtocol.Result( this.id, value, null, false ) );
+            }
+            catch ( ExecutionException ex ) {
+                send( new RemoteProtocol.Result( this.id, null, ex.getCause(), false ) );
+            }
+            catch ( InterruptedException ex ) {
+                Thread.currentThread().interrupt();
+                send( new RemoteProtocol.Result( this.id, null, ex, false ) );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.jr.core.service.async;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The share of the work of a service that can be retries ( {@link AsyncService#setRetryBudget} ).
+ *
+ * Each first attempt of a task that ends adds ratio to the budget, each retry takes 1 : over time, at most
+ * ratio retries by task. The budget starts full and never holds more than the reserve, so a burst of failures
+ * spends the reserve then retries only ratio of the new tasks ( a failing service is not flooded by its retries ).
+ * No lock : a counter in thousandths of a retry.
+ */
+public final class RetryBudget {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long ONE_RETRY = 1000;
+
+    private final double ratio;
+    private final int reserve;
+    private final long deposit;
+    private final long maxBalance;
+    private final AtomicLong balance;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param ratio : The retries allowed by first attempt ( 0.1 : 10 % of the work can be retries )
+     * @param reserve : The retries allowed at once, before the first tasks ( at least 1 )
+     */
+    public RetryBudget( double ratio, int reserve )
+    {
+        if( ratio < 0 ) {
+            throw new IllegalArgumentException("The ratio must not be negative : " + ratio);
+        }
+        if( reserve < 1 ) {
+            throw new IllegalArgumentException("The reserve must be positive : " + reserve);
+        }
+        this.ratio      = ratio;
+        this.reserve    = reserve;
+        this.deposit    = Math.round( ratio * ONE_RETRY );
+        this.maxBalance = reserve * ONE_RETRY;
+        this.balance    = new AtomicLong( this.maxBalance );
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * The first attempt of a task has ended
+     */
+    public void deposit()
+    {
+        if( this.deposit == 0 || this.balance.get() >= this.maxBalance ) {
+            return;
+        }
+        this.balance.accumulateAndGet( this.deposit, ( current, added ) -> Math.min( this.maxBalance, current + added ) );
+    }
+
+    /**
+     *
+     * @return True if a retry is allowed ( it is taken from the budget )
+     */
+    public boolean tryWithdraw()
+    {
+        while( true )
+        {
+            long current = this.balance.get();
+            if( current < ONE_RETRY ) {
+                return false;
+            }
+            if( this.balance.compareAndSet( current, current - ONE_RETRY ) ) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     *
+     * @return The number of retries allowed now
+     */
+    public double getBalance()
+    {
+        return this.balance.get() / (double) ONE_RETRY;
+    }
+
+    public double getRatio()
+    {
+        return this.ratio;
+    }
+
+    public int getReserve()
+    {
+        return this.reserve;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RetryBudget{balance=" + this.getBalance() + ", ratio=" + this.ratio + ", reserve=" + this.reserve + '}';
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.jr.core.service.async;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * How a task that throws an exception is executed again ( {@link AsyncService#setRetryPolicy},
+ * {@link com.jr.core.api.async.ITask#getRetryPolicy()} ).
+ *
+ * The next attempt waits in the scheduler of the service, not in a worker : the backoff of the attempt n is
+ * initialBackoff * multiplier ^ ( n - 1 ), at most maxBackoff, with a jitter ( between half and all of it ) so that
+ * the tasks failed together do not come back together.
+ */
+public final class RetryPolicy {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final double DEFAULT_MULTIPLIER = 2.0;
+
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final double multiplier;
+    private final Predicate<Throwable> retryable;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     * The backoff doubles, all the exceptions are retried ( not the errors of the JVM )
+     *
+     * @param maxAttempts : The maximum number of executions, the first one included
+     * @param initialBackoff : The time before the second attempt
+     * @param maxBackoff : The maximum time between two attempts
+     */
+    public RetryPolicy( int maxAttempts, TimeOutTask initialBackoff, TimeOutTask maxBackoff )
+    {
+        this( maxAttempts, initialBackoff, maxBackoff, DEFAULT_MULTIPLIER, cause -> cause instanceof Exception );
+    }
+
+    /**
+     *
+     * @param maxAttempts : The maximum number of executions, the first one included
+     * @param initialBackoff : The time before the second attempt
+     * @param maxBackoff : The maximum time between two attempts
+     * @param multiplier : The growth of the backoff after each attempt ( at least 1 )
+     * @param retryable : The exceptions of the task that are worth another attempt
+     */
+    public RetryPolicy( int maxAttempts, TimeOutTask initialBackoff, TimeOutTask maxBackoff, double multiplier,
+                        Predicate<Throwable> retryable )
+    {
+        if( maxAttempts < 1 ) {
+            throw new IllegalArgumentException("The number of attempts must be positive : " + maxAttempts);
+        }
+        if( multiplier < 1 ) {
+            throw new IllegalArgumentException("The multiplier must be at least 1 : " + multiplier);
+        }
+        this.maxAttempts            = maxAttempts;
+        this.initialBackoffNanos    = initialBackoff.getTimeConvert().toNanos( initialBackoff.getUnitTime() );
+        this.maxBackoffNanos        = Math.max( this.initialBackoffNanos,
+                maxBackoff.getTimeConvert().toNanos( maxBackoff.getUnitTime() ) );
+        this.multiplier             = multiplier;
+        this.retryable              = retryable;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     *
+     * @param types : The exceptions worth another attempt ( and their subclasses )
+     * @return The filter of the exceptions
+     */
+    @SafeVarargs
+    public static Predicate<Throwable> retryOn( Class<? extends Throwable>... types )
+    {
+        return cause -> {
+            for( Class<? extends Throwable> type : types ) {
+                if( type.isInstance( cause ) ) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     *
+     * @param attempt : The number of the attempt that failed ( from 1 )
+     * @param cause : The exception of the task
+     * @return True if another attempt is allowed by the policy
+     */
+    public boolean canRetry( int attempt, Throwable cause )
+    {
+        return attempt < this.maxAttempts && cause != null && this.retryable.test( cause );
+    }
+
+    /**
+     *
+     * @param attempt : The number of the attempt that failed ( from 1 )
+     * @return The time before the next attempt, with its jitter
+     */
+    public long getBackoffNanos( int attempt )
+    {
+        double backoff = this.initialBackoffNanos * Math.pow( this.multiplier, Math.max( 0, attempt - 1 ) );
+        long capped = (long) Math.min( this.maxBackoffNanos, backoff );
+        long half = capped / 2;
+        return half + ( capped - half > 0 ? ThreadLocalRandom.current().nextLong( capped - half + 1 ) : 0 );
+    }
+
+    public int getMaxAttempts()
+    {
+        return this.maxAttempts;
+    }
+
+    public long getInitialBackoff( TimeUnit timeUnit )
+    {
+        return timeUnit.convert( this.initialBackoffNanos, TimeUnit.NANOSECONDS );
+    }
+
+    public long getMaxBackoff( TimeUnit timeUnit )
+    {
+        return timeUnit.convert( this.maxBackoffNanos, TimeUnit.NANOSECONDS );
+    }
+
+    public double getMultiplier()
+    {
+        return this.multiplier;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RetryPolicy{maxAttempts=" + this.maxAttempts
+                + ", initialBackoff=" + TimeUnit.NANOSECONDS.toMillis( this.initialBackoffNanos ) + " ms"
+                + ", maxBackoff=" + TimeUnit.NANOSECONDS.toMillis( this.maxBackoffNanos ) + " ms"
+                + ", multiplier=" + this.multiplier + '}';
+    }
+
+}
@@ -0,0 +1,176 @@
+package com.jr.core.service.async;
+
+import com.jr.core.api.async.ITaskResult;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A task waiting for its time in the scheduler of a service ( {@link AsyncService#schedule},
+ * {@link AsyncService#scheduleAtFixedRate}, {@link AsyncService#scheduleWithFixedDelay} ).
+ *
+ * At its time, the task enters the FIFO like a new task : duplicates, timers and maximum execution time apply. A
+ * periodic task is scheduled again only when its run is done, so two runs never overlap : a run later than its
+ * period starts as soon as the previous one ends ( the missed runs are not piled up, the
+ * rate goes on from there ).
+ */
+public final class ScheduledTask {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final Callable<?> task;
+    // 0 : once, > 0 : fixed rate, < 0 : fixed delay ( in nanoseconds )
+    private final long periodNanos;
+    // Null for a periodic task
+    private final CompletableFuture<ITaskResult<?>> result;
+    private final TaskScheduler scheduler;
+    // The number of the execution of a retry, 1 otherwise
+    private final int attempt;
+    private final AtomicLong runs = new AtomicLong();
+    // The open record of the task in the journal ( a recovered task or a new attempt ), -1 : journaled when it
+    // enters the FIFO
+    final long journalId;
+    // Added to the priority of the task ( the critical path of a TaskGraph )
+    final int boost;
+    private volatile boolean cancelled;
+    // Written under the lock of the scheduler
+    volatile long dueNanos;
+    long sequence;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    ScheduledTask( TaskScheduler scheduler, Callable<?> task, long dueNanos, long periodNanos, int attempt,
+                   long journalId, int boost )
+    {
+        this.scheduler      = scheduler;
+        this.attempt        = attempt;
+        this.journalId      = journalId;
+        this.boost          = boost;
+        this.task           = task;
+        this.dueNanos       = dueNanos;
+        this.periodNanos    = periodNanos;
+        this.result         = periodNanos == 0 ? new CompletableFuture<>() : null;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    public Callable<?> getTask()
+    {
+        return this.task;
+    }
+
+    /**
+     *
+     * @return The number of the execution : more than 1 for a new attempt of a failed task
+     */
+    public int getAttempt()
+    {
+        return this.attempt;
+    }
+
+    public boolean isPeriodic()
+    {
+        return this.periodNanos != 0;
+    }
+
+    /**
+     *
+     * @return The number of runs that entered the FIFO
+     */
+    public long getRuns()
+    {
+        return this.runs.get();
+    }
+
+    /**
+     *
+     * @param timeUnit : The unit of the delay
+     * @return The time before the next run ( negative if late, the last value once cancelled or done )
+     */
+    public long getDelay( TimeUnit timeUnit )
+    {
+        return timeUnit.convert( this.dueNanos - System.nanoTime(), TimeUnit.NANOSECONDS );
+    }
+
+    /**
+     * No more run ( a run in the FIFO or running goes on )
+     *
+     * @return False if already cancelled
+     */
+    public boolean cancel()
+    {
+        if( this.cancelled ) {
+            return false;
+        }
+        this.cancelled = true;
+        this.scheduler.remove( this );
+        if( this.result != null ) {
+            this.result.cancel( false );
+        }
+        return true;
+    }
+
+    public boolean isCancelled()
+    {
+        return this.cancelled;
+    }
+
+    /**
+     *
+     * @return The future of a task run once ( cancelling it cancels the task if it is still waiting for its time )
+     */
+    CompletableFuture<ITaskResult<?>> getResult()
+    {
+        return this.result;
+    }
+
+    /**
+     * The run has entered the FIFO ( or has been refused as a duplicate )
+     *
+     * @param runResult : The future of the run
+     */
+    void released( CompletableFuture<ITaskResult<?>> runResult )
+    {
+        this.runs.incrementAndGet();
+        if( this.result != null ) {
+            runResult.whenComplete( ( taskResult, ex ) -> {
+                if( ex != null ) {
+                    this.result.completeExceptionally( ex );
+                }
+                else {
+                    this.result.complete( taskResult );
+                }
+            });
+            return;
+        }
+        // The next run is scheduled at the end of this one
+        runResult.whenComplete( ( taskResult, ex ) -> {
+            if( this.cancelled ) {
+                return;
+            }
+            long nowNanos = System.nanoTime();
+            if( this.periodNanos < 0 ) {
+                this.scheduler.reschedule( this, nowNanos - this.periodNanos );
+                return;
+            }
+            // A run later than its period : the next one starts now, then at the rate from now
+            long nextNanos = this.dueNanos + this.periodNanos;
+            this.scheduler.reschedule( this, nextNanos - nowNanos < 0 ? nowNanos : nextNanos );
+        });
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ScheduledTask{task=" + this.task + ", period=" + this.periodNanos + " ns, runs=" + this.runs + '}';
+    }
+
+}
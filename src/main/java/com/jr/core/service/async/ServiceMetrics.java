@@ -0,0 +1,362 @@
+package com.jr.core.service.async;
+
+import com.jr.core.common.async.AddTaskStatus;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * The metrics of a service : striped counters and lock-free histograms, written by the producers, the controller
+ * and the workers without any lock. Read with {@link #snapshot()} or by JMX.
+ */
+public class ServiceMetrics implements ServiceMetricsMXBean {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final String JMX_DOMAIN = "com.jr.core.async";
+
+    private final IntSupplier queueDepth;
+    private final IntSupplier activeWorkers;
+    private final IntSupplier concurrencyLimit;
+
+    private final LongAdder[] offers = new LongAdder[ AddTaskStatus.values().length ];
+    private final LongAdder completed       = new LongAdder();
+    private final LongAdder failed          = new LongAdder();
+    private final LongAdder timeOuts        = new LongAdder();
+    private final LongAdder cancellations   = new LongAdder();
+    private final LongAdder retries         = new LongAdder();
+    private final LongAdder retriesRefused  = new LongAdder();
+
+    private final LatencyHistogram queueWait    = new LatencyHistogram();
+    private final LatencyHistogram execution    = new LatencyHistogram();
+    private final LatencyHistogram limiterStall = new LatencyHistogram();
+
+    private volatile ObjectName objectName;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param queueDepth : The number of tasks waiting in the FIFO
+     * @param activeWorkers : The number of tasks running
+     */
+    public ServiceMetrics( IntSupplier queueDepth, IntSupplier activeWorkers )
+    {
+        this( queueDepth, activeWorkers, () -> 0 );
+    }
+
+    /**
+     *
+     * @param queueDepth : The number of tasks waiting in the FIFO
+     * @param activeWorkers : The number of tasks running
+     * @param concurrencyLimit : The number of tasks that can run in parallel
+     */
+    public ServiceMetrics( IntSupplier queueDepth, IntSupplier activeWorkers, IntSupplier concurrencyLimit )
+    {
+        this.queueDepth         = queueDepth;
+        this.activeWorkers      = activeWorkers;
+        this.concurrencyLimit   = concurrencyLimit;
+        for( int i = 0; i < this.offers.length; i++ ) {
+            this.offers[ i ] = new LongAdder();
+        }
+    }
+
+    // --------------------------------------
+    // -        Record                      -
+    // --------------------------------------
+
+    public void recordOffer( AddTaskStatus status )
+    {
+        this.offers[ status.ordinal() ].increment();
+    }
+
+    /**
+     * The task starts in a worker
+     *
+     * @param enqueuedNanos : The System.nanoTime() of the addition
+     * @param startNanos : The System.nanoTime() of the start
+     */
+    public void recordStart( long enqueuedNanos, long startNanos )
+    {
+        this.queueWait.record( startNanos - enqueuedNanos );
+    }
+
+    public void recordEnd( long startNanos, long endNanos )
+    {
+        this.execution.record( endNanos - startNanos );
+    }
+
+    public void recordCompleted()
+    {
+        this.completed.increment();
+    }
+
+    public void recordFailed()
+    {
+        this.failed.increment();
+    }
+
+    public void recordTimeOut()
+    {
+        this.timeOuts.increment();
+    }
+
+    public void recordCancellation()
+    {
+        this.cancellations.increment();
+    }
+
+    /**
+     * A failed task will be executed again ( not counted as failed )
+     */
+    public void recordRetry()
+    {
+        this.retries.increment();
+    }
+
+    /**
+     * A failed task could be retried but the retry budget is spent
+     */
+    public void recordRetryRefused()
+    {
+        this.retriesRefused.increment();
+    }
+
+    /**
+     * The controller has waited for a permit of the timers
+     *
+     * @param nanos : The time waited
+     */
+    public void recordLimiterStall( long nanos )
+    {
+        this.limiterStall.record( nanos );
+    }
+
+    // --------------------------------------
+    // -        Read                        -
+    // --------------------------------------
+
+    /**
+     *
+     * @return An immutable view of the metrics
+     */
+    public MetricsSnapshot snapshot()
+    {
+        return new MetricsSnapshot( this.queueDepth.getAsInt(),
+                this.activeWorkers.getAsInt(),
+                this.concurrencyLimit.getAsInt(),
+                this.offers( AddTaskStatus.ACCEPTED ),
+                this.offers( AddTaskStatus.DROPPED_OLDEST ),
+                this.offers( AddTaskStatus.CALLER_RUN ),
+                this.offers( AddTaskStatus.COALESCED ),
+                this.offers( AddTaskStatus.DUPLICATE ),
+                this.offers( AddTaskStatus.REJECTED ),
+                this.offers( AddTaskStatus.TIMEOUT ),
+                this.completed.sum(),
+                this.failed.sum(),
+                this.timeOuts.sum(),
+                this.cancellations.sum(),
+                this.retries.sum(),
+                this.retriesRefused.sum(),
+                this.queueWait.snapshot(),
+                this.execution.snapshot(),
+                this.limiterStall.snapshot() );
+    }
+
+    private long offers( AddTaskStatus status )
+    {
+        return this.offers[ status.ordinal() ].sum();
+    }
+
+    @Override
+    public int getQueueDepth()
+    {
+        return this.queueDepth.getAsInt();
+    }
+
+    @Override
+    public int getActiveWorkers()
+    {
+        return this.activeWorkers.getAsInt();
+    }
+
+    @Override
+    public int getConcurrencyLimit()
+    {
+        return this.concurrencyLimit.getAsInt();
+    }
+
+    @Override
+    public long getAccepted()
+    {
+        return this.offers( AddTaskStatus.ACCEPTED ) + this.offers( AddTaskStatus.DROPPED_OLDEST )
+                + this.offers( AddTaskStatus.CALLER_RUN );
+    }
+
+    @Override
+    public long getRejected()
+    {
+        return this.offers( AddTaskStatus.REJECTED ) + this.offers( AddTaskStatus.TIMEOUT );
+    }
+
+    @Override
+    public long getDuplicates()
+    {
+        return this.offers( AddTaskStatus.DUPLICATE );
+    }
+
+    @Override
+    public long getCoalesced()
+    {
+        return this.offers( AddTaskStatus.COALESCED );
+    }
+
+    @Override
+    public long getDroppedOldest()
+    {
+        return this.offers( AddTaskStatus.DROPPED_OLDEST );
+    }
+
+    @Override
+    public long getCompleted()
+    {
+        return this.completed.sum();
+    }
+
+    @Override
+    public long getFailed()
+    {
+        return this.failed.sum();
+    }
+
+    @Override
+    public long getTimeOuts()
+    {
+        return this.timeOuts.sum();
+    }
+
+    @Override
+    public long getCancellations()
+    {
+        return this.cancellations.sum();
+    }
+
+    @Override
+    public long getRetries()
+    {
+        return this.retries.sum();
+    }
+
+    @Override
+    public long getRetriesRefused()
+    {
+        return this.retriesRefused.sum();
+    }
+
+    @Override
+    public long getQueueWaitP50Micros()
+    {
+        return micros( this.queueWait.snapshot().getP50Nanos() );
+    }
+
+    @Override
+    public long getQueueWaitP99Micros()
+    {
+        return micros( this.queueWait.snapshot().getP99Nanos() );
+    }
+
+    @Override
+    public long getExecutionP50Micros()
+    {
+        return micros( this.execution.snapshot().getP50Nanos() );
+    }
+
+    @Override
+    public long getExecutionP99Micros()
+    {
+        return micros( this.execution.snapshot().getP99Nanos() );
+    }
+
+    @Override
+    public long getExecutionMaxMicros()
+    {
+        return micros( this.execution.snapshot().getMaxNanos() );
+    }
+
+    @Override
+    public long getLimiterStallCount()
+    {
+        return this.limiterStall.snapshot().getCount();
+    }
+
+    @Override
+    public long getLimiterStallP99Micros()
+    {
+        return micros( this.limiterStall.snapshot().getP99Nanos() );
+    }
+
+    // --------------------------------------
+    // -        JMX                         -
+    // --------------------------------------
+
+    /**
+     * Register the metrics in the platform MBean server
+     *
+     * @param name : The name of the service ( unique in the JVM )
+     * @return The name of the MBean
+     */
+    public synchronized ObjectName register( String name )
+    {
+        this.unregister();
+        try {
+            ObjectName newName = new ObjectName( JMX_DOMAIN + ":type=AsyncService,name=" + ObjectName.quote( name ) );
+            ManagementFactory.getPlatformMBeanServer().registerMBean( this, newName );
+            this.objectName = newName;
+            return newName;
+        }
+        catch ( JMException ex ) {
+            throw new IllegalStateException( "Unable to register the metrics of the service " + name, ex );
+        }
+    }
+
+    /**
+     * Remove the metrics from the platform MBean server ( no-op if not registered )
+     */
+    public synchronized void unregister()
+    {
+        ObjectName name = this.objectName;
+        if( name == null ) {
+            return;
+        }
+        this.objectName = null;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if( server.isRegistered( name ) ) {
+                server.unregisterMBean( name );
+            }
+        }
+        catch ( JMException ex ) {
+            throw new IllegalStateException( "Unable to unregister the metrics " + name, ex );
+        }
+    }
+
+    public ObjectName getObjectName()
+    {
+        return this.objectName;
+    }
+
+    private static long micros( long nanos )
+    {
+        return TimeUnit.NANOSECONDS.toMicros( nanos );
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.jr.core.service.async;
+
+/**
+ * The metrics of a service exported by JMX ( durations in microseconds )
+ */
+public interface ServiceMetricsMXBean {
+
+    int getQueueDepth();
+
+    int getActiveWorkers();
+
+    int getConcurrencyLimit();
+
+    long getAccepted();
+
+    long getRejected();
+
+    long getDuplicates();
+
+    long getCoalesced();
+
+    long getDroppedOldest();
+
+    long getCompleted();
+
+    long getFailed();
+
+    long getTimeOuts();
+
+    long getCancellations();
+
+    long getRetries();
+
+    long getRetriesRefused();
+
+    long getQueueWaitP50Micros();
+
+    long getQueueWaitP99Micros();
+
+    long getExecutionP50Micros();
+
+    long getExecutionP99Micros();
+
+    long getExecutionMaxMicros();
+
+    long getLimiterStallCount();
+
+    long getLimiterStallP99Micros();
+
+}
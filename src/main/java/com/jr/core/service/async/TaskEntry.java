@@ -0,0 +1,251 @@
+package com.jr.core.service.async;
+
+import com.jr.core.api.async.ITask;
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.api.async.TaskResult;
+import com.jr.core.common.async.AddTaskStatus;
+import com.jr.core.common.async.TaskResultStatus;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A task waiting in the FIFO or running : the task, its identity in the index and, when the task has been
+ * submitted with {@link AsyncService#submit}, the future completed at the end of the execution.
+ */
+public final class TaskEntry implements Callable<Object> {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final Callable<?> task;
+    private final Object identity;
+    private final long enqueuedNanos;
+    private final int priority;
+    // Null when the task can run in parallel with any other one
+    private final Object partitionKey;
+    // Null when nobody waits for the result
+    private final CompletableFuture<ITaskResult<?>> result;
+    // The order in a PriorityTaskQueue, set under its lock
+    long rank;
+    long sequence;
+    // The id in the journal of the service, -1 if not journaled
+    long journalId = -1;
+    // The number of the execution, from 1 ( RetryPolicy )
+    int attempt = 1;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param task : The task
+     * @param withResult : True to complete a future at the end of the execution
+     */
+    public TaskEntry( Callable<?> task, boolean withResult )
+    {
+        this( task, withResult, 0 );
+    }
+
+    /**
+     *
+     * @param task : The task
+     * @param withResult : True to complete a future at the end of the execution
+     * @param boost : Added to the priority of the task ( the critical path of a {@link TaskGraph} )
+     */
+    public TaskEntry( Callable<?> task, boolean withResult, int boost )
+    {
+        this.task           = task;
+        this.identity       = TaskIndex.identityOf( task );
+        this.enqueuedNanos  = System.nanoTime();
+        int ownPriority     = task instanceof ITask ? ((ITask<?>) task).getPriority() : 0;
+        this.priority       = (int) Math.max( Integer.MIN_VALUE, Math.min( Integer.MAX_VALUE, (long) ownPriority + boost ) );
+        this.partitionKey   = task instanceof ITask ? ((ITask<?>) task).getPartitionKey() : null;
+        this.result         = withResult ? new CompletableFuture<>() : null;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    public Object call() throws Exception
+    {
+        return this.task.call();
+    }
+
+    public Callable<?> getTask()
+    {
+        return this.task;
+    }
+
+    public Object getIdentity()
+    {
+        return this.identity;
+    }
+
+    /**
+     *
+     * @return The System.nanoTime() of the creation of the entry
+     */
+    public long getEnqueuedNanos()
+    {
+        return this.enqueuedNanos;
+    }
+
+    /**
+     *
+     * @return The priority of the task when it has been added
+     */
+    public int getPriority()
+    {
+        return this.priority;
+    }
+
+    /**
+     *
+     * @return The partition key of the task when it has been added, null if none
+     */
+    public Object getPartitionKey()
+    {
+        return this.partitionKey;
+    }
+
+    /**
+     *
+     * @return The future of the result, null if the task has not been submitted with a future
+     */
+    public CompletableFuture<ITaskResult<?>> getResult()
+    {
+        return this.result;
+    }
+
+    /**
+     * The task ended normally
+     *
+     * @param value : The value returned by the task ( a value not serializable is not kept in the result )
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void complete( Object value )
+    {
+        this.settled();
+        if( this.result == null ) {
+            return;
+        }
+        ITask iTask = this.task instanceof ITask ? (ITask) this.task : null;
+        TaskResultStatus status = iTask != null && iTask.getStatus() != null ? iTask.getStatus() : TaskResultStatus.OK;
+        Serializable kept = value instanceof Serializable ? (Serializable) value : null;
+        this.result.complete( new TaskResult( iTask, status, kept ) );
+    }
+
+    /**
+     * Share the execution of an identical entry : this entry completes with the original one
+     *
+     * @param original : The entry waiting or running
+     * @return False if the original entry has no future to follow
+     */
+    boolean follow( TaskEntry original )
+    {
+        CompletableFuture<ITaskResult<?>> originalResult = original.getResult();
+        if( originalResult == null ) {
+            return false;
+        }
+        this.follow( originalResult );
+        return true;
+    }
+
+    /**
+     * This entry completes with another execution ( an identical entry or a new attempt )
+     *
+     * @param originalResult : The future of the other execution
+     */
+    void follow( CompletableFuture<ITaskResult<?>> originalResult )
+    {
+        originalResult.whenComplete( ( taskResult, ex ) -> {
+            this.settled();
+            if( this.result == null ) {
+                return;
+            }
+            if( ex != null ) {
+                this.result.completeExceptionally( ex );
+            }
+            else {
+                this.result.complete( taskResult );
+            }
+        });
+    }
+
+    /**
+     * The task failed ( error of the task, timeout or cancellation )
+     *
+     * @param cause : The cause
+     */
+    void fail( Throwable cause )
+    {
+        this.settled();
+        if( this.result != null ) {
+            this.result.completeExceptionally( cause );
+        }
+    }
+
+    /**
+     * The exception is only created if a future waits for it
+     */
+    void timeOut( long maxTimeMillis )
+    {
+        if( this.result == null ) {
+            this.settled();
+            return;
+        }
+        this.fail( new TimeoutException( "The task " + this.task + " exceeded " + maxTimeMillis + " ms" ) );
+    }
+
+    void cancel( String reason )
+    {
+        if( this.result == null ) {
+            this.settled();
+            return;
+        }
+        this.fail( new CancellationException( "The task " + this.task + " has been cancelled : " + reason ) );
+    }
+
+    /**
+     * The task has not been added to the FIFO : the future fails with a {@link RejectedExecutionException}
+     *
+     * @param status : The outcome of the addition
+     */
+    void refuse( AddTaskStatus status )
+    {
+        if( status != AddTaskStatus.DUPLICATE ) {
+            // A duplicate shares its identity, and its listeners, with the task waiting or running
+            this.settled();
+        }
+        if( this.result != null ) {
+            this.result.completeExceptionally( new RejectedExecutionException(
+                    String.format("The task %s has not been added to the FIFO : %s", this.task, status) ) );
+        }
+    }
+
+    /**
+     * The own progress listeners of the task are dropped after its last event
+     */
+    private void settled()
+    {
+        if( this.task instanceof ITask ) {
+            ProgressBus.getDefault().ended( (ITask<?>) this.task );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.valueOf( this.task );
+    }
+
+}
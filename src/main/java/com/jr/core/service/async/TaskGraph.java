@@ -0,0 +1,353 @@
+package com.jr.core.service.async;
+
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.common.logs.LazyLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.ASYNC;
+import static com.jr.core.common.async.CoreAsyncNameSpace.EXECUTOR;
+
+/**
+ * Tasks with dependencies, executed by {@link AsyncService#submitGraph(TaskGraph)}.
+ *
+ * A task is added after its parents, so the graph never has a cycle. A task enters the FIFO only when all its
+ * parents have completed : no worker waits for a parent. The roots are added by the caller with the overflow policy
+ * of the FIFO, the other tasks are released by the worker of their last parent : the controller adds them to the FIFO
+ * when there is room ( a worker never waits for room nor runs a child ). The tasks ready at the same time enter the
+ * FIFO on the critical path first ( the longest chain of weights to the end of the graph ), and this length is added
+ * to their priority in a FIFO with aging.
+ *
+ * When a task fails ( error, timeout, cancellation or refused by the FIFO ), all the tasks that depend on it are
+ * cancelled without being executed, the other branches go on. The future of the graph completes when all the tasks
+ * are done : with the results in the order of addition, or with the first failure.
+ *
+ * @param <T> : The type of the tasks of the service
+ */
+public final class TaskGraph< T extends Callable<?> > {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final long DEFAULT_WEIGHT = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    // In the order of addition : the parents before the children
+    private final List<Node<T>> nodes = new ArrayList<>();
+    private final Map<Object, Node<T>> byIdentity = new HashMap<>();
+    private final AtomicBoolean submitted = new AtomicBoolean();
+    private final AtomicInteger remaining = new AtomicInteger();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+    private final CompletableFuture<List<ITaskResult<?>>> result = new CompletableFuture<>();
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * Add a task of weight 1 without parent
+     *
+     * @param task : The task
+     * @return This graph
+     */
+    public TaskGraph<T> add( T task )
+    {
+        return this.add( task, DEFAULT_WEIGHT, Collections.<T>emptyList() );
+    }
+
+    /**
+     * Add a task of weight 1
+     *
+     * @param task : The task
+     * @param parent : The task that must complete before the task, already in the graph
+     * @return This graph
+     */
+    public TaskGraph<T> add( T task, T parent )
+    {
+        return this.add( task, DEFAULT_WEIGHT, Collections.singletonList( parent ) );
+    }
+
+    /**
+     * Add a task of weight 1
+     *
+     * @param task : The task
+     * @param parents : The tasks that must complete before the task, already in the graph
+     * @return This graph
+     */
+    public TaskGraph<T> add( T task, Collection<? extends T> parents )
+    {
+        return this.add( task, DEFAULT_WEIGHT, parents );
+    }
+
+    /**
+     *
+     * @param task : The task
+     * @param weight : The estimated cost of the task, used to find the critical path ( at least 1 )
+     * @param parents : The tasks that must complete before the task, already in the graph
+     * @return This graph
+     */
+    public synchronized TaskGraph<T> add( T task, long weight, Collection<? extends T> parents )
+    {
+        if( this.submitted.get() ) {
+            throw new IllegalStateException("The graph has already been submitted");
+        }
+        if( weight < 1 ) {
+            throw new IllegalArgumentException("The weight must be positive : " + weight);
+        }
+        Object identity = TaskIndex.identityOf( task );
+        if( this.byIdentity.containsKey( identity ) ) {
+            throw new IllegalArgumentException("The task is already in the graph : " + task);
+        }
+        Node<T> node = new Node<>( task, weight );
+        for( T parent : parents ) {
+            Node<T> parentNode = this.byIdentity.get( TaskIndex.identityOf( parent ) );
+            if( parentNode == null ) {
+                throw new IllegalArgumentException("The parent " + parent + " of " + task + " is not in the graph");
+            }
+            if( ! parentNode.children.contains( node ) ) {
+                parentNode.children.add( node );
+                node.parents++;
+            }
+        }
+        this.byIdentity.put( identity, node );
+        this.nodes.add( node );
+        return this;
+    }
+
+    public synchronized int size()
+    {
+        return this.nodes.size();
+    }
+
+    /**
+     *
+     * @param task : A task of the graph
+     * @return The future of the task, completed with a {@link CancellationException} if a parent failed
+     */
+    public synchronized CompletableFuture<ITaskResult<?>> getResult( T task )
+    {
+        Node<T> node = this.byIdentity.get( TaskIndex.identityOf( task ) );
+        if( node == null ) {
+            throw new IllegalArgumentException("The task is not in the graph : " + task);
+        }
+        return node.result;
+    }
+
+    /**
+     *
+     * @return The chain of tasks with the highest total weight, from a root to the end of the graph
+     */
+    public synchronized List<T> getCriticalPath()
+    {
+        this.computeCriticalPaths();
+        List<T> path = new ArrayList<>();
+        Node<T> next = longest( this.nodes.stream().filter( node -> node.parents == 0 ).iterator() );
+        while( next != null ) {
+            path.add( next.task );
+            next = longest( next.children.iterator() );
+        }
+        return path;
+    }
+
+    /**
+     * Release the roots ( called once by the service )
+     *
+     * @param service : The service that executes the tasks
+     * @return The future of the graph
+     */
+    synchronized CompletableFuture<List<ITaskResult<?>>> start( AsyncService<T> service )
+    {
+        if( ! this.submitted.compareAndSet( false, true ) ) {
+            throw new IllegalStateException("The graph has already been submitted");
+        }
+        this.computeCriticalPaths();
+        this.remaining.set( this.nodes.size() );
+        if( this.nodes.isEmpty() ) {
+            this.result.complete( Collections.emptyList() );
+            return this.result;
+        }
+        // Cancelled by the caller : the tasks not released yet are never executed
+        this.result.whenComplete( ( results, ex ) -> {
+            if( this.result.isCancelled() ) {
+                for( Node<T> node : this.nodes ) {
+                    this.cancel( node, "the graph has been cancelled" );
+                }
+            }
+        });
+
+        List<Node<T>> roots = new ArrayList<>();
+        for( Node<T> node : this.nodes ) {
+            node.waitingParents.set( node.parents );
+            if( node.parents == 0 ) {
+                roots.add( node );
+            }
+        }
+        this.release( service, roots, true );
+        return this.result;
+    }
+
+    /**
+     * The tasks on the critical path first
+     *
+     * @param byCaller : True for the roots, false for the tasks released by a worker
+     */
+    private void release( AsyncService<T> service, List<Node<T>> ready, boolean byCaller )
+    {
+        ready.sort( ( a, b ) -> Long.compare( b.criticalPath, a.criticalPath ) );
+        for( Node<T> node : ready )
+        {
+            if( ! node.released.compareAndSet( false, true ) ) {
+                continue;
+            }
+            int boost = (int) Math.min( node.criticalPath, Integer.MAX_VALUE / 2 );
+            CompletableFuture<ITaskResult<?>> taskFuture = byCaller ? service.submit( node.task, boost )
+                    : service.release( node.task, boost );
+            taskFuture.whenComplete( ( taskResult, ex ) -> {
+                if( ex == null ) {
+                    this.onCompleted( service, node, taskResult );
+                }
+                else {
+                    this.onFailed( node, ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex );
+                }
+            });
+        }
+    }
+
+    private void onCompleted( AsyncService<T> service, Node<T> node, ITaskResult<?> taskResult )
+    {
+        node.result.complete( taskResult );
+        List<Node<T>> ready = new ArrayList<>( node.children.size() );
+        for( Node<T> child : node.children ) {
+            if( child.waitingParents.decrementAndGet() == 0 ) {
+                ready.add( child );
+            }
+        }
+        this.release( service, ready, false );
+        this.settle();
+    }
+
+    private void onFailed( Node<T> node, Throwable cause )
+    {
+        node.result.completeExceptionally( cause );
+        this.firstFailure.compareAndSet( null, cause );
+
+        // All the tasks reachable from the failed one
+        int cancelled = 0;
+        Deque<Node<T>> toCancel = new ArrayDeque<>( node.children );
+        while( ! toCancel.isEmpty() )
+        {
+            Node<T> dependent = toCancel.poll();
+            if( this.cancel( dependent, "the task " + node.task + " failed" ) ) {
+                cancelled++;
+                toCancel.addAll( dependent.children );
+            }
+        }
+        LazyLog.log( this.logger, Level.WARN, ASYNC, EXECUTOR, "A task of the graph failed", cause,
+                "{} : {} dependent task(s) cancelled", node.task, cancelled );
+        this.settle();
+    }
+
+    /**
+     *
+     * @return False if the task has already been released
+     */
+    private boolean cancel( Node<T> node, String reason )
+    {
+        if( ! node.released.compareAndSet( false, true ) ) {
+            return false;
+        }
+        node.result.completeExceptionally( new CancellationException(
+                "The task " + node.task + " has been cancelled : " + reason ) );
+        this.settle();
+        return true;
+    }
+
+    private void settle()
+    {
+        if( this.remaining.decrementAndGet() != 0 ) {
+            return;
+        }
+        Throwable failure = this.firstFailure.get();
+        if( failure != null ) {
+            this.result.completeExceptionally( failure );
+            return;
+        }
+        List<ITaskResult<?>> results = new ArrayList<>( this.nodes.size() );
+        for( Node<T> node : this.nodes ) {
+            results.add( node.result.getNow( null ) );
+        }
+        this.result.complete( results );
+    }
+
+    /**
+     * The children are always after their parents
+     */
+    private void computeCriticalPaths()
+    {
+        for( int i = this.nodes.size() - 1; i >= 0; i-- )
+        {
+            Node<T> node = this.nodes.get( i );
+            long longestChild = 0;
+            for( Node<T> child : node.children ) {
+                longestChild = Math.max( longestChild, child.criticalPath );
+            }
+            node.criticalPath = node.weight + longestChild;
+        }
+    }
+
+    private static <T> Node<T> longest( Iterator<Node<T>> candidates )
+    {
+        Node<T> longest = null;
+        while( candidates.hasNext() ) {
+            Node<T> candidate = candidates.next();
+            if( longest == null || candidate.criticalPath > longest.criticalPath ) {
+                longest = candidate;
+            }
+        }
+        return longest;
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    private static final class Node<T> {
+
+        private final T task;
+        private final long weight;
+        private final List<Node<T>> children = new ArrayList<>();
+        private final CompletableFuture<ITaskResult<?>> result = new CompletableFuture<>();
+        // Submitted to the service or cancelled, only once
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final AtomicInteger waitingParents = new AtomicInteger();
+        private int parents;
+        // The weight of the task and of its longest chain of dependents
+        private long criticalPath;
+
+        Node( T task, long weight )
+        {
+            this.task   = task;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+package com.jr.core.service.async;
+
+import com.jr.core.api.async.ITask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The tasks currently waiting in the FIFO, indexed by their identity.
+ * Avoids duplicating the tasks already in the FIFO, in constant time.
+ */
+public class TaskIndex {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final ConcurrentHashMap<Object, TaskEntry> tasks = new ConcurrentHashMap<>();
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * Add the entry if no task with the same identity is already indexed ( atomic )
+     *
+     * @param entry : The entry to add
+     * @return False if a task with the same identity is already indexed
+     */
+    public boolean add( TaskEntry entry )
+    {
+        return this.putIfAbsent( entry ) == null;
+    }
+
+    /**
+     * Add the entry if no task with the same identity is already indexed ( atomic )
+     *
+     * @param entry : The entry to add
+     * @return The entry already indexed with the same identity, null if the entry has been added
+     */
+    public TaskEntry putIfAbsent( TaskEntry entry )
+    {
+        return this.tasks.putIfAbsent( entry.getIdentity(), entry );
+    }
+
+    /**
+     * Remove the entry ( only if it is the indexed one )
+     *
+     * @param entry : The entry to remove
+     * @return True if the entry has been removed
+     */
+    public boolean remove( TaskEntry entry )
+    {
+        if( entry == null ) {
+            return false;
+        }
+        return this.tasks.remove( entry.getIdentity(), entry );
+    }
+
+    /**
+     *
+     * @param task : The task to check
+     * @return True if a task with the same identity is indexed
+     */
+    public boolean contains( Callable<?> task )
+    {
+        if( task == null ) {
+            return false;
+        }
+        return this.tasks.containsKey( identityOf( task ) );
+    }
+
+    /**
+     *
+     * @return The number of indexed tasks
+     */
+    public int size()
+    {
+        return this.tasks.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return this.tasks.isEmpty();
+    }
+
+    /**
+     *
+     * @return A snapshot of the indexed tasks ( no order )
+     */
+    public List<Callable<?>> snapshot()
+    {
+        List<Callable<?>> snapshot = new ArrayList<>( this.tasks.size() );
+        for( TaskEntry entry : this.tasks.values() ) {
+            snapshot.add( entry.getTask() );
+        }
+        return snapshot;
+    }
+
+    /**
+     * The stable identity of a task : {@link ITask#getIdentity()} or the task itself
+     *
+     * @param task : The task
+     * @return The key of the task in the index
+     */
+    public static Object identityOf( Callable<?> task )
+    {
+        if( task instanceof ITask ) {
+            return ((ITask<?>) task).getIdentity();
+        }
+        return task;
+    }
+
+}
@@ -0,0 +1,673 @@
+package com.jr.core.service.async;
+
+import com.jr.core.common.logs.LazyLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.CRC32;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.*;
+
+/**
+ * Write-ahead journal of the tasks : the tasks of the FIFO survive a restart of the service.
+ *
+ * Append-only segments mapped in memory, each record is [ length | crc | type | id | serialized task ]. A task is
+ * journaled when it is added ( ENQUEUED ), when it starts ( STARTED ) and when it ends ( COMPLETED ). The segments are
+ * forced to the disk by one thread every flush interval ( group commit : a crash loses at most the last interval ).
+ *
+ * Compaction : the oldest segment is deleted when all its tasks are completed, its last pending tasks are copied
+ * to the current segment first when they are few. At the opening, the tasks never completed are kept for
+ * {@link #replay(ObjLongConsumer)}, a torn record at the end of a segment is ignored.
+ */
+public class TaskJournal implements Closeable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final int  DEFAULT_SEGMENT_SIZE   = 64 * 1024 * 1024;
+    public static final long DEFAULT_FLUSH_MILLIS   = 10;
+
+    static final byte ENQUEUED  = 1;
+    static final byte STARTED   = 2;
+    static final byte COMPLETED = 3;
+
+    // length, crc, type, id
+    private static final int HEADER = 4 + 4 + 1 + 8;
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    // The oldest segment is compacted when at most 1 / COMPACTION_RATIO of its tasks are pending
+    private static final int COMPACTION_RATIO = 4;
+    private static final ThreadLocal<RecordBuffer> BUFFER = ThreadLocal.withInitial( RecordBuffer::new );
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushNanos;
+    private final AtomicLong nextId = new AtomicLong();
+
+    // The segments from the oldest, the last one is the active segment ( guarded by the lock )
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+    private Segment active;
+
+    // The tasks not completed : id -> segment of their ENQUEUED record
+    private final Map<Long, Segment> pending = new ConcurrentHashMap<>();
+    // Found at the opening, in the order of the ids
+    private final TreeMap<Long, Object> recovered = new TreeMap<>();
+
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     * Open the journal ( segments of 64 MB, forced every 10 ms )
+     *
+     * @param directory : The directory of the segments, created if needed
+     * @throws IOException : The journal cannot be read or created
+     */
+    public TaskJournal( Path directory ) throws IOException
+    {
+        this( directory, DEFAULT_SEGMENT_SIZE, new TimeOutTask( (int) DEFAULT_FLUSH_MILLIS, TimeUnit.MILLISECONDS ) );
+    }
+
+    /**
+     * Open the journal
+     *
+     * @param directory : The directory of the segments, created if needed
+     * @param segmentSize : The size of a segment in bytes ( the largest task must fit in a segment )
+     * @param flushInterval : The time between two forces to the disk
+     * @throws IOException : The journal cannot be read or created
+     */
+    public TaskJournal( Path directory, int segmentSize, TimeOutTask flushInterval ) throws IOException
+    {
+        if( segmentSize <= HEADER ) {
+            throw new IllegalArgumentException("The segment is too small");
+        }
+        this.directory      = directory;
+        this.segmentSize    = segmentSize;
+        this.flushNanos     = Math.max( 1, flushInterval.getTimeConvert().toNanos( flushInterval.getUnitTime() ) );
+
+        Files.createDirectories( directory );
+        long lastIndex = this.recover();
+        this.active = this.newSegment( lastIndex + 1 );
+        this.segments.add( this.active );
+
+        this.flusher = new Thread( this::runFlusher, "core-async-journal" );
+        this.flusher.setDaemon( true );
+        this.flusher.start();
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * Journal a task added to the FIFO
+     *
+     * @param task : The task ( must be serializable )
+     * @return The id of the task in the journal, -1 if the task cannot be journaled ( not serializable, larger than
+     * a segment, journal closed or full disk ) : the task is added without its record, never refused
+     */
+    public long enqueue( Object task )
+    {
+        if( ! ( task instanceof Serializable ) ) {
+            return -1;
+        }
+        RecordBuffer buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            buffer.skipHeader();
+            ObjectOutputStream out = new ObjectOutputStream( buffer );
+            out.writeObject( task );
+            out.close();
+        }
+        catch ( IOException ex ) {
+            LazyLog.log( this.logger, Level.WARN, JOURNAL, FAIL, "The task cannot be journaled", ex, "{}", task );
+            buffer.trim();
+            return -1;
+        }
+        long id = this.nextId.getAndIncrement();
+        buffer.writeHeader( ENQUEUED, id );
+        try {
+            this.append( buffer.array(), buffer.size(), id );
+        }
+        catch ( IllegalArgumentException | IllegalStateException ex ) {
+            LazyLog.log( this.logger, Level.WARN, JOURNAL, FAIL, "The task cannot be journaled", ex, "{}", task );
+            return -1;
+        }
+        finally {
+            buffer.trim();
+        }
+        return id;
+    }
+
+    /**
+     * Journal the start of a task
+     *
+     * @param id : The id returned by {@link #enqueue(Object)}
+     */
+    public void started( long id )
+    {
+        if( id >= 0 && this.pending.containsKey( id ) ) {
+            this.appendMarker( STARTED, id );
+        }
+    }
+
+    /**
+     * Journal the end of a task ( done, failed, dropped ... ) : it will not be replayed
+     *
+     * @param id : The id returned by {@link #enqueue(Object)}
+     */
+    public void complete( long id )
+    {
+        if( id < 0 ) {
+            return;
+        }
+        Segment segment = this.pending.remove( id );
+        if( segment == null ) {
+            return;
+        }
+        this.appendMarker( COMPLETED, id );
+        segment.live.decrementAndGet();
+    }
+
+    /**
+     * Give the tasks found at the opening and never completed, in the order of their addition. Once only.
+     *
+     * @param action : Called with each task and its id in the journal
+     */
+    public void replay( ObjLongConsumer<Object> action )
+    {
+        List<Map.Entry<Long, Object>> tasks;
+        synchronized ( this.recovered ) {
+            tasks = new ArrayList<>( this.recovered.entrySet() );
+            this.recovered.clear();
+        }
+        for( Map.Entry<Long, Object> task : tasks ) {
+            action.accept( task.getValue(), task.getKey() );
+        }
+    }
+
+    /**
+     *
+     * @return The number of tasks journaled and not completed
+     */
+    public int getPendingTasks()
+    {
+        return this.pending.size();
+    }
+
+    /**
+     *
+     * @return The number of segments on the disk
+     */
+    public int getSegments()
+    {
+        this.lock.lock();
+        try {
+            return this.segments.size();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Force the records to the disk now
+     */
+    public void flush()
+    {
+        List<Segment> dirty = new ArrayList<>();
+        this.lock.lock();
+        try {
+            for( Segment segment : this.segments ) {
+                if( segment.dirty ) {
+                    segment.dirty = false;
+                    dirty.add( segment );
+                }
+            }
+        }
+        finally {
+            this.lock.unlock();
+        }
+        for( Segment segment : dirty ) {
+            segment.buffer.force();
+        }
+    }
+
+    /**
+     * Delete the oldest segments whose tasks are all completed, the last pending tasks of a segment are copied to
+     * the active segment first ( called by the thread of the journal after each flush )
+     */
+    public void compact()
+    {
+        while( ! this.closed )
+        {
+            Segment oldest;
+            this.lock.lock();
+            try {
+                oldest = this.segments.peekFirst();
+                if( oldest == null || oldest == this.active ) {
+                    return;
+                }
+            }
+            finally {
+                this.lock.unlock();
+            }
+            int live = oldest.live.get();
+            if( live > 0 ) {
+                if( (long) live * COMPACTION_RATIO > oldest.records ) {
+                    // Still mostly pending
+                    return;
+                }
+                this.relocate( oldest );
+                // The copies are on the disk before the originals are deleted
+                this.flush();
+            }
+            this.lock.lock();
+            try {
+                if( oldest.live.get() > 0 ) {
+                    return;
+                }
+                this.segments.pollFirst();
+            }
+            finally {
+                this.lock.unlock();
+            }
+            try {
+                Files.deleteIfExists( oldest.path );
+            }
+            catch ( IOException ex ) {
+                LazyLog.log( this.logger, Level.WARN, JOURNAL, FAIL, "A segment cannot be deleted", ex,
+                        "{}", oldest.path );
+            }
+        }
+    }
+
+    /**
+     * Stop the thread of the journal and force the last records to the disk
+     */
+    @Override
+    public void close()
+    {
+        if( this.closed ) {
+            return;
+        }
+        this.closed = true;
+        LockSupport.unpark( this.flusher );
+        try {
+            this.flusher.join( TimeUnit.NANOSECONDS.toMillis( this.flushNanos ) + 1000 );
+        }
+        catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+    }
+
+    private void appendMarker( byte type, long id )
+    {
+        RecordBuffer buffer = BUFFER.get();
+        buffer.reset();
+        buffer.skipHeader();
+        buffer.writeHeader( type, id );
+        this.append( buffer.array(), buffer.size(), -1 );
+    }
+
+    /**
+     * Copy the record at the end of the active segment
+     *
+     * @param pendingId : The id of a task to register as pending in the segment, -1 for a marker
+     */
+    private void append( byte[] record, int length, long pendingId )
+    {
+        if( length > this.segmentSize ) {
+            throw new IllegalArgumentException("The record ( " + length + " bytes ) is larger than a segment");
+        }
+        this.lock.lock();
+        try {
+            if( this.closed ) {
+                throw new IllegalStateException("The journal " + this.directory + " is closed");
+            }
+            if( this.active.position + length > this.segmentSize ) {
+                this.roll();
+            }
+            Segment segment = this.active;
+            segment.buffer.position( segment.position );
+            segment.buffer.put( record, 0, length );
+            segment.position += length;
+            segment.dirty = true;
+            if( pendingId >= 0 ) {
+                // Under the lock : the compaction never sees the record without its pending state
+                this.pending.put( pendingId, segment );
+                segment.live.incrementAndGet();
+                segment.records++;
+            }
+        }
+        catch ( IOException ex ) {
+            throw new IllegalStateException("The journal " + this.directory + " cannot create a segment", ex);
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * The active segment is full : a new one is created ( under the lock )
+     */
+    private void roll() throws IOException
+    {
+        this.active = this.newSegment( this.active.index + 1 );
+        this.segments.add( this.active );
+    }
+
+    /**
+     * Copy the pending tasks of a segment to the active segment
+     */
+    private void relocate( Segment segment )
+    {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while( position + HEADER <= segment.position )
+        {
+            int length = buffer.getInt( position );
+            byte type = buffer.get( position + 8 );
+            long id = buffer.getLong( position + 9 );
+            if( type == ENQUEUED && this.pending.get( id ) == segment ) {
+                this.relocate( bytesOf( buffer, position, length ), length, id, segment );
+            }
+            position += length;
+        }
+    }
+
+    private void relocate( byte[] record, int length, long id, Segment from )
+    {
+        this.lock.lock();
+        try {
+            if( this.active.position + length > this.segmentSize ) {
+                this.roll();
+            }
+            Segment to = this.active;
+            to.buffer.position( to.position );
+            to.buffer.put( record, 0, length );
+            to.position += length;
+            to.dirty = true;
+            to.records++;
+            to.live.incrementAndGet();
+            if( this.pending.replace( id, from, to ) ) {
+                from.live.decrementAndGet();
+            }
+            else {
+                // Completed meanwhile : the copy must not be replayed
+                to.live.decrementAndGet();
+                this.appendMarker( COMPLETED, id );
+            }
+        }
+        catch ( IOException ex ) {
+            throw new IllegalStateException("The journal " + this.directory + " cannot create a segment", ex);
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void runFlusher()
+    {
+        while( ! this.closed )
+        {
+            LockSupport.parkNanos( this, this.flushNanos );
+            try {
+                this.flush();
+                this.compact();
+            }
+            catch ( RuntimeException ex ) {
+                LazyLog.log( this.logger, Level.ERROR, JOURNAL, FAIL, "Error of the thread of the journal", ex );
+            }
+        }
+    }
+
+    /**
+     * Read the segments of the directory : the tasks never completed are kept for the replay
+     *
+     * @return The index of the last segment, -1 if none
+     */
+    private long recover() throws IOException
+    {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try( DirectoryStream<Path> stream = Files.newDirectoryStream( this.directory, PREFIX + "*" + SUFFIX ) ) {
+            for( Path path : stream ) {
+                String name = path.getFileName().toString();
+                files.put( Long.parseLong( name.substring( PREFIX.length(), name.length() - SUFFIX.length() ) ), path );
+            }
+        }
+
+        // The last copy of each task ( a relocated task is in a later segment )
+        TreeMap<Long, Segment> enqueued = new TreeMap<>();
+        Map<Long, Integer> positions = new HashMap<>();
+        Set<Long> completed = new HashSet<>();
+        Set<Long> started = new HashSet<>();
+        long maxId = -1;
+        for( Map.Entry<Long, Path> file : files.entrySet() )
+        {
+            Segment segment = this.openSegment( file.getKey(), file.getValue() );
+            this.segments.add( segment );
+            MappedByteBuffer buffer = segment.buffer;
+            int position = 0;
+            while( position + HEADER <= buffer.capacity() )
+            {
+                int length = buffer.getInt( position );
+                if( length < HEADER || position + length > buffer.capacity()
+                        || buffer.getInt( position + 4 ) != crcOf( bytesOf( buffer, position, length ), length ) ) {
+                    // End of the segment or torn record
+                    break;
+                }
+                byte type = buffer.get( position + 8 );
+                long id = buffer.getLong( position + 9 );
+                maxId = Math.max( maxId, id );
+                if( type == ENQUEUED ) {
+                    enqueued.put( id, segment );
+                    positions.put( id, position );
+                    segment.records++;
+                }
+                else if( type == COMPLETED ) {
+                    completed.add( id );
+                }
+                else if( type == STARTED ) {
+                    started.add( id );
+                }
+                position += length;
+            }
+            segment.position = position;
+        }
+        this.nextId.set( maxId + 1 );
+
+        int interrupted = 0;
+        for( Map.Entry<Long, Segment> record : enqueued.entrySet() )
+        {
+            long id = record.getKey();
+            if( completed.contains( id ) ) {
+                continue;
+            }
+            Segment segment = record.getValue();
+            Object task = this.readTask( segment.buffer, positions.get( id ) );
+            if( task == null ) {
+                continue;
+            }
+            this.pending.put( id, segment );
+            segment.live.incrementAndGet();
+            this.recovered.put( id, task );
+            if( started.contains( id ) ) {
+                interrupted++;
+            }
+        }
+        LazyLog.log( this.logger, Level.INFO, JOURNAL, START, "Journal opened", null,
+                "{} : {} task(s) to replay, {} of them interrupted while running",
+                this.directory, this.recovered.size(), interrupted );
+        return files.isEmpty() ? -1 : files.lastKey();
+    }
+
+    private Object readTask( MappedByteBuffer buffer, int position )
+    {
+        int length = buffer.getInt( position );
+        byte[] record = bytesOf( buffer, position, length );
+        try( ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( record, HEADER, length - HEADER ) ) ) {
+            return in.readObject();
+        }
+        catch ( IOException | ClassNotFoundException ex ) {
+            LazyLog.log( this.logger, Level.WARN, JOURNAL, FAIL, "A journaled task cannot be read, it is dropped", ex,
+                    "Id : {}", buffer.getLong( position + 9 ) );
+            return null;
+        }
+    }
+
+    private Segment newSegment( long index ) throws IOException
+    {
+        Path path = this.directory.resolve( String.format( "%s%020d%s", PREFIX, index, SUFFIX ) );
+        try( FileChannel channel = FileChannel.open( path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE ) ) {
+            return new Segment( index, path, channel.map( FileChannel.MapMode.READ_WRITE, 0, this.segmentSize ) );
+        }
+    }
+
+    private Segment openSegment( long index, Path path ) throws IOException
+    {
+        try( FileChannel channel = FileChannel.open( path, StandardOpenOption.READ, StandardOpenOption.WRITE ) ) {
+            return new Segment( index, path, channel.map( FileChannel.MapMode.READ_WRITE, 0, channel.size() ) );
+        }
+    }
+
+    private static byte[] bytesOf( MappedByteBuffer buffer, int position, int length )
+    {
+        byte[] record = new byte[ length ];
+        ByteBuffer view = buffer.duplicate();
+        view.position( position );
+        view.get( record );
+        return record;
+    }
+
+    /**
+     * The crc of the type, the id and the task of a record
+     */
+    private static int crcOf( byte[] record, int length )
+    {
+        CRC32 crc = new CRC32();
+        crc.update( record, 8, length - 8 );
+        return (int) crc.getValue();
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * A file of the journal
+     */
+    private static final class Segment {
+
+        private final long index;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        // The tasks of the segment not completed
+        private final AtomicInteger live = new AtomicInteger();
+        // Guarded by the lock of the journal
+        private int position;
+        private int records;
+        private volatile boolean dirty;
+
+        Segment( long index, Path path, MappedByteBuffer buffer )
+        {
+            this.index  = index;
+            this.path   = path;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * The record being written by a thread, reused
+     */
+    private static final class RecordBuffer extends ByteArrayOutputStream {
+
+        private static final int MAX_KEPT = 64 * 1024;
+
+        RecordBuffer()
+        {
+            super( 1024 );
+        }
+
+        void skipHeader()
+        {
+            this.count = HEADER;
+            if( this.buf.length < HEADER ) {
+                this.buf = new byte[ 1024 ];
+            }
+        }
+
+        void writeHeader( byte type, long id )
+        {
+            int length = this.count;
+            putInt( this.buf, 0, length );
+            this.buf[ 8 ] = type;
+            for( int i = 0; i < 8; i++ ) {
+                this.buf[ 9 + i ] = (byte) ( id >>> ( 56 - 8 * i ) );
+            }
+            putInt( this.buf, 4, crcOf( this.buf, length ) );
+        }
+
+        byte[] array()
+        {
+            return this.buf;
+        }
+
+        /**
+         * A buffer grown by a large task is not kept
+         */
+        void trim()
+        {
+            if( this.buf.length > MAX_KEPT ) {
+                this.buf = new byte[ 1024 ];
+            }
+        }
+
+        private static void putInt( byte[] array, int offset, int value )
+        {
+            array[ offset ]     = (byte) ( value >>> 24 );
+            array[ offset + 1 ] = (byte) ( value >>> 16 );
+            array[ offset + 2 ] = (byte) ( value >>> 8 );
+            array[ offset + 3 ] = (byte) value;
+        }
+    }
+
+}
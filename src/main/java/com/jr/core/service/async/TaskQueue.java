@@ -0,0 +1,353 @@
+package com.jr.core.service.async;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The bounded FIFO of the service : one lock, the storage is given by the subclass.
+ *
+ * The size is readable without the lock ( the controller checks it at each loop ).
+ * The iterator is a snapshot in the order of dispatch.
+ */
+public abstract class TaskQueue extends AbstractQueue<TaskEntry> implements BlockingQueue<TaskEntry> {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    protected final int capacity;
+    protected final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty    = this.lock.newCondition();
+    private final Condition notFull     = this.lock.newCondition();
+    // Written under the lock
+    private volatile int count;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    protected TaskQueue( int capacity )
+    {
+        if( capacity <= 0 ) {
+            throw new IllegalArgumentException("The capacity of the FIFO must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    // --------------------------------------
+    // -        Storage ( under the lock )  -
+    // --------------------------------------
+
+    protected abstract void enqueue( TaskEntry entry );
+
+    protected abstract TaskEntry dequeue();
+
+    protected abstract TaskEntry first();
+
+    /**
+     * Remove the entry dropped when the FIFO is full
+     */
+    protected abstract TaskEntry dequeueEvicted();
+
+    protected abstract boolean removeEntry( Object entry );
+
+    /**
+     * The entries in the order of dispatch
+     */
+    protected abstract TaskEntry[] toOrderedArray();
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    public boolean offer( TaskEntry entry )
+    {
+        checkNotNull( entry );
+        this.lock.lock();
+        try {
+            if( this.count == this.capacity ) {
+                return false;
+            }
+            this.insert( entry );
+            return true;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Add the entries in one lock, as long as there is room
+     *
+     * @param entries : The entries to add, in order
+     * @return The number of entries added ( the first ones of the list )
+     */
+    public int offerAll( List<TaskEntry> entries )
+    {
+        checkNotNull( entries );
+        if( entries.isEmpty() ) {
+            return 0;
+        }
+        this.lock.lock();
+        try {
+            int n = Math.min( entries.size(), this.capacity - this.count );
+            for( int i = 0; i < n; i++ ) {
+                TaskEntry entry = entries.get( i );
+                checkNotNull( entry );
+                this.enqueue( entry );
+            }
+            this.count += n;
+            if( n > 0 ) {
+                this.notEmpty.signalAll();
+            }
+            return n;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean offer( TaskEntry entry, long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        checkNotNull( entry );
+        long nanos = unit.toNanos( timeout );
+        this.lock.lockInterruptibly();
+        try {
+            while( this.count == this.capacity ) {
+                if( nanos <= 0 ) {
+                    return false;
+                }
+                nanos = this.notFull.awaitNanos( nanos );
+            }
+            this.insert( entry );
+            return true;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void put( TaskEntry entry ) throws InterruptedException
+    {
+        checkNotNull( entry );
+        this.lock.lockInterruptibly();
+        try {
+            while( this.count == this.capacity ) {
+                this.notFull.await();
+            }
+            this.insert( entry );
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public TaskEntry poll()
+    {
+        if( this.count == 0 ) {
+            return null;
+        }
+        this.lock.lock();
+        try {
+            return this.count == 0 ? null : this.extract();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public TaskEntry poll( long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        long nanos = unit.toNanos( timeout );
+        this.lock.lockInterruptibly();
+        try {
+            while( this.count == 0 ) {
+                if( nanos <= 0 ) {
+                    return null;
+                }
+                nanos = this.notEmpty.awaitNanos( nanos );
+            }
+            return this.extract();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public TaskEntry take() throws InterruptedException
+    {
+        this.lock.lockInterruptibly();
+        try {
+            while( this.count == 0 ) {
+                this.notEmpty.await();
+            }
+            return this.extract();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public TaskEntry peek()
+    {
+        this.lock.lock();
+        try {
+            return this.count == 0 ? null : this.first();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the entry dropped when the FIFO is full ( OverflowPolicy.DROP_OLDEST )
+     *
+     * @return The removed entry, null if the FIFO is empty
+     */
+    public TaskEntry evict()
+    {
+        this.lock.lock();
+        try {
+            if( this.count == 0 ) {
+                return null;
+            }
+            TaskEntry entry = this.dequeueEvicted();
+            this.removed();
+            return entry;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean remove( Object entry )
+    {
+        if( entry == null ) {
+            return false;
+        }
+        this.lock.lock();
+        try {
+            if( ! this.removeEntry( entry ) ) {
+                return false;
+            }
+            this.removed();
+            return true;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo( Collection<? super TaskEntry> collection )
+    {
+        return this.drainTo( collection, Integer.MAX_VALUE );
+    }
+
+    @Override
+    public int drainTo( Collection<? super TaskEntry> collection, int maxElements )
+    {
+        checkNotNull( collection );
+        if( collection == this ) {
+            throw new IllegalArgumentException();
+        }
+        if( maxElements <= 0 || this.count == 0 ) {
+            return 0;
+        }
+        this.lock.lock();
+        try {
+            int n = Math.min( maxElements, this.count );
+            for( int i = 0; i < n; i++ ) {
+                collection.add( this.dequeue() );
+            }
+            this.count -= n;
+            if( n > 0 ) {
+                this.notFull.signalAll();
+            }
+            return n;
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return this.count;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return this.count == 0;
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return this.capacity - this.count;
+    }
+
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    @Override
+    public Iterator<TaskEntry> iterator()
+    {
+        TaskEntry[] snapshot;
+        this.lock.lock();
+        try {
+            snapshot = this.toOrderedArray();
+        }
+        finally {
+            this.lock.unlock();
+        }
+        return Arrays.asList( snapshot ).iterator();
+    }
+
+    private void insert( TaskEntry entry )
+    {
+        this.enqueue( entry );
+        this.count++;
+        this.notEmpty.signal();
+    }
+
+    private TaskEntry extract()
+    {
+        TaskEntry entry = this.dequeue();
+        this.removed();
+        return entry;
+    }
+
+    private void removed()
+    {
+        this.count--;
+        this.notFull.signal();
+    }
+
+    private static void checkNotNull( Object value )
+    {
+        if( value == null ) {
+            throw new NullPointerException();
+        }
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.jr.core.service.async;
+
+import com.jr.core.api.async.ITask;
+import com.jr.core.common.logs.LazyLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.EXECUTE;
+import static com.jr.core.common.async.CoreAsyncNameSpace.FIFO_CONTROLLER;
+
+/**
+ * The new attempts of the failed tasks of a service : the task goes back to the scheduler for its backoff, its
+ * worker is released at once. The future of the task completes with its last attempt, its record in the journal
+ * stays open until then ( a task waiting for its backoff is replayed after a crash ).
+ */
+final class TaskRetrier {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final TaskScheduler scheduler;
+    private final ServiceMetrics metrics;
+    // Null : the tasks without their own policy are not retried
+    private volatile RetryPolicy policy;
+    // Null : no limit
+    private volatile RetryBudget budget;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    TaskRetrier( TaskScheduler scheduler, ServiceMetrics metrics )
+    {
+        this.scheduler  = scheduler;
+        this.metrics    = metrics;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * The task ended normally ( called by the controller )
+     */
+    void succeeded( TaskEntry command )
+    {
+        RetryBudget retryBudget = this.budget;
+        if( retryBudget != null && command.attempt == 1 ) {
+            retryBudget.deposit();
+        }
+    }
+
+    /**
+     * The task threw an exception ( called by the controller, never blocks )
+     *
+     * @param command : The failed attempt
+     * @param cause : The exception of the task
+     * @return True if a new attempt is planned : the future of the task is completed by the new attempt
+     */
+    boolean retry( TaskEntry command, Throwable cause )
+    {
+        RetryBudget retryBudget = this.budget;
+        if( retryBudget != null && command.attempt == 1 ) {
+            retryBudget.deposit();
+        }
+        RetryPolicy retryPolicy = this.policyOf( command );
+        if( retryPolicy == null || ! retryPolicy.canRetry( command.attempt, cause ) ) {
+            return false;
+        }
+        if( retryBudget != null && ! retryBudget.tryWithdraw() ) {
+            this.metrics.recordRetryRefused();
+            LazyLog.log( this.logger, Level.WARN, FIFO_CONTROLLER, EXECUTE, "The retry budget is spent", null,
+                    "{} : no attempt after {} ( {} )", command, command.attempt, retryBudget );
+            return false;
+        }
+
+        long backoffNanos = retryPolicy.getBackoffNanos( command.attempt );
+        ScheduledTask next = this.scheduler.retry( command.getTask(), backoffNanos, command.attempt + 1,
+                command.journalId );
+        command.follow( next.getResult() );
+        this.metrics.recordRetry();
+        LazyLog.log( this.logger, Level.WARN, FIFO_CONTROLLER, EXECUTE, "The task failed, it will be retried", cause,
+                "{} : attempt {} in {} ms", command, command.attempt + 1, TimeUnit.NANOSECONDS.toMillis( backoffNanos ) );
+        return true;
+    }
+
+    /**
+     * The policy of the task, otherwise the policy of the service
+     */
+    private RetryPolicy policyOf( TaskEntry command )
+    {
+        if( command.getTask() instanceof ITask ) {
+            RetryPolicy own = ((ITask<?>) command.getTask()).getRetryPolicy();
+            if( own != null ) {
+                return own;
+            }
+        }
+        return this.policy;
+    }
+
+    void setPolicy( RetryPolicy policy )
+    {
+        this.policy = policy;
+    }
+
+    RetryPolicy getPolicy()
+    {
+        return this.policy;
+    }
+
+    void setBudget( RetryBudget budget )
+    {
+        this.budget = budget;
+    }
+
+    RetryBudget getBudget()
+    {
+        return this.budget;
+    }
+
+}
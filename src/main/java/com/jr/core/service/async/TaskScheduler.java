@@ -0,0 +1,205 @@
+package com.jr.core.service.async;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * The delayed and periodic tasks of a service, the new attempts of its failed tasks, the tasks recovered from its
+ * journal and the tasks of its graphs released by a worker, by time : the controller moves the tasks whose time has
+ * come into the FIFO and parks until the time of the next one.
+ *
+ * A task whose time has come waits here while the FIFO is full ( it never blocks the controller nor drops another
+ * task ), and enters the FIFO when a worker is free.
+ */
+final class TaskScheduler {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final Comparator<ScheduledTask> BY_TIME = ( a, b ) -> {
+        int compare = Long.compare( a.dueNanos - b.dueNanos, 0 );
+        return compare != 0 ? compare : Long.compare( a.sequence, b.sequence );
+    };
+
+    // Guarded by this
+    private final PriorityQueue<ScheduledTask> heap = new PriorityQueue<>( 16, BY_TIME );
+    private long sequence;
+    // The FIFO refused the first task : wait for a signal of the controller instead of its time
+    private boolean full;
+    // Adds the task to the FIFO, false if the FIFO is full
+    private final Predicate<ScheduledTask> release;
+    private final Runnable signal;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param release : Add a task to the FIFO without waiting ( false if the FIFO is full )
+     * @param signal : Wake up the controller
+     */
+    TaskScheduler( Predicate<ScheduledTask> release, Runnable signal )
+    {
+        this.release    = release;
+        this.signal     = signal;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     *
+     * @param task : The task
+     * @param delayNanos : The time before the first run
+     * @param periodNanos : 0 once, > 0 fixed rate, < 0 fixed delay
+     * @return The scheduled task
+     */
+    ScheduledTask schedule( Callable<?> task, long delayNanos, long periodNanos )
+    {
+        ScheduledTask scheduled = new ScheduledTask( this, task, System.nanoTime() + Math.max( 0, delayNanos ),
+                periodNanos, 1, -1, 0 );
+        this.reschedule( scheduled, scheduled.dueNanos );
+        return scheduled;
+    }
+
+    /**
+     * A new attempt of a failed task
+     *
+     * @param task : The task
+     * @param backoffNanos : The time before the attempt
+     * @param attempt : The number of the attempt ( from 2 )
+     * @param journalId : The record of the task in the journal, kept open until its last attempt ( -1 if none )
+     * @return The scheduled attempt
+     */
+    ScheduledTask retry( Callable<?> task, long backoffNanos, int attempt, long journalId )
+    {
+        ScheduledTask scheduled = new ScheduledTask( this, task, System.nanoTime() + Math.max( 0, backoffNanos ),
+                0, attempt, journalId, 0 );
+        this.reschedule( scheduled, scheduled.dueNanos );
+        return scheduled;
+    }
+
+    /**
+     * A task of the journal that did not fit in the FIFO : it enters the FIFO when there is room, after the tasks
+     * recovered before it
+     *
+     * @param task : The task
+     * @param journalId : Its record in the journal, kept open
+     * @return The scheduled task
+     */
+    ScheduledTask recover( Callable<?> task, long journalId )
+    {
+        ScheduledTask scheduled = new ScheduledTask( this, task, System.nanoTime(), 0, 1, journalId, 0 );
+        this.reschedule( scheduled, scheduled.dueNanos );
+        return scheduled;
+    }
+
+    /**
+     * A task to add to the FIFO now, from a thread that must not wait for room ( a worker )
+     *
+     * @param task : The task
+     * @param boost : Added to the priority of the task in a FIFO with aging
+     * @return The scheduled task
+     */
+    ScheduledTask ready( Callable<?> task, int boost )
+    {
+        ScheduledTask scheduled = new ScheduledTask( this, task, System.nanoTime(), 0, 1, -1, boost );
+        this.reschedule( scheduled, scheduled.dueNanos );
+        return scheduled;
+    }
+
+    /**
+     * The next run of a periodic task ( or the first run of a task )
+     */
+    void reschedule( ScheduledTask scheduled, long dueNanos )
+    {
+        boolean first;
+        synchronized ( this ) {
+            if( scheduled.isCancelled() ) {
+                return;
+            }
+            scheduled.dueNanos = dueNanos;
+            scheduled.sequence = this.sequence++;
+            this.heap.add( scheduled );
+            first = this.heap.peek() == scheduled;
+        }
+        if( first ) {
+            // The controller parks until an earlier time
+            this.signal.run();
+        }
+    }
+
+    synchronized boolean remove( ScheduledTask scheduled )
+    {
+        return this.heap.remove( scheduled );
+    }
+
+    /**
+     * Move the tasks whose time has come into the FIFO ( called by the controller )
+     *
+     * @param nowNanos : The current System.nanoTime()
+     * @return The number of tasks released
+     */
+    int releaseDue( long nowNanos )
+    {
+        int released = 0;
+        while( true )
+        {
+            ScheduledTask next;
+            synchronized ( this ) {
+                this.full = false;
+                next = this.heap.peek();
+                if( next == null || next.dueNanos - nowNanos > 0 ) {
+                    return released;
+                }
+                this.heap.poll();
+            }
+            if( next.isCancelled() ) {
+                continue;
+            }
+            if( ! this.release.test( next ) ) {
+                synchronized ( this ) {
+                    // Keeps its place : the first one when the FIFO has room
+                    this.heap.add( next );
+                    this.full = true;
+                }
+                return released;
+            }
+            released++;
+        }
+    }
+
+    /**
+     *
+     * @param nowNanos : The current System.nanoTime()
+     * @return The time before the next task ( 0 if late, Long.MAX_VALUE if none or if the FIFO is full )
+     */
+    synchronized long getNanosBeforeNext( long nowNanos )
+    {
+        ScheduledTask next = this.heap.peek();
+        if( next == null || this.full ) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max( 0, next.dueNanos - nowNanos );
+    }
+
+    /**
+     *
+     * @return The number of tasks waiting for their time ( a periodic task running is not counted )
+     */
+    synchronized int size()
+    {
+        return this.heap.size();
+    }
+
+    synchronized boolean isEmpty()
+    {
+        return this.heap.isEmpty();
+    }
+
+}
@@ -16,6 +16,29 @@ public class TimeOutTask implements Serializable {
 
     private final Integer   unitTime;
     private final TimeUnit  timeConvert;
+    // The maximum delay between the deadline and the cancellation of the order
+    private final Long      toleranceInMillisecond;
 
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    public TimeOutTask( Integer unitTime, TimeUnit timeConvert )
+    {
+        this( unitTime, timeConvert, TimeOutWheel.DEFAULT_TICK_MILLIS );
+    }
+
+    /**
+     *
+     * @param unitTime : The maximum execution time
+     * @param timeConvert : The unit of the maximum execution time
+     * @param toleranceInMillisecond : The maximum delay between the deadline and the cancellation of the order
+     */
+    public TimeOutTask( Integer unitTime, TimeUnit timeConvert, Long toleranceInMillisecond )
+    {
+        this.unitTime               = unitTime;
+        this.timeConvert            = timeConvert;
+        this.toleranceInMillisecond = toleranceInMillisecond;
+    }
 
 }
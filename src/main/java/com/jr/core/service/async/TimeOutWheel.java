@@ -0,0 +1,386 @@
+package com.jr.core.service.async;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.*;
+
+/**
+ * Hashed timing wheel : one thread tracks the deadlines of all the running orders.
+ *
+ * A deadline is stored in the bucket of its tick ( tick = tolerance ), a deadline further than one revolution
+ * keeps the number of remaining revolutions. Adding and cancelling a deadline cost O(1), the memory is one node
+ * per running order. The thread parks when no deadline is pending.
+ */
+public class TimeOutWheel {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    public static final long DEFAULT_TICK_MILLIS    = 10;
+    public static final int  DEFAULT_WHEEL_SIZE     = 512;
+
+    private static final int STATE_INIT     = 0;
+    private static final int STATE_STARTED  = 1;
+    private static final int STATE_STOPPED  = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<TimeOut> newTimeOuts        = new ConcurrentLinkedQueue<>();
+    private final Queue<TimeOut> cancelledTimeOuts  = new ConcurrentLinkedQueue<>();
+    private final AtomicLong     pendingTimeOuts    = new AtomicLong();
+    private final AtomicInteger  state              = new AtomicInteger( STATE_INIT );
+
+    private volatile Thread worker;
+    private volatile boolean idle;
+    private long startTime;
+    private long tick;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    public TimeOutWheel( String name )
+    {
+        this( name, DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_WHEEL_SIZE );
+    }
+
+    /**
+     *
+     * @param name : The name of the thread
+     * @param tick : The duration of a tick, this is the tolerance on the deadlines
+     * @param tickUnit : The unit of the tick
+     * @param wheelSize : The number of buckets ( rounded up to a power of 2 )
+     */
+    public TimeOutWheel( String name, long tick, TimeUnit tickUnit, int wheelSize )
+    {
+        if( tick <= 0 || wheelSize <= 0 ) {
+            throw new IllegalArgumentException("The tick and the size of the wheel must be positive");
+        }
+        this.name       = name;
+        this.tickNanos  = tickUnit.toNanos( tick );
+
+        int size = Integer.highestOneBit( wheelSize );
+        if( size < wheelSize ) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[ size ];
+        for( int i = 0; i < size; i++ ) {
+            this.wheel[ i ] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    /**
+     * Run the action after the delay ( in the thread of the wheel, the action must be short )
+     *
+     * @param action : The action to run at the deadline
+     * @param delay : The delay
+     * @param unit : The unit of the delay
+     * @return The handle used to cancel the deadline
+     */
+    public TimeOut newTimeOut( Runnable action, long delay, TimeUnit unit )
+    {
+        this.start();
+        if( this.state.get() == STATE_STOPPED ) {
+            throw new IllegalStateException("The wheel " + this.name + " is stopped");
+        }
+
+        TimeOut timeOut = new TimeOut( this, action, System.nanoTime() + unit.toNanos( delay ) );
+        this.pendingTimeOuts.incrementAndGet();
+        this.newTimeOuts.add( timeOut );
+        if( this.idle ) {
+            LockSupport.unpark( this.worker );
+        }
+        return timeOut;
+    }
+
+    /**
+     * Stop the thread of the wheel, the pending deadlines are forgotten
+     */
+    public void stop()
+    {
+        if( this.state.getAndSet( STATE_STOPPED ) == STATE_STARTED ) {
+            Thread thread = this.worker;
+            if( thread != null ) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     *
+     * @return The number of deadlines not yet expired or cancelled
+     */
+    public long getPendingTimeOuts()
+    {
+        return this.pendingTimeOuts.get();
+    }
+
+    /**
+     *
+     * @return The tolerance of the deadlines in milliseconds
+     */
+    public long getToleranceInMillisecond()
+    {
+        return TimeUnit.NANOSECONDS.toMillis( this.tickNanos );
+    }
+
+    private void start()
+    {
+        if( this.state.get() == STATE_INIT && this.state.compareAndSet( STATE_INIT, STATE_STARTED ) ) {
+            Thread thread = new Thread( this::run, this.name );
+            thread.setDaemon( true );
+            this.worker = thread;
+            thread.start();
+        }
+    }
+
+    private void run()
+    {
+        this.startTime = System.nanoTime();
+        while( this.state.get() == STATE_STARTED )
+        {
+            if( this.pendingTimeOuts.get() == 0 ) {
+                this.parkWhileIdle();
+                continue;
+            }
+
+            long deadline = this.waitForNextTick();
+            if( deadline < 0 ) {
+                continue;
+            }
+            Bucket bucket = this.wheel[ (int) ( this.tick & this.mask ) ];
+            this.removeCancelledTimeOuts();
+            this.transferNewTimeOuts();
+            bucket.expireTimeOuts( deadline );
+            this.tick++;
+        }
+        this.logger.debug("{}{} The wheel {} is stopped, {} deadline(s) forgotten",
+                TASK, STOP, this.name, this.pendingTimeOuts.get());
+    }
+
+    /**
+     * Park until a new deadline is added, the ticks are realigned at the wake up ( all the buckets are empty )
+     */
+    private void parkWhileIdle()
+    {
+        this.removeCancelledTimeOuts();
+        this.idle = true;
+        if( this.pendingTimeOuts.get() == 0 && this.state.get() == STATE_STARTED ) {
+            LockSupport.park( this );
+        }
+        this.idle = false;
+        this.removeCancelledTimeOuts();
+        this.tick = ( System.nanoTime() - this.startTime ) / this.tickNanos;
+    }
+
+    /**
+     * Sleep until the end of the current tick
+     *
+     * @return The time of the end of the tick ( relative to the start ), -1 if the wheel has been interrupted
+     */
+    private long waitForNextTick()
+    {
+        long deadline = this.tickNanos * ( this.tick + 1 );
+        while( true )
+        {
+            long currentTime = System.nanoTime() - this.startTime;
+            long sleepNanos = deadline - currentTime;
+            if( sleepNanos <= 0 ) {
+                return currentTime;
+            }
+            LockSupport.parkNanos( this, sleepNanos );
+            if( Thread.interrupted() && this.state.get() != STATE_STARTED ) {
+                return -1;
+            }
+        }
+    }
+
+    private void transferNewTimeOuts()
+    {
+        TimeOut timeOut;
+        while( ( timeOut = this.newTimeOuts.poll() ) != null )
+        {
+            if( timeOut.state != TimeOut.ST_INIT ) {
+                // Cancelled before being placed
+                continue;
+            }
+            long relativeDeadline = timeOut.deadline - this.startTime;
+            long calculated = relativeDeadline / this.tickNanos;
+            timeOut.remainingRounds = ( calculated - this.tick ) / this.wheel.length;
+
+            // A deadline in the past is expired at the current tick
+            long ticks = Math.max( calculated, this.tick );
+            this.wheel[ (int) ( ticks & this.mask ) ].add( timeOut );
+        }
+    }
+
+    private void removeCancelledTimeOuts()
+    {
+        TimeOut timeOut;
+        while( ( timeOut = this.cancelledTimeOuts.poll() ) != null )
+        {
+            if( timeOut.bucket != null ) {
+                timeOut.bucket.remove( timeOut );
+            }
+        }
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * A deadline of the wheel
+     */
+    public static final class TimeOut {
+
+        private static final int ST_INIT        = 0;
+        private static final int ST_CANCELLED   = 1;
+        private static final int ST_EXPIRED     = 2;
+        private static final AtomicIntegerFieldUpdater<TimeOut> STATE_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater( TimeOut.class, "state" );
+
+        private final TimeOutWheel timeOutWheel;
+        private final Runnable action;
+        private final long deadline;
+        private volatile int state = ST_INIT;
+
+        // Only used by the thread of the wheel
+        private long remainingRounds;
+        private TimeOut next;
+        private TimeOut prev;
+        private Bucket bucket;
+
+        TimeOut( TimeOutWheel timeOutWheel, Runnable action, long deadline )
+        {
+            this.timeOutWheel   = timeOutWheel;
+            this.action         = action;
+            this.deadline       = deadline;
+        }
+
+        /**
+         * Cancel the deadline
+         *
+         * @return False if the deadline has already expired or been cancelled
+         */
+        public boolean cancel()
+        {
+            if( ! STATE_UPDATER.compareAndSet( this, ST_INIT, ST_CANCELLED ) ) {
+                return false;
+            }
+            this.timeOutWheel.pendingTimeOuts.decrementAndGet();
+            this.timeOutWheel.cancelledTimeOuts.add( this );
+            return true;
+        }
+
+        public boolean isExpired()
+        {
+            return this.state == ST_EXPIRED;
+        }
+
+        public boolean isCancelled()
+        {
+            return this.state == ST_CANCELLED;
+        }
+
+        private void expire()
+        {
+            if( ! STATE_UPDATER.compareAndSet( this, ST_INIT, ST_EXPIRED ) ) {
+                return;
+            }
+            this.timeOutWheel.pendingTimeOuts.decrementAndGet();
+            try {
+                this.action.run();
+            }
+            catch ( Exception ex ) {
+                this.timeOutWheel.logger.warn("{}{} Error during the expiration of a deadline of the wheel {} : {}",
+                        TASK, FAIL, this.timeOutWheel.name, ex.toString());
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of deadlines, only used by the thread of the wheel
+     */
+    private static final class Bucket {
+
+        private TimeOut head;
+        private TimeOut tail;
+
+        void add( TimeOut timeOut )
+        {
+            timeOut.bucket = this;
+            if( this.head == null ) {
+                this.head = this.tail = timeOut;
+            }
+            else {
+                this.tail.next = timeOut;
+                timeOut.prev = this.tail;
+                this.tail = timeOut;
+            }
+        }
+
+        void expireTimeOuts( long deadline )
+        {
+            TimeOut timeOut = this.head;
+            while( timeOut != null )
+            {
+                TimeOut next = timeOut.next;
+                if( timeOut.isCancelled() ) {
+                    this.remove( timeOut );
+                }
+                else if( timeOut.remainingRounds > 0 ) {
+                    timeOut.remainingRounds--;
+                }
+                else if( timeOut.deadline - timeOut.timeOutWheel.startTime <= deadline ) {
+                    this.remove( timeOut );
+                    timeOut.expire();
+                }
+                timeOut = next;
+            }
+        }
+
+        void remove( TimeOut timeOut )
+        {
+            if( timeOut.bucket != this ) {
+                return;
+            }
+            TimeOut next = timeOut.next;
+            if( timeOut.prev != null ) {
+                timeOut.prev.next = next;
+            }
+            if( next != null ) {
+                next.prev = timeOut.prev;
+            }
+            if( timeOut == this.head ) {
+                this.head = next;
+            }
+            if( timeOut == this.tail ) {
+                this.tail = timeOut.prev;
+            }
+            timeOut.prev    = null;
+            timeOut.next    = null;
+            timeOut.bucket  = null;
+        }
+    }
+
+}
@@ -1,24 +1,43 @@
 package com.jr.core.service.async;
 
+import com.jr.core.common.logs.LazyLog;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 import java.io.Serializable;
-import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 import static com.jr.core.common.async.CoreAsyncNameSpace.*;
 
-public class TimerByTask implements Serializable {
+/**
+ * Sliding window : at most numberOfCommand orders in any window of timeInMillisecond.
+ *
+ * The start of the last numberOfCommand orders is kept in a ring of System.nanoTime() stamps : the order number s
+ * uses the slot s % numberOfCommand, and a new order is allowed when the stamp of the order s - numberOfCommand has
+ * left the window. The ring is shared without lock and without allocation : the cursor is reserved by CAS, then the
+ * stamp and the number of the order are published in the slot. Both only move forward ( CAS ) : a late start never
+ * hides a newer order of its slot, at worst it delays the next place.
+ */
+public class TimerByTask implements IRateLimiter, Serializable {
 
     // --------------------------------------
     // -        Attributes                  -
     // --------------------------------------
 
+    private static final long serialVersionUID = 1L;
+
     private final transient Logger logger  = LoggerFactory.getLogger(getClass());
     private final int         numberOfCommand;
     private final long        timeInMillisecond;
-    private final List<Date>  counterDateList;
+    private final long        timeInNanosecond;
+    // The next order number
+    private final AtomicLong      cursor  = new AtomicLong();
+    // Slot i : [ 2i ] the order number published in the slot, [ 2i + 1 ] its stamp
+    private final AtomicLongArray ring;
 
 
     // --------------------------------------
@@ -32,22 +51,56 @@ public class TimerByTask implements Serializable {
      */
     public TimerByTask(int numberOfCommand, long timeInMillisecond )
     {
-        this.counterDateList    = new ArrayList<>();
-        this.numberOfCommand    = numberOfCommand;
-        this.timeInMillisecond  = timeInMillisecond;
+        this( numberOfCommand, timeInMillisecond, TimeUnit.MILLISECONDS );
     }
 
     public TimerByTask(int numberOfCommand, long time, TimeUnit timeUnit )
     {
-        this.counterDateList    = new ArrayList<>();
+        if( numberOfCommand <= 0 ) {
+            throw new IllegalArgumentException("The number of orders must be positive");
+        }
         this.numberOfCommand    = numberOfCommand;
-        this.timeInMillisecond  = timeUnit.convert( time, TimeUnit.MILLISECONDS );
+        this.timeInMillisecond  = timeUnit.toMillis( time );
+        this.timeInNanosecond   = timeUnit.toNanos( time );
+        this.ring               = new AtomicLongArray( 2 * numberOfCommand );
+        for( int i = 0; i < numberOfCommand; i++ ) {
+            // No order published yet
+            this.ring.set( 2 * i, (long) i - numberOfCommand );
+            // Long ago : any stamp is later
+            this.ring.set( 2 * i + 1, System.nanoTime() - Long.MAX_VALUE / 2 );
+        }
     }
 
     // --------------------------------------
     // -        Methods                     -
     // --------------------------------------
 
+    /**
+     * Take a place in the window if one is free ( never blocks )
+     *
+     * @return True if the order can be executed
+     */
+    @Override
+    public boolean tryAcquire()
+    {
+        long now = System.nanoTime();
+        while( true )
+        {
+            long order = this.cursor.get();
+            if( order >= this.numberOfCommand && now - this.getPublishedStamp( order ) < this.timeInNanosecond ) {
+                if( this.cursor.get() == order ) {
+                    return false;
+                }
+                // Another caller took the place : try again with the next one
+                continue;
+            }
+            if( this.cursor.compareAndSet( order, order + 1 ) ) {
+                this.publish( order, now );
+                return true;
+            }
+        }
+    }
+
     /**
      * Add a new order and validate the number
      *
@@ -56,7 +109,6 @@ public class TimerByTask implements Serializable {
     public boolean addNewCommandAndValid()
     {
         this.setNewCommand();
-        this.check();
         return this.valid();
     }
 
@@ -66,7 +118,6 @@ public class TimerByTask implements Serializable {
      */
     public void checkCommandAndValidBlock()
     {
-        this.check();
         if( ! this.valid() )
         {
             this.getWaitTime();
@@ -74,73 +125,111 @@ public class TimerByTask implements Serializable {
     }
 
     /**
-     * Incrementing the command counter
+     * Incrementing the command counter ( even if the window is full )
+     *
+     * @return The number of the order, used by {@link #startCommand(long)}
      */
-    public void setNewCommand()
+    @Override
+    public long setNewCommand()
     {
-        // Nouvelle commande
-        this.counterDateList.add( new Date() );
+        long order = this.cursor.getAndIncrement();
+        if( order >= this.numberOfCommand ) {
+            // The previous owner of the slot must have published its stamp
+            this.getPublishedStamp( order );
+        }
+        this.publish( order, System.nanoTime() );
+        return order;
     }
 
     /**
-     *  Deletion of old orders
+     * The order really starts ( later than its reservation ) : its stamp is moved to now.
+     * The window then counts the real starts of the orders.
+     *
+     * @param order : The number returned by {@link #setNewCommand()}
      */
-    public void check()
+    @Override
+    public void startCommand( long order )
     {
-        Date obsoleteDate         = this.getObsoleteDate();
-        List<Date> dateToRemove   = new ArrayList<>();
-
-        // Checking the list
-        for( Date dateCommand : this.counterDateList ) {
-            if( obsoleteDate.after( dateCommand ) ) {
-                dateToRemove.add( dateCommand );
-            }
+        int slot = (int) ( order % this.numberOfCommand );
+        // Ignored if the slot has already been reused by a newer order ( reused meanwhile : its stamp is only moved
+        // later, the window stays within its limit )
+        if( this.ring.get( 2 * slot ) == order ) {
+            this.raiseStamp( slot, System.nanoTime() );
         }
+    }
 
-        this.getLogger().debug("{}{} Obsolescence date : {} -> Upstream order(s) date to be deleted : {} . All other dates : {} ",
-                TASK, CHECK, obsoleteDate, dateToRemove, this.counterDateList );
-
-        // Removal of obsolete dates
-        this.counterDateList.removeAll( dateToRemove );
+    /**
+     * The number of orders that can still be executed now
+     *
+     * @return
+     */
+    public int getAvailableCommand()
+    {
+        return this.getAvailableCommand( this.numberOfCommand );
     }
 
     /**
+     * The number of orders that can still be executed now
      *
+     * @param max : Stop counting at this number
      * @return
      */
-    public Date getFutureDate()
+    @Override
+    public int getAvailableCommand( int max )
     {
-        if( ! this.counterDateList.isEmpty() )
+        long now    = System.nanoTime();
+        long order  = this.cursor.get();
+        int limit   = Math.min( max, this.numberOfCommand );
+        int available = 0;
+        // The stamps are ordered : stop at the first one still in the window
+        while( available < limit )
         {
-            int size        = this.counterDateList.size();
-            Date lastDate   = this.counterDateList.get( size - 1 );
-            Calendar cal    = new GregorianCalendar();
-            cal.setTime( lastDate );
-            // Ajout du temps à attendre à la dernière date d'éxécution de commande
-            cal.add( Calendar.MILLISECOND, (int) this.timeInMillisecond );
-            return cal.getTime();
+            long next = order + available;
+            if( next >= this.numberOfCommand && now - this.getPublishedStamp( next ) < this.timeInNanosecond ) {
+                break;
+            }
+            available++;
         }
-        return new Date();
+        return available;
     }
 
-    public Date getObsoleteDate()
+    /**
+     * The exact time before a place is freed in the window
+     *
+     * @return 0 if an order can be executed now, otherwise the time to wait in nanoseconds
+     */
+    @Override
+    public long getNanosBeforeNextCommand()
     {
-        Date now        = new Date();
-        Calendar cal    = new GregorianCalendar();
-        cal.setTime( now );
-        // Supprime le temps max du compteur
-        cal.add( Calendar.MILLISECOND, - (int) this.timeInMillisecond );
-        return cal.getTime();
+        long order = this.cursor.get();
+        if( order < this.numberOfCommand ) {
+            return 0;
+        }
+        long wait = this.getPublishedStamp( order ) + this.timeInNanosecond - System.nanoTime();
+        return Math.max( 0, wait );
     }
 
+    /**
+     * The time before the oldest order leaves the window
+     *
+     * @return 0 if an order can be executed now, otherwise the time to wait in milliseconds ( rounded up )
+     */
+    public long getTimeBeforeNextCommand()
+    {
+        long waitNanos = this.getNanosBeforeNextCommand();
+        if( waitNanos == 0 ) {
+            return 0;
+        }
+        return Math.max( 1, TimeUnit.NANOSECONDS.toMillis( waitNanos + TimeUnit.MILLISECONDS.toNanos( 1 ) - 1 ) );
+    }
 
     /**
-     * Order number
+     * Order number in the window
      * @return
      */
     public int getSize( )
     {
-        return this.counterDateList.size();
+        return this.numberOfCommand - this.getAvailableCommand();
     }
 
     /**
@@ -150,43 +239,76 @@ public class TimerByTask implements Serializable {
      */
     public boolean valid()
     {
-        if( this.getSize() >= this.numberOfCommand )
-        {
-            this.getLogger().debug("{}{} The maximum number of commands over a given time is reached ! Order number : {} ! Number of authorized orders {}  ",
-                    TASK, VALID, this.getSize(), this.numberOfCommand);
-            return false;
-        }
-        this.getLogger().debug("{}{} Order number : {} ! Number of authorized orders {}  ",
-                TASK, VALID, this.getSize(), this.numberOfCommand);
-        return true;
+        return this.getNanosBeforeNextCommand() == 0;
     }
 
     /**
-     * Wait for the minimum time between the first order and the deadline
+     * Wait for the release of the oldest order of the window
      */
     public void getWaitTime()
     {
-        if( ! this.counterDateList.isEmpty() )
+        long waitNanos = this.getNanosBeforeNextCommand();
+        while( waitNanos > 0 )
         {
-            Date dateLimit = this.getFutureDate();
-            Date now = this.counterDateList.get(0);
+            LazyLog.log( this.getLogger(), Level.DEBUG, TASK, WAIT, "Temps à attendre avant la prochaine commande",
+                    null, "{} ns", waitNanos );
+            LockSupport.parkNanos( this, waitNanos );
+            if( Thread.currentThread().isInterrupted() ) {
+                // Cancel
+                return;
+            }
+            waitNanos = this.getNanosBeforeNextCommand();
+        }
+    }
 
-            long diffInMillies = Math.abs(  dateLimit.getTime() - now.getTime() );
+    public int getNumberOfCommand()
+    {
+        return this.numberOfCommand;
+    }
 
-            this.getLogger().debug( "{}{} Temps à attendre avant la prochaine commande : {} ms. Date actuelle : {} - Date limite : {}",
-                    TASK, WAIT, diffInMillies, now, dateLimit );
+    public long getTimeInMillisecond()
+    {
+        return this.timeInMillisecond;
+    }
 
-            try {
-                // Attend
-                Thread.sleep( diffInMillies );
-            }
-            catch ( InterruptedException ex )
-            {
-                // Cancel
+    /**
+     * The stamp of the order that used the slot one revolution before the given order
+     */
+    private long getPublishedStamp( long order )
+    {
+        int slot = (int) ( order % this.numberOfCommand );
+        long previous = order - this.numberOfCommand;
+        // The slot has been reserved but the stamp is not yet written : a few instructions
+        while( this.ring.get( 2 * slot ) < previous ) {
+            Thread.yield();
+        }
+        return this.ring.get( 2 * slot + 1 );
+    }
+
+    private void publish( long order, long stamp )
+    {
+        int slot = (int) ( order % this.numberOfCommand );
+        // The stamp is visible before the order number
+        this.raiseStamp( slot, stamp );
+        while( true )
+        {
+            long published = this.ring.get( 2 * slot );
+            if( published >= order || this.ring.compareAndSet( 2 * slot, published, order ) ) {
+                return;
             }
         }
     }
 
+    private void raiseStamp( int slot, long stamp )
+    {
+        while( true )
+        {
+            long published = this.ring.get( 2 * slot + 1 );
+            if( published - stamp >= 0 || this.ring.compareAndSet( 2 * slot + 1, published, stamp ) ) {
+                return;
+            }
+        }
+    }
 
     /**
      * The logger
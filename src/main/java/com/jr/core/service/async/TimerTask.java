@@ -1,4 +1,5 @@
 package com.jr.core.service.async;
+import com.jr.core.common.async.RateLimitMode;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -15,7 +16,42 @@ public class TimerTask implements Serializable {
     private final Integer   numberOfCommand;
     private final Integer   unitTime;
     private final TimeUnit  timeConvert;
+    private final RateLimitMode mode;
+    // TOKEN_BUCKET only : the number of orders that can be executed at once
+    private final Integer   burst;
 
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     * At most numberOfCommand orders in any window of unitTime
+     *
+     * @param numberOfCommand : The number of orders
+     * @param unitTime : The window
+     * @param timeConvert : The unit of the window
+     */
+    public TimerTask( Integer numberOfCommand, Integer unitTime, TimeUnit timeConvert )
+    {
+        this( numberOfCommand, unitTime, timeConvert, RateLimitMode.SLIDING_WINDOW, numberOfCommand );
+    }
+
+    /**
+     *
+     * @param numberOfCommand : The number of orders by unitTime
+     * @param unitTime : The unit of time
+     * @param timeConvert : The unit of the time
+     * @param mode : The sliding window or the token bucket
+     * @param burst : TOKEN_BUCKET only, the number of orders that can be executed at once
+     */
+    public TimerTask( Integer numberOfCommand, Integer unitTime, TimeUnit timeConvert, RateLimitMode mode, Integer burst )
+    {
+        this.numberOfCommand    = numberOfCommand;
+        this.unitTime           = unitTime;
+        this.timeConvert        = timeConvert;
+        this.mode               = mode == null ? RateLimitMode.SLIDING_WINDOW : mode;
+        this.burst              = burst == null ? numberOfCommand : burst;
+    }
 
     // --------------------------------------
     // -        Methods                     -
@@ -29,11 +65,13 @@ public class TimerTask implements Serializable {
         TimerTask timerTask = (TimerTask) o;
         return Objects.equals(getNumberOfCommand(), timerTask.getNumberOfCommand()) &&
                 Objects.equals(getUnitTime(), timerTask.getUnitTime()) &&
-                getTimeConvert() == timerTask.getTimeConvert();
+                getTimeConvert() == timerTask.getTimeConvert() &&
+                getMode() == timerTask.getMode() &&
+                Objects.equals(getBurst(), timerTask.getBurst());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getNumberOfCommand(), getUnitTime(), getTimeConvert());
+        return Objects.hash(getNumberOfCommand(), getUnitTime(), getTimeConvert(), getMode(), getBurst());
     }
 }
@@ -0,0 +1,128 @@
+package com.jr.core.service.async;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket : a sustained rate of numberOfCommand orders by unit of time, with a burst of orders.
+ *
+ * GCRA ( generic cell rate algorithm ) : the whole state is the theoretical arrival time ( TAT ) of the next order.
+ * Each order pushes the TAT by the emission interval ( time / numberOfCommand ) and an order is allowed while the
+ * TAT is no further than ( burst - 1 ) intervals in the future. The cost is O(1) whatever the rate.
+ */
+public class TokenBucketByTask implements IRateLimiter, Serializable {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final long serialVersionUID = 1L;
+
+    private final int         numberOfCommand;
+    private final int         burst;
+    // The time between two orders at the sustained rate
+    private final long        emissionIntervalNanos;
+    // How far the TAT can be in the future
+    private final long        toleranceNanos;
+    // The theoretical arrival time of the next order ( System.nanoTime() )
+    private final AtomicLong  theoreticalArrivalTime;
+
+    // --------------------------------------
+    // -        Constructors                -
+    // --------------------------------------
+
+    /**
+     *
+     * @param numberOfCommand : The number of orders by unit of time
+     * @param time : The unit of time
+     * @param timeUnit : The unit of the time
+     * @param burst : The number of orders that can be executed at once ( >= 1 )
+     */
+    public TokenBucketByTask( int numberOfCommand, long time, TimeUnit timeUnit, int burst )
+    {
+        if( numberOfCommand <= 0 || burst <= 0 ) {
+            throw new IllegalArgumentException("The number of orders and the burst must be positive");
+        }
+        this.numberOfCommand        = numberOfCommand;
+        this.burst                  = burst;
+        this.emissionIntervalNanos  = Math.max( 1, timeUnit.toNanos( time ) / numberOfCommand );
+        this.toleranceNanos         = this.emissionIntervalNanos * ( burst - 1 );
+        this.theoreticalArrivalTime = new AtomicLong( System.nanoTime() );
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    public boolean tryAcquire()
+    {
+        long now = System.nanoTime();
+        while( true )
+        {
+            long tat = this.theoreticalArrivalTime.get();
+            long start = tat - now > 0 ? tat : now;
+            if( start - now > this.toleranceNanos ) {
+                return false;
+            }
+            if( this.theoreticalArrivalTime.compareAndSet( tat, start + this.emissionIntervalNanos ) ) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long setNewCommand()
+    {
+        long now = System.nanoTime();
+        while( true )
+        {
+            long tat = this.theoreticalArrivalTime.get();
+            long start = tat - now > 0 ? tat : now;
+            if( this.theoreticalArrivalTime.compareAndSet( tat, start + this.emissionIntervalNanos ) ) {
+                return start;
+            }
+        }
+    }
+
+    /**
+     * The state is a single time : the start of an order can not be moved afterwards
+     */
+    @Override
+    public void startCommand( long order )
+    {
+        // Nothing to do
+    }
+
+    @Override
+    public int getAvailableCommand( int max )
+    {
+        long now = System.nanoTime();
+        long tat = this.theoreticalArrivalTime.get();
+        long ahead = tat - now > 0 ? tat - now : 0;
+        if( ahead > this.toleranceNanos ) {
+            return 0;
+        }
+        long available = ( this.toleranceNanos - ahead ) / this.emissionIntervalNanos + 1;
+        return (int) Math.min( max, available );
+    }
+
+    @Override
+    public long getNanosBeforeNextCommand()
+    {
+        long wait = this.theoreticalArrivalTime.get() - this.toleranceNanos - System.nanoTime();
+        return Math.max( 0, wait );
+    }
+
+    public int getNumberOfCommand()
+    {
+        return this.numberOfCommand;
+    }
+
+    public int getBurst()
+    {
+        return this.burst;
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.jr.core;
+
+
+import com.jr.core.service.async.AdaptiveConcurrencyLimit;
+import com.jr.core.service.async.TimeOutTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos( 5 );
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos( 500 );
+
+    @Test
+    void additiveIncrease() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit( 2, 10,
+                new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        Assertions.assertEquals( 2, limit.getLimit() );
+
+        // About one more by limit samples : 2.5, 2.9, 3.24
+        limit.onSample( FAST, false, 2 );
+        limit.onSample( FAST, false, 2 );
+        Assertions.assertEquals( 2, limit.getLimit() );
+        limit.onSample( FAST, false, 2 );
+        Assertions.assertEquals( 3, limit.getLimit() );
+
+        // Not used : the limit does not grow
+        for( int i = 0; i < 100; i++ ) {
+            limit.onSample( FAST, false, 1 );
+        }
+        Assertions.assertEquals( 3, limit.getLimit() );
+
+        // Never above the ceiling
+        for( int i = 0; i < 1000; i++ ) {
+            limit.onSample( FAST, false, limit.getLimit() );
+        }
+        Assertions.assertEquals( 10, limit.getLimit() );
+    }
+
+    @Test
+    void multiplicativeDecrease() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit( 2, 20,
+                new TimeOutTask( 100, TimeUnit.MILLISECONDS ), 20, 0.5 );
+        List<Integer> changes = new ArrayList<>();
+        limit.addPropertyChangeListener( event -> changes.add( (Integer) event.getNewValue() ) );
+
+        // Slower than the threshold
+        limit.onSample( SLOW, false, 20 );
+        Assertions.assertEquals( 10, limit.getLimit() );
+        // Failed
+        limit.onSample( FAST, true, 10 );
+        Assertions.assertEquals( 5, limit.getLimit() );
+        // Never under the floor
+        limit.onSample( SLOW, true, 5 );
+        limit.onSample( SLOW, true, 5 );
+        Assertions.assertEquals( 2, limit.getLimit() );
+
+        Assertions.assertEquals( List.of( 10, 5, 2 ), changes );
+    }
+
+    @Test
+    void invalidLimits() {
+        TimeOutTask threshold = new TimeOutTask( 100, TimeUnit.MILLISECONDS );
+        Assertions.assertThrows( IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimit( 0, 10, threshold ) );
+        Assertions.assertThrows( IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimit( 5, 4, threshold ) );
+        Assertions.assertThrows( IllegalArgumentException.class,
+                () -> new AdaptiveConcurrencyLimit( 1, 4, threshold, 2, 1.0 ) );
+    }
+
+}
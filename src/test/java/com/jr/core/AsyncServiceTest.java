@@ -1,20 +1,49 @@
 package com.jr.core;
 
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.common.async.AddTaskStatus;
+import com.jr.core.common.async.ExecutorBackend;
+import com.jr.core.common.async.OverflowPolicy;
 import com.jr.core.common.async.TaskResultStatus;
 import com.jr.core.mock.AsyncServiceMock;
 import com.jr.core.mock.TaskMock;
+import com.jr.core.service.async.AdaptiveConcurrencyLimit;
+import com.jr.core.service.async.DefaultExecutorFactory;
 import com.jr.core.service.async.FifoController;
+import com.jr.core.service.async.FifoPolicy;
+import com.jr.core.service.async.MetricsSnapshot;
+import com.jr.core.service.async.RetryBudget;
+import com.jr.core.service.async.RetryPolicy;
+import com.jr.core.service.async.ScheduledTask;
+import com.jr.core.service.async.TaskJournal;
 import com.jr.core.service.async.TimeOutTask;
 import com.jr.core.service.async.TimerTask;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class AsyncServiceTest {
@@ -366,6 +395,792 @@ class AsyncServiceTest {
         }
     }
 
+    @Test
+    @Order(300)
+    void fifo_overflow_policy() {
+        TaskMock taskMock1 = new TaskMock( 1, 10 );
+        TaskMock taskMock2 = new TaskMock( 2, 10 );
+        TaskMock taskMock3 = new TaskMock( 3, 10 );
+
+        // REJECT
+        AsyncServiceMock rejectService = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( 2, OverflowPolicy.REJECT ) );
+        Assertions.assertEquals( AddTaskStatus.ACCEPTED, rejectService.offerTask( taskMock1 ) );
+        Assertions.assertEquals( AddTaskStatus.DUPLICATE, rejectService.offerTask( taskMock1 ) );
+        Assertions.assertEquals( AddTaskStatus.ACCEPTED, rejectService.offerTask( taskMock2 ) );
+        Assertions.assertEquals( AddTaskStatus.REJECTED, rejectService.offerTask( taskMock3 ) );
+        Assertions.assertFalse( rejectService.isInFifo( taskMock3 ) );
+        Assertions.assertEquals( 2, rejectService.getSizeFifo() );
+
+        // BLOCK
+        AsyncServiceMock blockService = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( 1, OverflowPolicy.BLOCK, new TimeOutTask( 50, TimeUnit.MILLISECONDS ) ) );
+        Assertions.assertEquals( AddTaskStatus.ACCEPTED, blockService.offerTask( taskMock1 ) );
+        Assertions.assertEquals( AddTaskStatus.TIMEOUT, blockService.offerTask( taskMock2 ) );
+
+        // DROP_OLDEST
+        AsyncServiceMock dropService = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( 2, OverflowPolicy.DROP_OLDEST ) );
+        dropService.addTask( taskMock1 );
+        dropService.addTask( taskMock2 );
+        Assertions.assertEquals( AddTaskStatus.DROPPED_OLDEST, dropService.offerTask( taskMock3 ) );
+        Assertions.assertFalse( dropService.isInFifo( taskMock1 ) );
+        Assertions.assertTrue( dropService.isInFifo( taskMock3 ) );
+
+        // CALLER_RUNS
+        TaskMock taskMock4 = new TaskMock( 4, 10 );
+        AsyncServiceMock callerService = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( 1, OverflowPolicy.CALLER_RUNS ) );
+        callerService.addTask( taskMock1 );
+        Assertions.assertEquals( AddTaskStatus.CALLER_RUN, callerService.offerTask( taskMock4 ) );
+        Assertions.assertEquals( TaskResultStatus.OK, taskMock4.getStatus() );
+        Assertions.assertEquals( 1, callerService.getSizeFifo() );
+
+        // Invalid policies
+        Assertions.assertThrows( IllegalArgumentException.class, () -> new FifoPolicy( 0, OverflowPolicy.REJECT ) );
+        Assertions.assertThrows( IllegalArgumentException.class, () -> new FifoPolicy( null, OverflowPolicy.REJECT ) );
+        Assertions.assertThrows( IllegalArgumentException.class, () -> new FifoPolicy( 10, null ) );
+    }
+
+    /**
+     * Checking that concurrent producers can not add the same task twice
+     */
+    @Test
+    @Order(310)
+    void concurrent_duplicate() throws InterruptedException {
+        int numberOfTask     = 500;
+        int numberOfProducer = 4;
+
+        List<TaskMock> taskMockList = new ArrayList<>();
+        for( int i = 0; i < numberOfTask; i++ ){
+            taskMockList.add( new TaskMock( i, 10 ) );
+        }
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( numberOfTask * numberOfProducer, OverflowPolicy.REJECT ) );
+
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> producers = new ArrayList<>();
+        for( int p = 0; p < numberOfProducer; p++ ){
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch ( InterruptedException e ) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for( TaskMock taskMockItem : taskMockList ){
+                    if( asyncServiceMock.addTask( taskMockItem ) ){
+                        accepted.incrementAndGet();
+                    }
+                }
+            });
+            producer.start();
+            producers.add( producer );
+        }
+        start.countDown();
+        for( Thread producer : producers ){
+            producer.join();
+        }
+
+        Assertions.assertEquals( numberOfTask, accepted.get() );
+        Assertions.assertEquals( numberOfTask, asyncServiceMock.getSizeFifo() );
+    }
+
+    /**
+     * Checking the futures of the submitted tasks : result, timeout and refusal
+     */
+    @Test
+    @Order(320)
+    void submit_future() throws Exception {
+        TaskMock taskMock1 = new TaskMock( 1, 50 );
+        TaskMock taskMock2 = new TaskMock( 2, 2000 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null,
+                new TimeOutTask( 300, TimeUnit.MILLISECONDS ) );
+
+        CompletableFuture<ITaskResult<?>> future1 = asyncServiceMock.submit( taskMock1 );
+        CompletableFuture<ITaskResult<?>> future2 = asyncServiceMock.submit( taskMock2 );
+        CompletableFuture<ITaskResult<?>> duplicate = asyncServiceMock.submit( taskMock1 );
+
+        // Refused immediately
+        ExecutionException refused = Assertions.assertThrows( ExecutionException.class, duplicate::get );
+        Assertions.assertInstanceOf( RejectedExecutionException.class, refused.getCause() );
+
+        asyncServiceMock.executorAsynchronously();
+
+        ITaskResult<?> result1 = future1.get( 2, TimeUnit.SECONDS );
+        Assertions.assertEquals( TaskResultStatus.OK, result1.getTaskResultStatus() );
+        Assertions.assertEquals( 1, result1.getResult() );
+        Assertions.assertSame( taskMock1, result1.getTask() );
+
+        ExecutionException timeOut = Assertions.assertThrows( ExecutionException.class,
+                () -> future2.get( 2, TimeUnit.SECONDS ) );
+        Assertions.assertInstanceOf( TimeoutException.class, timeOut.getCause() );
+    }
+
+    /**
+     * Checking the execution with each backend of threads
+     */
+    @ParameterizedTest
+    @EnumSource(ExecutorBackend.class)
+    @Order(330)
+    void executor_backend( ExecutorBackend backend ) throws Exception {
+        Assumptions.assumeTrue( backend != ExecutorBackend.VIRTUAL_THREAD
+                || DefaultExecutorFactory.isVirtualThreadSupported(), "Virtual threads need Java 21" );
+
+        List<TaskMock> taskMockList = new ArrayList<>();
+        for( int i = 0; i < 6; i++ ){
+            taskMockList.add( new TaskMock( i, 50 ) );
+        }
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 3, null, null, null,
+                new DefaultExecutorFactory( backend ) );
+        List<CompletableFuture<ITaskResult<?>>> futures = new ArrayList<>();
+        for( TaskMock taskMockItem : taskMockList ){
+            futures.add( asyncServiceMock.submit( taskMockItem ) );
+        }
+
+        asyncServiceMock.executorAsynchronously();
+        CompletableFuture.allOf( futures.toArray( new CompletableFuture[0] ) ).get( 5, TimeUnit.SECONDS );
+        asyncServiceMock.waitEnd( FifoController.TIME_OUT_MAX_FIFO * 2, TimeUnit.MILLISECONDS );
+
+        for( TaskMock taskMockItem : taskMockList ){
+            Assertions.assertEquals( TaskResultStatus.OK, taskMockItem.getStatus() );
+        }
+    }
+
+    /**
+     * Checking that a persistent service waits for the next orders instead of stopping
+     */
+    @Test
+    @Order(340)
+    void persistent_service() throws Exception {
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+        asyncServiceMock.setPersistent( true );
+        asyncServiceMock.setIdleTrim( new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+
+        CompletableFuture<ITaskResult<?>> first = asyncServiceMock.submit( new TaskMock( 1, 10 ) );
+        Thread t = asyncServiceMock.executorAsynchronously();
+        first.get( 2, TimeUnit.SECONDS );
+
+        // Idle : the controller is still running
+        Thread.sleep( 300 );
+        Assertions.assertFalse( asyncServiceMock.isStopped() );
+
+        // The next order starts without a new start of the service
+        ITaskResult<?> result = asyncServiceMock.submit( new TaskMock( 2, 10 ) ).get( 2, TimeUnit.SECONDS );
+        Assertions.assertEquals( TaskResultStatus.OK, result.getTaskResultStatus() );
+        Assertions.assertFalse( asyncServiceMock.isStopped() );
+
+        asyncServiceMock.stop();
+        t.join( 2000 );
+        Assertions.assertTrue( asyncServiceMock.isStopped() );
+    }
+
+    /**
+     * Checking the outcome of each order of a batch
+     */
+    @Test
+    @Order(350)
+    void add_all() throws Exception {
+        TaskMock taskMock1 = new TaskMock( 1, 10 );
+        TaskMock taskMock2 = new TaskMock( 2, 10 );
+        TaskMock taskMock3 = new TaskMock( 3, 10 );
+        TaskMock taskMock4 = new TaskMock( 4, 10 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null,
+                new FifoPolicy( 3, OverflowPolicy.REJECT ) );
+        asyncServiceMock.addTask( taskMock1 );
+
+        List<AddTaskStatus> statuses = asyncServiceMock.addAll(
+                Arrays.asList( taskMock1, taskMock2, taskMock2, taskMock3, taskMock4 ) );
+        Assertions.assertEquals( Arrays.asList( AddTaskStatus.DUPLICATE, AddTaskStatus.ACCEPTED,
+                AddTaskStatus.DUPLICATE, AddTaskStatus.ACCEPTED, AddTaskStatus.REJECTED ), statuses );
+        Assertions.assertEquals( 3, asyncServiceMock.getSizeFifo() );
+        Assertions.assertFalse( asyncServiceMock.isInFifo( taskMock4 ) );
+
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+        for( TaskMock taskMockItem : Arrays.asList( taskMock1, taskMock2, taskMock3 ) ){
+            Assertions.assertEquals( TaskResultStatus.OK, taskMockItem.getStatus() );
+        }
+    }
+
+    /**
+     * Checking that identical tasks, waiting or running, share one execution in coalescing mode
+     */
+    @Test
+    @Order(360)
+    void coalescing() throws Exception {
+        TaskMock taskMock = new TaskMock( 1, 300 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+        asyncServiceMock.setCoalescing( true );
+
+        CompletableFuture<ITaskResult<?>> first = asyncServiceMock.submit( taskMock );
+        // Waiting
+        CompletableFuture<ITaskResult<?>> waiting = asyncServiceMock.submit( taskMock );
+        Assertions.assertEquals( AddTaskStatus.COALESCED, asyncServiceMock.offerTask( taskMock ) );
+        Assertions.assertEquals( 1, asyncServiceMock.getSizeFifo() );
+
+        Thread t = asyncServiceMock.executorAsynchronously();
+        Thread.sleep( 100 );
+        // Running
+        Assertions.assertTrue( asyncServiceMock.isInFifo( taskMock ) );
+        CompletableFuture<ITaskResult<?>> running = asyncServiceMock.submit( taskMock );
+
+        for( CompletableFuture<ITaskResult<?>> future : Arrays.asList( first, waiting, running ) ){
+            ITaskResult<?> result = future.get( 2, TimeUnit.SECONDS );
+            Assertions.assertEquals( 1, result.getResult() );
+        }
+        Assertions.assertEquals( 1, taskMock.getCalls().get() );
+        t.join( 2000 );
+
+        // Ended : executed again
+        Assertions.assertFalse( asyncServiceMock.isInFifo( taskMock ) );
+        Assertions.assertEquals( AddTaskStatus.ACCEPTED, asyncServiceMock.offerTask( taskMock ) );
+    }
+
+    /**
+     * Checking the metrics of the service and their export by JMX
+     */
+    @Test
+    @Order(370)
+    void metrics() throws Exception {
+        TaskMock taskMock1 = new TaskMock( 1, 20 );
+        TaskMock taskMock2 = new TaskMock( 2, 1000 );
+        TaskMock taskMock3 = new TaskMock( 3, 20 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null,
+                new TimeOutTask( 200, TimeUnit.MILLISECONDS ), new FifoPolicy( 2, OverflowPolicy.REJECT ) );
+        ObjectName objectName = asyncServiceMock.registerMBean( "metrics-test" );
+        try {
+            asyncServiceMock.addTask( taskMock1 );
+            asyncServiceMock.addTask( taskMock1 );
+            asyncServiceMock.addTask( taskMock2 );
+            asyncServiceMock.addTask( taskMock3 );
+
+            MetricsSnapshot waiting = asyncServiceMock.getMetrics();
+            Assertions.assertEquals( 2, waiting.getQueueDepth() );
+            Assertions.assertEquals( 2, waiting.getAccepted() );
+            Assertions.assertEquals( 1, waiting.getDuplicates() );
+            Assertions.assertEquals( 1, waiting.getRejected() );
+
+            asyncServiceMock.executorAsynchronously().join( 5000 );
+
+            MetricsSnapshot ended = asyncServiceMock.getMetrics();
+            Assertions.assertEquals( 0, ended.getQueueDepth() );
+            Assertions.assertEquals( 0, ended.getActiveWorkers() );
+            Assertions.assertEquals( 1, ended.getCompleted() );
+            Assertions.assertEquals( 1, ended.getTimeOuts() );
+            Assertions.assertEquals( 2, ended.getQueueWait().getCount() );
+            Assertions.assertEquals( 2, ended.getExecution().getCount() );
+            // The second task waited for the first one
+            Assertions.assertTrue( ended.getQueueWait().getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos( 20 ) );
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            Assertions.assertEquals( 1L, server.getAttribute( objectName, "TimeOuts" ) );
+            Assertions.assertEquals( 1L, server.getAttribute( objectName, "Rejected" ) );
+        }
+        finally {
+            asyncServiceMock.unregisterMBean();
+        }
+        Assertions.assertFalse( ManagementFactory.getPlatformMBeanServer().isRegistered( objectName ) );
+    }
+
+    /**
+     * Checking that the tasks of a partition key run one after the other, in order, while the keys run in parallel
+     */
+    @Test
+    @Order(380)
+    void partition_key() throws Exception {
+        List<TaskMock> keyA = new ArrayList<>();
+        List<TaskMock> keyB = new ArrayList<>();
+        List<CompletableFuture<ITaskResult<?>>> futures = new ArrayList<>();
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 4, null,
+                new TimeOutTask( 2, TimeUnit.SECONDS ) );
+        for( int i = 0; i < 4; i++ ) {
+            TaskMock taskA = new TaskMock( i, 50 );
+            taskA.setPartitionKey( "A" );
+            keyA.add( taskA );
+            TaskMock taskB = new TaskMock( 10 + i, 50 );
+            taskB.setPartitionKey( "B" );
+            keyB.add( taskB );
+            futures.add( asyncServiceMock.submit( taskA ) );
+            futures.add( asyncServiceMock.submit( taskB ) );
+        }
+
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+
+        for( CompletableFuture<ITaskResult<?>> future : futures ) {
+            Assertions.assertEquals( TaskResultStatus.OK, future.get( 1, TimeUnit.SECONDS ).getTaskResultStatus() );
+        }
+        for( List<TaskMock> key : Arrays.asList( keyA, keyB ) ) {
+            for( int i = 1; i < key.size(); i++ ) {
+                // Strictly in order, never at the same time
+                Assertions.assertFalse( key.get( i ).getStart().before( key.get( i - 1 ).getEnd() ) );
+            }
+        }
+        // The two keys run in parallel
+        Assertions.assertTrue( keyB.get( 0 ).getStart().before( keyA.get( 0 ).getEnd() ) );
+        Assertions.assertEquals( 0, asyncServiceMock.getSizeFifo() );
+    }
+
 
+    /**
+     * Checking that the tasks of the FIFO are replayed from the journal after a restart
+     */
+    @Test
+    @Order(390)
+    void journal( @TempDir Path directory ) throws Exception {
+        TimeOutTask flush = new TimeOutTask( 5, TimeUnit.MILLISECONDS );
+
+        // Stopped before the execution
+        TaskJournal journal = new TaskJournal( directory, 64 * 1024, flush );
+        AsyncServiceMock stopped = new AsyncServiceMock( 2, null, null );
+        stopped.setJournal( journal );
+        stopped.addTask( new TaskMock( 1, 10 ) );
+        stopped.addTask( new TaskMock( 2, 10 ) );
+        Assertions.assertEquals( 2, journal.getPendingTasks() );
+        journal.close();
+
+        // Restart
+        TaskJournal reopened = new TaskJournal( directory, 64 * 1024, flush );
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+        asyncServiceMock.setJournal( reopened );
+        Assertions.assertEquals( 2, asyncServiceMock.getSizeFifo() );
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+        Assertions.assertEquals( 2, asyncServiceMock.getMetrics().getCompleted() );
+        Assertions.assertEquals( 0, reopened.getPendingTasks() );
+        reopened.close();
+
+        // Nothing left to replay
+        try( TaskJournal last = new TaskJournal( directory, 64 * 1024, flush ) ) {
+            AsyncServiceMock restarted = new AsyncServiceMock( 2, null, null );
+            restarted.setJournal( last );
+            Assertions.assertEquals( 0, restarted.getSizeFifo() );
+        }
+    }
+
+    /**
+     * Checking that the replay ignores the capacity and the overflow policy of the FIFO
+     */
+    @Test
+    @Order(395)
+    void journal_replay_full_fifo( @TempDir Path directory ) throws Exception {
+        TimeOutTask flush = new TimeOutTask( 5, TimeUnit.MILLISECONDS );
+        try( TaskJournal journal = new TaskJournal( directory, 64 * 1024, flush ) ) {
+            for( int i = 0; i < 3; i++ ) {
+                journal.enqueue( new TaskMock( i, 10 ) );
+            }
+        }
+
+        for( OverflowPolicy policy : new OverflowPolicy[]{ OverflowPolicy.BLOCK, OverflowPolicy.DROP_OLDEST,
+                OverflowPolicy.CALLER_RUNS, OverflowPolicy.REJECT } )
+        {
+            try( TaskJournal reopened = new TaskJournal( directory, 64 * 1024, flush ) ) {
+                AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null, new FifoPolicy( 1, policy ) );
+                // Neither blocked, nor dropped, nor run by the caller
+                asyncServiceMock.setJournal( reopened );
+                Assertions.assertEquals( 1, asyncServiceMock.getSizeFifo() );
+                Assertions.assertEquals( 2, asyncServiceMock.getScheduledCount() );
+                Assertions.assertEquals( 3, reopened.getPendingTasks() );
+                if( policy != OverflowPolicy.REJECT ) {
+                    continue;
+                }
+                asyncServiceMock.executorAsynchronously().join( 5000 );
+                Assertions.assertEquals( 3, asyncServiceMock.getMetrics().getCompleted() );
+                Assertions.assertEquals( 0, reopened.getPendingTasks() );
+            }
+        }
+        Assertions.assertThrows( IllegalArgumentException.class,
+                () -> new AsyncServiceMock( 1, null, null ).setJournal( null ) );
+    }
+
+    /**
+     * Checking that a task the journal cannot record is still added, and is not left in the index
+     */
+    @Test
+    @Order(397)
+    void journal_enqueue_failure( @TempDir Path directory ) throws Exception {
+        TimeOutTask flush = new TimeOutTask( 5, TimeUnit.MILLISECONDS );
+        // A task is larger than a segment
+        try( TaskJournal journal = new TaskJournal( directory.resolve( "small" ), 64, flush ) ) {
+            AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+            asyncServiceMock.setJournal( journal );
+            TaskMock task = new TaskMock( 1, 10 );
+            CompletableFuture<ITaskResult<?>> first = asyncServiceMock.submit( task );
+            CompletableFuture<ITaskResult<?>> delayed = asyncServiceMock.schedule( new TaskMock( 2, 10 ),
+                    new TimeOutTask( 0, TimeUnit.MILLISECONDS ) );
+            asyncServiceMock.executorAsynchronously().join( 5000 );
+            Assertions.assertEquals( 1, first.get( 5, TimeUnit.SECONDS ).getResult() );
+            Assertions.assertEquals( 2, delayed.get( 5, TimeUnit.SECONDS ).getResult() );
+            Assertions.assertEquals( 0, journal.getPendingTasks() );
+            // Not a duplicate of itself
+            Assertions.assertEquals( AddTaskStatus.ACCEPTED, asyncServiceMock.offerTask( task ) );
+        }
+
+        // The journal is closed
+        TaskJournal closed = new TaskJournal( directory.resolve( "closed" ), 64 * 1024, flush );
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+        asyncServiceMock.setJournal( closed );
+        closed.close();
+        Assertions.assertEquals( Arrays.asList( AddTaskStatus.ACCEPTED, AddTaskStatus.ACCEPTED ),
+                asyncServiceMock.addAll( Arrays.asList( new TaskMock( 3, 10 ), new TaskMock( 4, 10 ) ) ) );
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+        Assertions.assertEquals( 2, asyncServiceMock.getMetrics().getCompleted() );
+    }
+
+    /**
+     * Checking that the number of tasks in parallel follows the adaptive limit without recreating the pool
+     */
+    @Test
+    @Order(400)
+    void adaptive_concurrency_limit() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit( 1, 8,
+                new TimeOutTask( 50, TimeUnit.MILLISECONDS ), 4, 0.5 );
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 8, null, null );
+        asyncServiceMock.setConcurrencyLimit( limit );
+        Assertions.assertEquals( 4, asyncServiceMock.getMetrics().getConcurrencyLimit() );
+        // A ceiling above the threads of the pool would never be reached
+        Assertions.assertThrows( IllegalArgumentException.class, () -> new AsyncServiceMock( 4, null, null )
+                .setConcurrencyLimit( limit ) );
+
+        // Slower than the threshold : the limit falls to the floor, one task at a time
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<TaskMock> tasks = new ArrayList<>();
+        for( int i = 0; i < 8; i++ ) {
+            TaskMock taskMock = new TaskMock( i, 100 ) {
+                @Override
+                public Integer call() throws Exception {
+                    maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+                    try {
+                        return super.call();
+                    }
+                    finally {
+                        running.decrementAndGet();
+                    }
+                }
+            };
+            tasks.add( taskMock );
+            asyncServiceMock.addTask( taskMock );
+        }
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+
+        Assertions.assertEquals( 1, limit.getLimit() );
+        Assertions.assertEquals( 1, asyncServiceMock.getMetrics().getConcurrencyLimit() );
+        Assertions.assertEquals( 4, maxRunning.get() );
+        for( TaskMock taskMock : tasks ) {
+            Assertions.assertEquals( TaskResultStatus.OK, taskMock.getStatus() );
+        }
+        // The last tasks ran one after the other
+        TaskMock last = tasks.get( 7 );
+        Assertions.assertFalse( last.getStart().before( tasks.get( 6 ).getEnd() ) );
+    }
+
+    /**
+     * Checking the delayed tasks : their time, their cancellation and the duplicates
+     */
+    @Test
+    @Order(410)
+    void delayed_task() throws Exception {
+        TaskMock late = new TaskMock( 1, 10 );
+        TaskMock early = new TaskMock( 2, 10 );
+        TaskMock cancelled = new TaskMock( 3, 10 );
+        TaskMock twice = new TaskMock( 4, 100 );
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+
+        long start = System.currentTimeMillis();
+        CompletableFuture<ITaskResult<?>> futureLate = asyncServiceMock.schedule( late,
+                new TimeOutTask( 300, TimeUnit.MILLISECONDS ) );
+        CompletableFuture<ITaskResult<?>> futureEarly = asyncServiceMock.schedule( early,
+                new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        CompletableFuture<ITaskResult<?>> futureCancelled = asyncServiceMock.schedule( cancelled,
+                new TimeOutTask( 200, TimeUnit.MILLISECONDS ) );
+        CompletableFuture<ITaskResult<?>> futureTwice1 = asyncServiceMock.schedule( twice,
+                new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        CompletableFuture<ITaskResult<?>> futureTwice2 = asyncServiceMock.schedule( twice,
+                new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        Assertions.assertEquals( 5, asyncServiceMock.getScheduledCount() );
+        futureCancelled.cancel( false );
+        Assertions.assertEquals( 4, asyncServiceMock.getScheduledCount() );
+        // Nothing is in the FIFO before its time
+        Assertions.assertEquals( 0, asyncServiceMock.getSizeFifo() );
+
+        asyncServiceMock.executorAsynchronously();
+
+        Assertions.assertEquals( 2, futureEarly.get( 2, TimeUnit.SECONDS ).getResult() );
+        Assertions.assertEquals( 1, futureLate.get( 2, TimeUnit.SECONDS ).getResult() );
+        Assertions.assertTrue( early.getStart().getTime() - start >= 100 );
+        Assertions.assertTrue( late.getStart().getTime() - start >= 300 );
+        Assertions.assertEquals( 0, cancelled.getCalls().get() );
+
+        // The second one finds the first one in the FIFO
+        Assertions.assertEquals( 4, futureTwice1.get( 2, TimeUnit.SECONDS ).getResult() );
+        ExecutionException refused = Assertions.assertThrows( ExecutionException.class, futureTwice2::get );
+        Assertions.assertInstanceOf( RejectedExecutionException.class, refused.getCause() );
+        Assertions.assertEquals( 1, twice.getCalls().get() );
+        Assertions.assertThrows( CancellationException.class, futureCancelled::get );
+    }
+
+    /**
+     * Checking the periodic tasks : no overlap, fixed delay and the timers of the service
+     */
+    @Test
+    @Order(420)
+    void periodic_task() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Long> starts = new CopyOnWriteArrayList<>();
+        TaskMock slow = new TaskMock( 1, 150 ) {
+            @Override
+            public Integer call() throws Exception {
+                maxRunning.accumulateAndGet( running.incrementAndGet(), Math::max );
+                try {
+                    return super.call();
+                }
+                finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        TaskMock delayed = new TaskMock( 2, 50 ) {
+            @Override
+            public Integer call() throws Exception {
+                starts.add( System.nanoTime() );
+                return super.call();
+            }
+        };
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 4, null, null );
+
+        // Faster than the task : one run after the other
+        ScheduledTask fixedRate = asyncServiceMock.scheduleAtFixedRate( slow,
+                new TimeOutTask( 0, TimeUnit.MILLISECONDS ), new TimeOutTask( 50, TimeUnit.MILLISECONDS ) );
+        ScheduledTask fixedDelay = asyncServiceMock.scheduleWithFixedDelay( delayed,
+                new TimeOutTask( 0, TimeUnit.MILLISECONDS ), new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        Thread controller = asyncServiceMock.executorAsynchronously();
+        Thread.sleep( 1000 );
+        fixedRate.cancel();
+        fixedDelay.cancel();
+        // The controller stops once the last runs are done
+        controller.join( 5000 );
+        Assertions.assertFalse( controller.isAlive() );
+
+        Assertions.assertEquals( 1, maxRunning.get() );
+        Assertions.assertTrue( slow.getCalls().get() >= 4 && slow.getCalls().get() <= 8, "Runs : " + slow.getCalls() );
+        Assertions.assertEquals( slow.getCalls().get(), fixedRate.getRuns() );
+        for( int i = 1; i < starts.size(); i++ ) {
+            Assertions.assertTrue( starts.get( i ) - starts.get( i - 1 ) >= TimeUnit.MILLISECONDS.toNanos( 150 ) );
+        }
+        Assertions.assertFalse( fixedRate.cancel() );
+        Assertions.assertEquals( 0, asyncServiceMock.getScheduledCount() );
+
+        // The timers of the service apply to each run
+        TaskMock limited = new TaskMock( 3, 10 );
+        AsyncServiceMock limitedService = new AsyncServiceMock( 4,
+                Collections.singletonList( new TimerTask( 1, 300, TimeUnit.MILLISECONDS ) ), null );
+        ScheduledTask everyTenMillis = limitedService.scheduleAtFixedRate( limited,
+                new TimeOutTask( 0, TimeUnit.MILLISECONDS ), new TimeOutTask( 10, TimeUnit.MILLISECONDS ) );
+        Thread limitedController = limitedService.executorAsynchronously();
+        Thread.sleep( 1000 );
+        everyTenMillis.cancel();
+        limitedController.join( 5000 );
+        Assertions.assertTrue( limited.getCalls().get() <= 5, "Runs : " + limited.getCalls() );
+
+        // A run later than its period : the missed runs are not piled up after it
+        List<Long> lateStarts = new CopyOnWriteArrayList<>();
+        TaskMock late = new TaskMock( 4, 300 ) {
+            @Override
+            public Integer call() throws Exception {
+                lateStarts.add( System.nanoTime() );
+                try {
+                    return super.call();
+                }
+                finally {
+                    this.wait = 10;
+                }
+            }
+        };
+        AsyncServiceMock lateService = new AsyncServiceMock( 4, null, null );
+        ScheduledTask everyHundredMillis = lateService.scheduleAtFixedRate( late,
+                new TimeOutTask( 0, TimeUnit.MILLISECONDS ), new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        Thread lateController = lateService.executorAsynchronously();
+        Thread.sleep( 650 );
+        everyHundredMillis.cancel();
+        lateController.join( 5000 );
+        Assertions.assertTrue( lateStarts.size() >= 3, "Runs : " + lateStarts.size() );
+        for( int i = 2; i < lateStarts.size(); i++ ) {
+            Assertions.assertTrue( lateStarts.get( i ) - lateStarts.get( i - 1 ) >= TimeUnit.MILLISECONDS.toNanos( 90 ),
+                    "Run " + i + " after " + ( lateStarts.get( i ) - lateStarts.get( i - 1 ) ) + " ns" );
+        }
+    }
+
+    /**
+     * Checking that a delayed task waiting for room in a full FIFO is journaled once, when it enters the FIFO
+     */
+    @Test
+    @Order(425)
+    void scheduled_task_full_fifo( @TempDir Path directory ) throws Exception {
+        TimeOutTask flush = new TimeOutTask( 5, TimeUnit.MILLISECONDS );
+        try( TaskJournal journal = new TaskJournal( directory, 64 * 1024, flush ) ) {
+            AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null,
+                    new FifoPolicy( 2, OverflowPolicy.BLOCK ) );
+            asyncServiceMock.setJournal( journal );
+            asyncServiceMock.setPersistent( true );
+            Thread controller = asyncServiceMock.executorAsynchronously();
+            asyncServiceMock.addTask( new TaskMock( 1, 300 ) );
+            Thread.sleep( 50 );
+            // The worker is busy : the FIFO is full
+            asyncServiceMock.addTask( new TaskMock( 2, 10 ) );
+            asyncServiceMock.addTask( new TaskMock( 3, 10 ) );
+            CompletableFuture<ITaskResult<?>> delayed = asyncServiceMock.schedule( new TaskMock( 4, 10 ),
+                    new TimeOutTask( 0, TimeUnit.MILLISECONDS ) );
+
+            Assertions.assertEquals( 4, delayed.get( 5, TimeUnit.SECONDS ).getResult() );
+            asyncServiceMock.stop();
+            controller.join( 5000 );
+            Assertions.assertEquals( 0, journal.getPendingTasks() );
+            // One record by task : the next id follows the 4 tasks
+            Assertions.assertEquals( 4, journal.enqueue( new TaskMock( 5 ) ) );
+        }
+    }
+
+    /**
+     * Checking the retries : without a worker during the backoff, the filter of the exceptions and the budget
+     */
+    @Test
+    @Order(430)
+    void retry_failed_task() throws Exception {
+        AtomicInteger failures = new AtomicInteger( 2 );
+        TaskMock flaky = new TaskMock( 1, 10 ) {
+            @Override
+            public Integer call() throws Exception {
+                super.call();
+                if( failures.getAndDecrement() > 0 ) {
+                    throw new IllegalStateException("Downstream unavailable");
+                }
+                return this.getNumber();
+            }
+        };
+        TaskMock fatal = new TaskMock( 2, 10 ) {
+            @Override
+            public Integer call() throws Exception {
+                super.call();
+                throw new IllegalArgumentException("Invalid order");
+            }
+
+            @Override
+            public RetryPolicy getRetryPolicy() {
+                // Its own policy : only an IllegalStateException is retried
+                return new RetryPolicy( 5, new TimeOutTask( 10, TimeUnit.MILLISECONDS ),
+                        new TimeOutTask( 10, TimeUnit.MILLISECONDS ), 2.0,
+                        RetryPolicy.retryOn( IllegalStateException.class ) );
+            }
+        };
+        TaskMock other = new TaskMock( 3, 50 );
+
+        // One worker : the other task runs during the backoff
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+        asyncServiceMock.setRetryPolicy( new RetryPolicy( 3, new TimeOutTask( 200, TimeUnit.MILLISECONDS ),
+                new TimeOutTask( 200, TimeUnit.MILLISECONDS ) ) );
+        CompletableFuture<ITaskResult<?>> futureFlaky = asyncServiceMock.submit( flaky );
+        CompletableFuture<ITaskResult<?>> futureFatal = asyncServiceMock.submit( fatal );
+        CompletableFuture<ITaskResult<?>> futureOther = asyncServiceMock.submit( other );
+        asyncServiceMock.executorAsynchronously();
+
+        Assertions.assertEquals( 1, futureFlaky.get( 5, TimeUnit.SECONDS ).getResult() );
+        Assertions.assertEquals( 3, flaky.getCalls().get() );
+        Assertions.assertTrue( flaky.getEnd().after( other.getEnd() ) );
+        Assertions.assertEquals( 3, futureOther.get().getResult() );
+
+        ExecutionException notRetried = Assertions.assertThrows( ExecutionException.class, futureFatal::get );
+        Assertions.assertInstanceOf( IllegalArgumentException.class, notRetried.getCause() );
+        Assertions.assertEquals( 1, fatal.getCalls().get() );
+
+        MetricsSnapshot snapshot = asyncServiceMock.getMetrics();
+        Assertions.assertEquals( 2, snapshot.getRetries() );
+        Assertions.assertEquals( 1, snapshot.getFailed() );
+
+        // The budget is spent : the next failure is final
+        TaskMock failing = new TaskMock( 4, 10 ) {
+            @Override
+            public Integer call() throws Exception {
+                super.call();
+                throw new IllegalStateException("Downstream unavailable");
+            }
+        };
+        AsyncServiceMock budgetService = new AsyncServiceMock( 1, null, null );
+        budgetService.setRetryPolicy( new RetryPolicy( 10, new TimeOutTask( 10, TimeUnit.MILLISECONDS ),
+                new TimeOutTask( 10, TimeUnit.MILLISECONDS ) ) );
+        budgetService.setRetryBudget( new RetryBudget( 0.0, 2 ) );
+        CompletableFuture<ITaskResult<?>> futureFailing = budgetService.submit( failing );
+        budgetService.executorAsynchronously();
+
+        Assertions.assertThrows( ExecutionException.class, () -> futureFailing.get( 5, TimeUnit.SECONDS ) );
+        Assertions.assertEquals( 3, failing.getCalls().get() );
+        Assertions.assertEquals( 2, budgetService.getMetrics().getRetries() );
+        Assertions.assertEquals( 1, budgetService.getMetrics().getRetriesRefused() );
+    }
+
+    /**
+     * Checking that the record of a retried task stays open in the journal until its last attempt
+     */
+    @Test
+    @Order(440)
+    void retry_journaled_task( @TempDir Path directory ) throws Exception {
+        TimeOutTask flush = new TimeOutTask( 5, TimeUnit.MILLISECONDS );
+        try( TaskJournal journal = new TaskJournal( directory, 64 * 1024, flush ) ) {
+            AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+            asyncServiceMock.setJournal( journal );
+            asyncServiceMock.setRetryPolicy( new RetryPolicy( 2, new TimeOutTask( 500, TimeUnit.MILLISECONDS ),
+                    new TimeOutTask( 500, TimeUnit.MILLISECONDS ) ) );
+            CompletableFuture<ITaskResult<?>> future = asyncServiceMock.submit( new FlakyTask( 1, 1 ) );
+            Assertions.assertEquals( 1, journal.getPendingTasks() );
+            asyncServiceMock.executorAsynchronously();
+
+            // During the backoff : a crash now replays the task
+            long deadline = System.currentTimeMillis() + 5000;
+            while( asyncServiceMock.getMetrics().getRetries() == 0 && System.currentTimeMillis() < deadline ) {
+                Thread.sleep( 5 );
+            }
+            Assertions.assertEquals( 1, asyncServiceMock.getMetrics().getRetries() );
+            Assertions.assertFalse( future.isDone() );
+            Assertions.assertEquals( 1, journal.getPendingTasks() );
+
+            Assertions.assertEquals( 1, future.get( 5, TimeUnit.SECONDS ).getResult() );
+            Assertions.assertEquals( 0, journal.getPendingTasks() );
+        }
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * Fails its first calls ( serializable, unlike an anonymous task of this class )
+     */
+    private static final class FlakyTask extends TaskMock {
+
+        private static final long serialVersionUID = 1L;
+
+        private int failures;
+
+        FlakyTask( Integer number, int failures ) {
+            super( number, 10 );
+            this.failures = failures;
+        }
+
+        @Override
+        public Integer call() throws Exception {
+            super.call();
+            if( this.failures-- > 0 ) {
+                throw new IllegalStateException("Downstream unavailable");
+            }
+            return this.getNumber();
+        }
+    }
 
 }
@@ -0,0 +1,60 @@
+package com.jr.core;
+
+
+import com.jr.core.service.async.LatencyHistogram;
+import com.jr.core.service.async.LatencySnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+
+class LatencyHistogramTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void percentiles()
+    {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        Assertions.assertEquals( 0, latencyHistogram.snapshot().getCount() );
+
+        // 1 .. 1000 µs
+        for( int i = 1; i <= 1000; i++ ) {
+            latencyHistogram.record( i * 1000L );
+        }
+
+        LatencySnapshot snapshot = latencyHistogram.snapshot();
+        Assertions.assertEquals( 1000, snapshot.getCount() );
+        Assertions.assertEquals( 500_500, snapshot.getMeanNanos() );
+        Assertions.assertEquals( 1_000_000, snapshot.getMaxNanos() );
+        // Error below 25 %, never below the real value
+        assertNear( 500_000, snapshot.getP50Nanos() );
+        assertNear( 900_000, snapshot.getP90Nanos() );
+        assertNear( 990_000, snapshot.getP99Nanos() );
+        Assertions.assertTrue( snapshot.getP999Nanos() <= snapshot.getMaxNanos() );
+    }
+
+    @Test
+    void extremeValues()
+    {
+        LatencyHistogram latencyHistogram = new LatencyHistogram();
+        latencyHistogram.record( -5 );
+        latencyHistogram.record( 0 );
+        latencyHistogram.record( Long.MAX_VALUE );
+
+        LatencySnapshot snapshot = latencyHistogram.snapshot();
+        Assertions.assertEquals( 3, snapshot.getCount() );
+        Assertions.assertEquals( 0, snapshot.getP50Nanos() );
+        Assertions.assertEquals( Long.MAX_VALUE, snapshot.getMaxNanos() );
+        Assertions.assertEquals( Long.MAX_VALUE, snapshot.getP999Nanos() );
+    }
+
+    private static void assertNear( long expected, long actual )
+    {
+        Assertions.assertTrue( actual >= expected && actual <= expected * 1.25,
+                String.format( "Expected about %s, was %s", expected, actual ) );
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.jr.core;
+
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.jr.core.common.logs.LazyLog;
+import com.jr.core.common.logs.LogUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+
+import static com.jr.core.common.async.CoreAsyncNameSpace.EXECUTE;
+import static com.jr.core.common.async.CoreAsyncNameSpace.FIFO_CONTROLLER;
+
+
+class LazyLogTest {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private Logger logger;
+    private ListAppender<ILoggingEvent> appender;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @BeforeEach
+    void setUp()
+    {
+        this.logger     = (Logger) LoggerFactory.getLogger( LazyLogTest.class );
+        this.appender   = new ListAppender<>();
+        this.appender.start();
+        this.logger.addAppender( this.appender );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        this.logger.detachAppender( this.appender );
+    }
+
+    @Test
+    void sameLineAsLogUtil()
+    {
+        String summary = "A summary longer than the eighty characters of the summary, with a line\nbreak, cut at the end";
+        Exception exception = new IllegalStateException( "outer", new IllegalArgumentException( "inner\r\nmessage" ) );
+
+        LazyLog.log( this.logger, Level.WARN, FIFO_CONTROLLER, "EXECUTE", summary, null );
+        LazyLog.log( this.logger, Level.WARN, FIFO_CONTROLLER, EXECUTE, summary, null,
+                "Commande : {} - Durée max : {}", "task\n1", 500L );
+        LazyLog.log( this.logger, Level.WARN, FIFO_CONTROLLER, EXECUTE, summary, exception, "Commande : {}", "task" );
+        LazyLog.log( this.logger, Level.WARN, FIFO_CONTROLLER, EXECUTE, summary, exception );
+
+        Assertions.assertEquals( 4, this.appender.list.size() );
+        Assertions.assertEquals( LogUtil.format( FIFO_CONTROLLER, "EXECUTE", summary ),
+                this.appender.list.get( 0 ).getFormattedMessage() );
+        Assertions.assertEquals( LogUtil.format( FIFO_CONTROLLER, EXECUTE, summary, "Commande : task\n1 - Durée max : 500" ),
+                this.appender.list.get( 1 ).getFormattedMessage() );
+        Assertions.assertEquals( LogUtil.format( FIFO_CONTROLLER, EXECUTE, summary, "Commande : task", exception ),
+                this.appender.list.get( 2 ).getFormattedMessage() );
+        Assertions.assertEquals( LogUtil.format( FIFO_CONTROLLER, EXECUTE, summary, exception ),
+                this.appender.list.get( 3 ).getFormattedMessage() );
+    }
+
+    @Test
+    void disabledLevelIsNotRendered()
+    {
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError( "Rendered while the level is disabled" );
+            }
+        };
+
+        LazyLog.log( this.logger, Level.DEBUG, FIFO_CONTROLLER, EXECUTE, "Execute the order", null, "{}", argument );
+        LazyLog.log( this.logger, Level.TRACE, FIFO_CONTROLLER, EXECUTE, "Execute the order", null, "{} ns", 10L );
+
+        Assertions.assertTrue( this.appender.list.isEmpty() );
+    }
+
+    @Test
+    void nestedLogInArgument()
+    {
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                LazyLog.log( logger, Level.INFO, FIFO_CONTROLLER, EXECUTE, "nested", null );
+                return "outer argument";
+            }
+        };
+
+        LazyLog.log( this.logger, Level.INFO, FIFO_CONTROLLER, EXECUTE, "outer", null, "{} / {}", argument, "end" );
+
+        Assertions.assertEquals( 2, this.appender.list.size() );
+        Assertions.assertEquals( LogUtil.format( FIFO_CONTROLLER, EXECUTE, "nested" ),
+                this.appender.list.get( 0 ).getFormattedMessage() );
+        Assertions.assertEquals( LogUtil.format( FIFO_CONTROLLER, EXECUTE, "outer", "outer argument / end" ),
+                this.appender.list.get( 1 ).getFormattedMessage() );
+    }
+
+}
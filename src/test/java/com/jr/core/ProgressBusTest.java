@@ -0,0 +1,177 @@
+package com.jr.core;
+
+
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.common.async.AddTaskStatus;
+import com.jr.core.common.async.OverflowPolicy;
+import com.jr.core.mock.AsyncServiceMock;
+import com.jr.core.mock.TaskMock;
+import com.jr.core.service.async.FifoPolicy;
+import com.jr.core.service.async.ProgressBus;
+import com.jr.core.service.async.TimeOutTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+class ProgressBusTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void coalesced() {
+        ProgressBus bus = new ProgressBus( new TimeOutTask( 1, TimeUnit.HOURS ) );
+        TaskMock task1 = new TaskMock( 1 );
+        TaskMock task2 = new TaskMock( 2 );
+        List<PropertyChangeEvent> all = new CopyOnWriteArrayList<>();
+        List<PropertyChangeEvent> ofTask1 = new CopyOnWriteArrayList<>();
+        bus.addListener( all::add );
+        bus.addListener( task1, ofTask1::add );
+
+        for( int percent = 1; percent <= 50; percent++ ) {
+            bus.publish( task1, percent - 1, percent );
+        }
+        bus.publish( task2, 0, 10 );
+        Assertions.assertEquals( 2, bus.getPending() );
+
+        bus.flush();
+        // Only the last percent of each task, from the first old value
+        Assertions.assertEquals( 2, all.size() );
+        Assertions.assertEquals( 1, ofTask1.size() );
+        Assertions.assertSame( task1, ofTask1.get( 0 ).getSource() );
+        Assertions.assertEquals( "percent", ofTask1.get( 0 ).getPropertyName() );
+        Assertions.assertEquals( 0, ofTask1.get( 0 ).getOldValue() );
+        Assertions.assertEquals( 50, ofTask1.get( 0 ).getNewValue() );
+        Assertions.assertEquals( 0, bus.getPending() );
+    }
+
+    @Test
+    void maxRate() throws InterruptedException {
+        ProgressBus bus = new ProgressBus( new TimeOutTask( 100, TimeUnit.MILLISECONDS ) );
+        TaskMock task = new TaskMock( 1 );
+        List<Integer> percents = new CopyOnWriteArrayList<>();
+        bus.addListener( task, event -> percents.add( (Integer) event.getNewValue() ) );
+
+        // 100 updates in about 500 ms
+        for( int percent = 1; percent <= 100; percent++ ) {
+            bus.publish( task, percent - 1, percent );
+            Thread.sleep( 5 );
+        }
+        Thread.sleep( 250 );
+
+        Assertions.assertTrue( percents.size() <= 10, "Events : " + percents );
+        Assertions.assertEquals( 100, percents.get( percents.size() - 1 ) );
+        for( int i = 1; i < percents.size(); i++ ) {
+            Assertions.assertTrue( percents.get( i ) > percents.get( i - 1 ) );
+        }
+    }
+
+    @Test
+    void slowListener() throws InterruptedException {
+        ProgressBus bus = new ProgressBus( new TimeOutTask( 10, TimeUnit.MILLISECONDS ) );
+        TaskMock task = new TaskMock( 1 );
+        CountDownLatch delivered = new CountDownLatch( 1 );
+        bus.addListener( event -> {
+            try {
+                Thread.sleep( 500 );
+            }
+            catch ( InterruptedException ex ) {
+                Thread.currentThread().interrupt();
+            }
+            delivered.countDown();
+        });
+
+        // The worker never waits for the listener
+        long start = System.nanoTime();
+        for( int percent = 1; percent <= 100; percent++ ) {
+            bus.publish( task, percent - 1, percent );
+        }
+        Assertions.assertTrue( System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos( 200 ) );
+        Assertions.assertTrue( delivered.await( 2, TimeUnit.SECONDS ) );
+    }
+
+    @Test
+    void removeListener() {
+        ProgressBus bus = new ProgressBus( new TimeOutTask( 1, TimeUnit.HOURS ) );
+        TaskMock task = new TaskMock( 1 );
+        List<PropertyChangeEvent> events = new CopyOnWriteArrayList<>();
+        PropertyChangeListener listener = events::add;
+        bus.addListener( task, listener );
+        bus.removeListener( task, listener );
+
+        // Nobody listens : nothing is kept
+        bus.publish( task, 0, 10 );
+        Assertions.assertEquals( 0, bus.getPending() );
+        bus.flush();
+        Assertions.assertTrue( events.isEmpty() );
+    }
+
+    @Test
+    void ended() {
+        ProgressBus bus = new ProgressBus( new TimeOutTask( 1, TimeUnit.HOURS ) );
+        TaskMock task1 = new TaskMock( 1 );
+        TaskMock task2 = new TaskMock( 2 );
+        List<PropertyChangeEvent> events = new CopyOnWriteArrayList<>();
+        bus.addListener( task1, events::add );
+        bus.addListener( task2, events::add );
+
+        // The last event of an ended task is still delivered
+        bus.publish( task1, 0, 100 );
+        bus.ended( task1 );
+        Assertions.assertTrue( bus.hasListeners( task1 ) );
+        bus.flush();
+        Assertions.assertEquals( 1, events.size() );
+        Assertions.assertFalse( bus.hasListeners( task1 ) );
+
+        // Nothing pending : dropped at once
+        bus.ended( task2 );
+        Assertions.assertFalse( bus.hasListeners( task2 ) );
+    }
+
+    @Test
+    void endedByService() throws Exception {
+        TaskMock task = new TaskMock( 1, 10 );
+        task.addPropertyChangeListener( event -> {} );
+        Assertions.assertTrue( ProgressBus.getDefault().hasListeners( task ) );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+        CompletableFuture<ITaskResult<?>> future = asyncServiceMock.submit( task );
+        asyncServiceMock.executorAsynchronously();
+        future.get( 5, TimeUnit.SECONDS );
+
+        Assertions.assertFalse( ProgressBus.getDefault().hasListeners( task ) );
+    }
+
+    @Test
+    void refusedByService() throws InterruptedException {
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( 1, OverflowPolicy.REJECT ) );
+        TaskMock waiting = new TaskMock( 1, 10 );
+        TaskMock rejected = new TaskMock( 2, 10 );
+        waiting.addPropertyChangeListener( event -> {} );
+        rejected.addPropertyChangeListener( event -> {} );
+        Assertions.assertEquals( AddTaskStatus.ACCEPTED, asyncServiceMock.offerTask( waiting ) );
+
+        // The FIFO is full : dropped
+        Assertions.assertEquals( AddTaskStatus.REJECTED, asyncServiceMock.offerTask( rejected ) );
+        Assertions.assertFalse( ProgressBus.getDefault().hasListeners( rejected ) );
+        // A duplicate : the listeners of the waiting task are kept
+        Assertions.assertEquals( AddTaskStatus.DUPLICATE, asyncServiceMock.offerTask( waiting ) );
+        Assertions.assertTrue( asyncServiceMock.submit( waiting ).isCompletedExceptionally() );
+        Assertions.assertTrue( ProgressBus.getDefault().hasListeners( waiting ) );
+
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+        Assertions.assertFalse( ProgressBus.getDefault().hasListeners( waiting ) );
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.jr.core;
+
+
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.api.async.Task;
+import com.jr.core.common.async.TaskResultStatus;
+import com.jr.core.mock.AsyncServiceMock;
+import com.jr.core.mock.TaskMock;
+import com.jr.core.service.async.RemoteCoordinator;
+import com.jr.core.service.async.RemoteWorker;
+import com.jr.core.service.async.TimeOutTask;
+import com.jr.core.service.async.TimerTask;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+class RemoteWorkerTest {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final TimeOutTask HEARTBEAT = new TimeOutTask( 50, TimeUnit.MILLISECONDS );
+    private static final byte[] SECRET = "a secret shared by the test".getBytes( StandardCharsets.UTF_8 );
+
+    private RemoteCoordinator coordinator;
+    private final List<RemoteWorker> workers = new ArrayList<>();
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @BeforeEach
+    void setUp() throws Exception
+    {
+        this.coordinator = new RemoteCoordinator( 0, new TimeOutTask( 300, TimeUnit.MILLISECONDS ), SECRET );
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        for( RemoteWorker worker : this.workers ) {
+            worker.close();
+        }
+        this.coordinator.close();
+    }
+
+    /**
+     * Checking that the tasks are spread over the workers, the timers still apply
+     */
+    @Test
+    void spread_over_workers() throws Exception {
+        for( int i = 0; i < 3; i++ ) {
+            this.connect( 2, HEARTBEAT );
+        }
+        this.awaitWorkers( 3 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 10,
+                Collections.singletonList( new TimerTask( 4, 200, TimeUnit.MILLISECONDS ) ), null );
+        asyncServiceMock.setRemoteCoordinator( this.coordinator );
+        List<CompletableFuture<ITaskResult<?>>> futures = new ArrayList<>();
+        for( int i = 0; i < 12; i++ ) {
+            futures.add( asyncServiceMock.submit( new TaskMock( i, 50 ) ) );
+        }
+
+        long start = System.nanoTime();
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+
+        for( int i = 0; i < futures.size(); i++ ) {
+            ITaskResult<?> result = futures.get( i ).get( 1, TimeUnit.SECONDS );
+            Assertions.assertEquals( TaskResultStatus.OK, result.getTaskResultStatus() );
+            Assertions.assertEquals( i, result.getResult() );
+        }
+        for( RemoteWorker worker : this.workers ) {
+            Assertions.assertTrue( worker.getExecuted() > 0 );
+        }
+        // 4 tasks by 200 ms : 12 tasks in 3 windows at least
+        Assertions.assertTrue( elapsedMillis >= 400, "Elapsed : " + elapsedMillis );
+        Assertions.assertEquals( 12, this.coordinator.getLeased() );
+        Assertions.assertEquals( 12, asyncServiceMock.getMetrics().getCompleted() );
+    }
+
+    /**
+     * Checking that the maximum execution time is enforced by the coordinator
+     */
+    @Test
+    void deadline() throws Exception {
+        this.connect( 1, HEARTBEAT );
+        this.awaitWorkers( 1 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null,
+                new TimeOutTask( 200, TimeUnit.MILLISECONDS ) );
+        asyncServiceMock.setRemoteCoordinator( this.coordinator );
+        CompletableFuture<ITaskResult<?>> slow = asyncServiceMock.submit( new TaskMock( 1, 2000 ) );
+        CompletableFuture<ITaskResult<?>> next = asyncServiceMock.submit( new TaskMock( 2, 10 ) );
+
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+
+        ExecutionException ex = Assertions.assertThrows( ExecutionException.class,
+                () -> slow.get( 1, TimeUnit.SECONDS ) );
+        Assertions.assertTrue( ex.getCause() instanceof TimeoutException );
+        // The slot is free again once the worker has stopped the task
+        Assertions.assertEquals( 2, next.get( 1, TimeUnit.SECONDS ).getResult() );
+        Assertions.assertEquals( 1, asyncServiceMock.getMetrics().getTimeOuts() );
+    }
+
+    /**
+     * Checking that the tasks of a silent worker are leased again to the other workers
+     */
+    @Test
+    void lease_expired() throws Exception {
+        // Never sends a heartbeat before the end of the test
+        RemoteWorker silent = this.connect( 2, new TimeOutTask( 1, TimeUnit.HOURS ) );
+        this.awaitWorkers( 1 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 4, null, null );
+        asyncServiceMock.setRemoteCoordinator( this.coordinator );
+        List<CompletableFuture<ITaskResult<?>>> futures = new ArrayList<>();
+        for( int i = 0; i < 2; i++ ) {
+            futures.add( asyncServiceMock.submit( new TaskMock( i, 1000 ) ) );
+        }
+        Thread controller = asyncServiceMock.executorAsynchronously();
+
+        Thread.sleep( 100 );
+        RemoteWorker healthy = this.connect( 2, HEARTBEAT );
+        controller.join( 5000 );
+
+        for( int i = 0; i < futures.size(); i++ ) {
+            Assertions.assertEquals( i, futures.get( i ).get( 1, TimeUnit.SECONDS ).getResult() );
+        }
+        Assertions.assertTrue( silent.isClosed() || this.coordinator.getWorkers() == 1 );
+        Assertions.assertEquals( 2, this.coordinator.getRequeued() );
+        Assertions.assertEquals( 2, healthy.getExecuted() );
+    }
+
+    /**
+     * Checking that a peer without the secret is refused before any frame
+     */
+    @Test
+    void wrong_secret() throws Exception {
+        byte[] other = "another secret for the test".getBytes( StandardCharsets.UTF_8 );
+        Assertions.assertThrows( IOException.class,
+                () -> new RemoteWorker( "localhost", this.coordinator.getPort(), 1, HEARTBEAT, other ) );
+        Assertions.assertEquals( 0, this.coordinator.getWorkers() );
+        Assertions.assertThrows( IllegalArgumentException.class,
+                () -> new RemoteCoordinator( 0, HEARTBEAT, new byte[ 4 ] ) );
+    }
+
+    /**
+     * Checking that a value that cannot be sent back fails its task
+     */
+    @Test
+    void value_not_serializable() throws Exception {
+        this.connect( 1, HEARTBEAT );
+        this.awaitWorkers( 1 );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+        asyncServiceMock.setRemoteCoordinator( this.coordinator );
+        CompletableFuture<ITaskResult<?>> future = asyncServiceMock.submit( new CustomValueTask() );
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+
+        ExecutionException ex = Assertions.assertThrows( ExecutionException.class,
+                () -> future.get( 1, TimeUnit.SECONDS ) );
+        Assertions.assertTrue( ex.getCause() instanceof NotSerializableException );
+        Assertions.assertEquals( CustomValue.class.getName(), ex.getCause().getMessage() );
+    }
+
+    private RemoteWorker connect( int slots, TimeOutTask heartbeat ) throws Exception
+    {
+        RemoteWorker worker = new RemoteWorker( "localhost", this.coordinator.getPort(), slots, heartbeat, SECRET );
+        this.workers.add( worker );
+        return worker;
+    }
+
+    private void awaitWorkers( int count ) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 2000;
+        while( this.coordinator.getWorkers() < count && System.currentTimeMillis() < deadline ) {
+            Thread.sleep( 5 );
+        }
+        Assertions.assertEquals( count, this.coordinator.getWorkers() );
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * Serializable, but not a value type of the JDK
+     */
+    private static final class CustomValue implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static final class CustomValueTask extends Task<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Object call() {
+            return new CustomValue();
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.jr.core;
+
+
+import com.jr.core.service.async.RetryBudget;
+import com.jr.core.service.async.RetryPolicy;
+import com.jr.core.service.async.TimeOutTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+
+class RetryPolicyTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos( 1 );
+
+    @Test
+    void exponentialBackoffWithJitter() {
+        RetryPolicy policy = new RetryPolicy( 10, new TimeOutTask( 100, TimeUnit.MILLISECONDS ),
+                new TimeOutTask( 1, TimeUnit.SECONDS ) );
+
+        for( int i = 0; i < 100; i++ ) {
+            // Between half and all of 100, 200, 400, 800, then 1000 ms
+            assertBetween( 50 * MILLI, 100 * MILLI, policy.getBackoffNanos( 1 ) );
+            assertBetween( 100 * MILLI, 200 * MILLI, policy.getBackoffNanos( 2 ) );
+            assertBetween( 200 * MILLI, 400 * MILLI, policy.getBackoffNanos( 3 ) );
+            assertBetween( 400 * MILLI, 800 * MILLI, policy.getBackoffNanos( 4 ) );
+            assertBetween( 500 * MILLI, 1000 * MILLI, policy.getBackoffNanos( 9 ) );
+        }
+    }
+
+    @Test
+    void retryableExceptions() {
+        RetryPolicy policy = new RetryPolicy( 3, new TimeOutTask( 10, TimeUnit.MILLISECONDS ),
+                new TimeOutTask( 10, TimeUnit.MILLISECONDS ), 2.0, RetryPolicy.retryOn( IOException.class ) );
+
+        Assertions.assertTrue( policy.canRetry( 1, new IOException() ) );
+        Assertions.assertTrue( policy.canRetry( 2, new java.net.SocketTimeoutException() ) );
+        // The last attempt
+        Assertions.assertFalse( policy.canRetry( 3, new IOException() ) );
+        Assertions.assertFalse( policy.canRetry( 1, new IllegalArgumentException() ) );
+
+        // By default all the exceptions, not the errors of the JVM
+        RetryPolicy all = new RetryPolicy( 3, new TimeOutTask( 10, TimeUnit.MILLISECONDS ),
+                new TimeOutTask( 10, TimeUnit.MILLISECONDS ) );
+        Assertions.assertTrue( all.canRetry( 1, new IllegalStateException() ) );
+        Assertions.assertFalse( all.canRetry( 1, new OutOfMemoryError() ) );
+
+        Assertions.assertThrows( IllegalArgumentException.class, () -> new RetryPolicy( 0,
+                new TimeOutTask( 10, TimeUnit.MILLISECONDS ), new TimeOutTask( 10, TimeUnit.MILLISECONDS ) ) );
+    }
+
+    @Test
+    void budget() {
+        RetryBudget budget = new RetryBudget( 0.25, 2 );
+
+        // The reserve first
+        Assertions.assertTrue( budget.tryWithdraw() );
+        Assertions.assertTrue( budget.tryWithdraw() );
+        Assertions.assertFalse( budget.tryWithdraw() );
+
+        // Then one retry by 4 tasks
+        for( int i = 0; i < 3; i++ ) {
+            budget.deposit();
+            Assertions.assertFalse( budget.tryWithdraw() );
+        }
+        budget.deposit();
+        Assertions.assertTrue( budget.tryWithdraw() );
+
+        // Never more than the reserve
+        for( int i = 0; i < 100; i++ ) {
+            budget.deposit();
+        }
+        Assertions.assertEquals( 2.0, budget.getBalance() );
+    }
+
+    private static void assertBetween( long min, long max, long value ) {
+        Assertions.assertTrue( value >= min && value <= max, value + " not in [" + min + ", " + max + "]" );
+    }
+
+}
@@ -0,0 +1,195 @@
+package com.jr.core;
+
+
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.api.async.SplittableTask;
+import com.jr.core.common.async.TaskResultStatus;
+import com.jr.core.mock.AsyncServiceMock;
+import com.jr.core.mock.SumTaskMock;
+import com.jr.core.service.async.ProgressBus;
+import com.jr.core.service.async.TimeOutTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+class SplittableTaskTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void splitAndMerge() throws Exception
+    {
+        List<Integer> percents = new CopyOnWriteArrayList<>();
+        SumTaskMock task = new SumTaskMock( 0, 2_000_000, 10_000 );
+        task.addPropertyChangeListener( event -> percents.add( (Integer) event.getNewValue() ) );
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        try {
+            task.setPool( pool );
+            Assertions.assertEquals( 1_999_999L * 2_000_000L / 2, task.call() );
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals( TaskResultStatus.OK, task.getStatus() );
+        Assertions.assertEquals( 100, task.getPercent() );
+        // The progress of the leaves is rolled up, it only increases ( the events are coalesced )
+        ProgressBus.getDefault().flush();
+        Assertions.assertFalse( percents.isEmpty() );
+        Assertions.assertEquals( 100, percents.get( percents.size() - 1 ) );
+        for( int i = 1; i < percents.size(); i++ ) {
+            Assertions.assertTrue( percents.get( i ) > percents.get( i - 1 ) );
+        }
+    }
+
+    @Test
+    void failureOfSubtask()
+    {
+        SumTaskMock task = new SumTaskMock( 0, 100_000, 1_000, 54_321, 0 );
+
+        IllegalStateException ex = Assertions.assertThrows( IllegalStateException.class, task::call );
+        Assertions.assertEquals( "Fail at 54321", ex.getMessage() );
+        Assertions.assertEquals( TaskResultStatus.ERROR, task.getStatus() );
+    }
+
+    @Test
+    void timeOutOfTheService() throws Exception
+    {
+        // 16 leaves of 200 ms, the service allows 300 ms
+        SumTaskMock task = new SumTaskMock( 0, 16_000, 1_000, -1, 200 );
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null,
+                new TimeOutTask( 300, TimeUnit.MILLISECONDS ) );
+
+        CompletableFuture<ITaskResult<?>> future = asyncServiceMock.submit( task );
+        asyncServiceMock.executorAsynchronously().join( 5000 );
+
+        ExecutionException ex = Assertions.assertThrows( ExecutionException.class,
+                () -> future.get( 1, TimeUnit.SECONDS ) );
+        Assertions.assertTrue( ex.getCause() instanceof TimeoutException );
+        Assertions.assertEquals( TaskResultStatus.CANCEL, task.getStatus() );
+    }
+
+    @Test
+    void defaultWeights() throws Exception
+    {
+        // 2 parts of 2 leaves : a leaf done is a quarter of the root
+        CountDownLatch release = new CountDownLatch( 1 );
+        TreeTask task = new TreeTask( 2, 0, release, false );
+        ForkJoinPool pool = new ForkJoinPool( 4 );
+        try {
+            task.setPool( pool );
+            AtomicReference<Object> value = new AtomicReference<>();
+            Thread root = new Thread( () -> {
+                try {
+                    value.set( task.call() );
+                }
+                catch ( Exception ex ) {
+                    value.set( ex );
+                }
+            });
+            root.start();
+            long deadline = System.currentTimeMillis() + 5000;
+            while( task.getPercent() == 0 && System.currentTimeMillis() < deadline ) {
+                Thread.sleep( 5 );
+            }
+            Thread.sleep( 50 );
+            Assertions.assertEquals( 25, task.getPercent() );
+
+            release.countDown();
+            root.join( 5000 );
+            Assertions.assertEquals( 4, value.get() );
+            Assertions.assertEquals( 100, task.getPercent() );
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void errorOfSubtask()
+    {
+        CountDownLatch released = new CountDownLatch( 0 );
+        TreeTask task = new TreeTask( 2, 0, released, true );
+
+        // The error itself, not the ExecutionException of the pool
+        AssertionError error = Assertions.assertThrows( AssertionError.class, task::call );
+        Assertions.assertEquals( "Leaf 3", error.getMessage() );
+        Assertions.assertEquals( TaskResultStatus.ERROR, task.getStatus() );
+    }
+
+    // --------------------------------------
+    // -        Classes                     -
+    // --------------------------------------
+
+    /**
+     * A binary tree of leaves counting 1, with the default weights : the first leaf ends at once, the others wait
+     */
+    private static final class TreeTask extends SplittableTask<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int depth;
+        private final int index;
+        private final transient CountDownLatch release;
+        // The last leaf throws an Error
+        private final boolean error;
+
+        TreeTask( int depth, int index, CountDownLatch release, boolean error )
+        {
+            this.depth      = depth;
+            this.index      = index;
+            this.release    = release;
+            this.error      = error;
+        }
+
+        @Override
+        protected List<TreeTask> split()
+        {
+            if( this.depth == 0 ) {
+                return null;
+            }
+            List<TreeTask> parts = new ArrayList<>( 2 );
+            for( int i = 0; i < 2; i++ ) {
+                parts.add( new TreeTask( this.depth - 1, this.index * 2 + i, this.release, this.error ) );
+            }
+            return parts;
+        }
+
+        @Override
+        protected Integer compute() throws Exception
+        {
+            if( this.error && this.index == 3 ) {
+                throw new AssertionError( "Leaf " + this.index );
+            }
+            if( this.index > 0 ) {
+                this.release.await( 5, TimeUnit.SECONDS );
+            }
+            return 1;
+        }
+
+        @Override
+        protected Integer merge( List<Integer> results )
+        {
+            int sum = 0;
+            for( Integer result : results ) {
+                sum += result;
+            }
+            return sum;
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.jr.core;
+
+
+import com.jr.core.api.async.ITask;
+import com.jr.core.api.async.ITaskResult;
+import com.jr.core.common.async.OverflowPolicy;
+import com.jr.core.mock.AsyncServiceMock;
+import com.jr.core.mock.TaskMock;
+import com.jr.core.service.async.FifoPolicy;
+import com.jr.core.service.async.TaskGraph;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+
+class TaskGraphTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    /**
+     * a -> ( b, c ) -> d : b and c in parallel, d after both
+     */
+    @Test
+    void diamond() throws Exception {
+        TaskMock a = new TaskMock( 1, 50 );
+        TaskMock b = new TaskMock( 2, 200 );
+        TaskMock c = new TaskMock( 3, 100 );
+        TaskMock d = new TaskMock( 4, 50 );
+        TaskGraph<ITask<?>> graph = new TaskGraph<ITask<?>>()
+                .add( a )
+                .add( b, a )
+                .add( c, a )
+                .add( d, Arrays.asList( b, c ) );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+        CompletableFuture<List<ITaskResult<?>>> future = asyncServiceMock.submitGraph( graph );
+        asyncServiceMock.executorAsynchronously();
+
+        List<ITaskResult<?>> results = future.get( 5, TimeUnit.SECONDS );
+        Assertions.assertEquals( 4, results.size() );
+        for( int i = 0; i < 4; i++ ) {
+            Assertions.assertEquals( i + 1, results.get( i ).getResult() );
+        }
+        Assertions.assertFalse( b.getStart().before( a.getEnd() ) );
+        Assertions.assertFalse( c.getStart().before( a.getEnd() ) );
+        // b and c in parallel
+        Assertions.assertTrue( c.getStart().before( b.getEnd() ) );
+        Assertions.assertFalse( d.getStart().before( b.getEnd() ) );
+        Assertions.assertFalse( d.getStart().before( c.getEnd() ) );
+        Assertions.assertSame( results.get( 3 ), graph.getResult( d ).get() );
+    }
+
+    /**
+     * With one worker, the root of the longest chain runs first
+     */
+    @Test
+    void criticalPathFirst() throws Exception {
+        TaskMock alone = new TaskMock( 1, 50 );
+        TaskMock head = new TaskMock( 2, 50 );
+        TaskMock tail = new TaskMock( 3, 50 );
+        TaskGraph<ITask<?>> graph = new TaskGraph<ITask<?>>()
+                .add( alone )
+                .add( head, 1, Collections.emptyList() )
+                .add( tail, 5, Collections.singletonList( head ) );
+        Assertions.assertEquals( List.of( head, tail ), graph.getCriticalPath() );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+        CompletableFuture<List<ITaskResult<?>>> future = asyncServiceMock.submitGraph( graph );
+        asyncServiceMock.executorAsynchronously();
+        future.get( 5, TimeUnit.SECONDS );
+
+        Assertions.assertFalse( alone.getStart().before( head.getEnd() ) );
+    }
+
+    /**
+     * A failure cancels the dependents, the other branch goes on
+     */
+    @Test
+    void failureCancelsDependents() throws Exception {
+        TaskMock failing = new TaskMock( 1, 10 ) {
+            @Override
+            public Integer call() throws Exception {
+                super.call();
+                throw new IllegalStateException("Failure of the task");
+            }
+        };
+        TaskMock child = new TaskMock( 2, 10 );
+        TaskMock grandChild = new TaskMock( 3, 10 );
+        TaskMock other = new TaskMock( 4, 100 );
+        TaskGraph<ITask<?>> graph = new TaskGraph<ITask<?>>()
+                .add( failing )
+                .add( child, failing )
+                .add( grandChild, child )
+                .add( other );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 2, null, null );
+        CompletableFuture<List<ITaskResult<?>>> future = asyncServiceMock.submitGraph( graph );
+        asyncServiceMock.executorAsynchronously();
+
+        ExecutionException failure = Assertions.assertThrows( ExecutionException.class,
+                () -> future.get( 5, TimeUnit.SECONDS ) );
+        Assertions.assertInstanceOf( IllegalStateException.class, failure.getCause() );
+
+        // Never executed
+        Assertions.assertThrows( CancellationException.class, () -> graph.getResult( grandChild ).get() );
+        Assertions.assertEquals( 0, child.getCalls().get() );
+        Assertions.assertEquals( 0, grandChild.getCalls().get() );
+        // The graph completes when the other branch is done
+        Assertions.assertEquals( 4, graph.getResult( other ).get().getResult() );
+    }
+
+    /**
+     * The children are released by the worker of their parent : with one worker and a FIFO of one place, the worker
+     * never waits for room ( nothing would empty the FIFO )
+     */
+    @Test
+    void fanOutWithFullFifo() throws Exception {
+        TaskMock root = new TaskMock( 0, 10 );
+        TaskGraph<ITask<?>> graph = new TaskGraph<ITask<?>>().add( root );
+        List<ITask<?>> children = new ArrayList<>();
+        for( int i = 1; i <= 5; i++ ) {
+            TaskMock child = new TaskMock( i, 10 );
+            graph.add( child, root );
+            children.add( child );
+        }
+        graph.add( new TaskMock( 6, 10 ), 1, children );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null,
+                new FifoPolicy( 1, OverflowPolicy.BLOCK ) );
+        CompletableFuture<List<ITaskResult<?>>> future = asyncServiceMock.submitGraph( graph );
+        asyncServiceMock.executorAsynchronously();
+
+        List<ITaskResult<?>> results = future.get( 5, TimeUnit.SECONDS );
+        for( int i = 0; i < 7; i++ ) {
+            Assertions.assertEquals( i, results.get( i ).getResult() );
+        }
+    }
+
+    @Test
+    void invalidGraph() {
+        TaskMock a = new TaskMock( 1 );
+        TaskMock b = new TaskMock( 2 );
+        TaskGraph<ITask<?>> graph = new TaskGraph<>();
+        // The parents first
+        Assertions.assertThrows( IllegalArgumentException.class, () -> graph.add( b, a ) );
+        graph.add( a );
+        Assertions.assertThrows( IllegalArgumentException.class, () -> graph.add( a ) );
+
+        AsyncServiceMock asyncServiceMock = new AsyncServiceMock( 1, null, null );
+        asyncServiceMock.submitGraph( graph );
+        Assertions.assertThrows( IllegalStateException.class, () -> graph.add( b, a ) );
+        Assertions.assertThrows( IllegalStateException.class, () -> asyncServiceMock.submitGraph( graph ) );
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.jr.core;
+
+
+import com.jr.core.api.async.TaskId;
+import com.jr.core.mock.TaskMock;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+
+class TaskIdTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void monotonic() {
+        TaskId previous = TaskId.next();
+        // More ids than the sequence of one millisecond
+        for( int i = 0; i < 20_000; i++ ) {
+            TaskId next = TaskId.next();
+            Assertions.assertTrue( next.compareTo( previous ) > 0, previous + " " + next );
+            Assertions.assertTrue( next.toString().compareTo( previous.toString() ) > 0 );
+            Assertions.assertEquals( TaskId.getLocalNode(), next.getNode() );
+            previous = next;
+        }
+        // Not far from the clock
+        Assertions.assertTrue( Math.abs( previous.getTimestamp() - System.currentTimeMillis() ) < 5_000 );
+    }
+
+    @Test
+    void uniqueBetweenThreads() throws InterruptedException {
+        int threads = 8;
+        int byThread = 10_000;
+        Set<TaskId> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch( 1 );
+        List<Thread> workers = new ArrayList<>();
+        for( int t = 0; t < threads; t++ ) {
+            Thread worker = new Thread( () -> {
+                try {
+                    start.await();
+                }
+                catch ( InterruptedException ex ) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for( int i = 0; i < byThread; i++ ) {
+                    ids.add( TaskId.next() );
+                }
+            });
+            worker.start();
+            workers.add( worker );
+        }
+        start.countDown();
+        for( Thread worker : workers ) {
+            worker.join();
+        }
+        Assertions.assertEquals( threads * byThread, ids.size() );
+    }
+
+    @Test
+    void text() {
+        TaskId id = TaskId.next();
+        String text = id.toString();
+        Assertions.assertEquals( 16, text.length() );
+        // Created once
+        Assertions.assertSame( text, id.toString() );
+        Assertions.assertEquals( id, TaskId.parse( text ) );
+        Assertions.assertEquals( id.hashCode(), TaskId.parse( text ).hashCode() );
+        Assertions.assertEquals( id, TaskId.of( id.getValue() ) );
+        Assertions.assertEquals( "0000000000000401", TaskId.of( 0x401 ).toString() );
+        Assertions.assertEquals( 1, TaskId.of( 0x401 ).getSequence() );
+        Assertions.assertEquals( 1, TaskId.of( 0x401 ).getNode() );
+    }
+
+    @Test
+    void taskEquality() throws Exception {
+        TaskMock task1 = new TaskMock( 1 );
+        TaskMock task2 = new TaskMock( 1 );
+        Assertions.assertNotEquals( task1, task2 );
+        Assertions.assertNotEquals( task1.getIdentity(), task2.getIdentity() );
+
+        // The equality does not change with the state of the task
+        int hashCode = task1.hashCode();
+        task1.call();
+        Assertions.assertEquals( hashCode, task1.hashCode() );
+        Assertions.assertEquals( task1.getId().hashCode(), task1.getIdentity().hashCode() );
+    }
+
+}
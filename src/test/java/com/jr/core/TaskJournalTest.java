@@ -0,0 +1,127 @@
+package com.jr.core;
+
+
+import com.jr.core.mock.TaskMock;
+import com.jr.core.service.async.TaskJournal;
+import com.jr.core.service.async.TimeOutTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+class TaskJournalTest {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private static final TimeOutTask FLUSH = new TimeOutTask( 5, TimeUnit.MILLISECONDS );
+
+    @TempDir
+    Path directory;
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void replayNotCompleted() throws IOException
+    {
+        try( TaskJournal journal = new TaskJournal( this.directory, 64 * 1024, FLUSH ) ) {
+            long first = journal.enqueue( new TaskMock( 1 ) );
+            long second = journal.enqueue( new TaskMock( 2 ) );
+            long third = journal.enqueue( new TaskMock( 3 ) );
+            journal.started( first );
+            journal.complete( first );
+            journal.started( second );
+            Assertions.assertEquals( 2, journal.getPendingTasks() );
+            Assertions.assertTrue( third > second );
+            // Not serializable
+            Assertions.assertEquals( -1, journal.enqueue( (Runnable) () -> {} ) );
+        }
+
+        List<Integer> numbers = this.replay();
+        Assertions.assertEquals( List.of( 2, 3 ), numbers );
+        // Not completed : replayed again
+        Assertions.assertEquals( List.of( 2, 3 ), this.replay() );
+    }
+
+    @Test
+    void tornRecordIgnored() throws IOException
+    {
+        try( TaskJournal journal = new TaskJournal( this.directory, 64 * 1024, FLUSH ) ) {
+            journal.enqueue( new TaskMock( 1 ) );
+            journal.enqueue( new TaskMock( 2 ) );
+        }
+        // A crash in the middle of the second record
+        Path segment = this.segments().get( 0 );
+        try( RandomAccessFile file = new RandomAccessFile( segment.toFile(), "rw" ) ) {
+            int first = file.readInt();
+            file.seek( first );
+            int second = file.readInt();
+            file.seek( first + second - 1 );
+            byte last = file.readByte();
+            file.seek( first + second - 1 );
+            file.writeByte( ~ last );
+        }
+
+        Assertions.assertEquals( List.of( 1 ), this.replay() );
+    }
+
+    @Test
+    void compaction() throws IOException
+    {
+        long survivor;
+        // No compaction by the thread of the journal during the test
+        TimeOutTask never = new TimeOutTask( 1, TimeUnit.HOURS );
+        try( TaskJournal journal = new TaskJournal( this.directory, 8 * 1024, never ) ) {
+            survivor = journal.enqueue( new TaskMock( 0 ) );
+            for( int i = 1; i < 200; i++ ) {
+                long id = journal.enqueue( new TaskMock( i ) );
+                journal.started( id );
+                journal.complete( id );
+            }
+            Assertions.assertTrue( journal.getSegments() > 10, "Segments : " + journal.getSegments() );
+
+            journal.compact();
+            // The survivor has been copied to the active segment, the other segments are deleted
+            Assertions.assertTrue( journal.getSegments() <= 2, "Segments : " + journal.getSegments() );
+            Assertions.assertEquals( 1, journal.getPendingTasks() );
+        }
+
+        List<Integer> numbers = this.replay();
+        Assertions.assertEquals( List.of( 0 ), numbers );
+        Assertions.assertTrue( survivor >= 0 );
+    }
+
+    /**
+     * Open the journal and list the numbers of the tasks to replay
+     */
+    private List<Integer> replay() throws IOException
+    {
+        List<Integer> numbers = new ArrayList<>();
+        try( TaskJournal journal = new TaskJournal( this.directory, 64 * 1024, FLUSH ) ) {
+            journal.replay( ( task, id ) -> numbers.add( ((TaskMock) task).getNumber() ) );
+        }
+        return numbers;
+    }
+
+    private List<Path> segments() throws IOException
+    {
+        try( Stream<Path> files = Files.list( this.directory ) ) {
+            return files.sorted().collect( Collectors.toList() );
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.jr.core;
+
+
+import com.jr.core.mock.TaskMock;
+import com.jr.core.service.async.ArrayTaskQueue;
+import com.jr.core.service.async.PriorityTaskQueue;
+import com.jr.core.service.async.TaskEntry;
+import com.jr.core.service.async.TaskQueue;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+class TaskQueueTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void firstInFirstOut()
+    {
+        TaskQueue taskQueue = new ArrayTaskQueue( 3 );
+        TaskEntry entry1 = entry( 1, 0 );
+        TaskEntry entry2 = entry( 2, 5 );
+        TaskEntry entry3 = entry( 3, 0 );
+
+        Assertions.assertTrue( taskQueue.offer( entry1 ) );
+        Assertions.assertTrue( taskQueue.offer( entry2 ) );
+        Assertions.assertTrue( taskQueue.offer( entry3 ) );
+        Assertions.assertFalse( taskQueue.offer( entry( 4, 0 ) ) );
+
+        // The oldest is dropped
+        Assertions.assertSame( entry1, taskQueue.evict() );
+        Assertions.assertTrue( taskQueue.offer( entry1 ) );
+        Assertions.assertEquals( 3, taskQueue.size() );
+
+        List<TaskEntry> drained = new ArrayList<>();
+        Assertions.assertEquals( 3, taskQueue.drainTo( drained ) );
+        Assertions.assertEquals( Arrays.asList( entry2, entry3, entry1 ), drained );
+        Assertions.assertTrue( taskQueue.isEmpty() );
+    }
+
+    @Test
+    void priorityStableWithinPriority()
+    {
+        TaskQueue taskQueue = new PriorityTaskQueue( 10, 1, TimeUnit.HOURS );
+        TaskEntry low1  = entry( 1, 0 );
+        TaskEntry high1 = entry( 2, 5 );
+        TaskEntry low2  = entry( 3, 0 );
+        TaskEntry high2 = entry( 4, 5 );
+        TaskEntry urgent = entry( 5, 9 );
+        for( TaskEntry entry : Arrays.asList( low1, high1, low2, high2, urgent ) ) {
+            Assertions.assertTrue( taskQueue.offer( entry ) );
+        }
+
+        // The snapshot is in the order of dispatch
+        List<TaskEntry> snapshot = new ArrayList<>( taskQueue );
+        Assertions.assertEquals( Arrays.asList( urgent, high1, high2, low1, low2 ), snapshot );
+
+        // The least urgent is dropped
+        Assertions.assertSame( low2, taskQueue.evict() );
+
+        List<TaskEntry> drained = new ArrayList<>();
+        taskQueue.drainTo( drained, 2 );
+        Assertions.assertEquals( Arrays.asList( urgent, high1 ), drained );
+        Assertions.assertSame( high2, taskQueue.poll() );
+        Assertions.assertSame( low1, taskQueue.poll() );
+        Assertions.assertNull( taskQueue.poll() );
+    }
+
+    @Test
+    void agingAvoidsStarvation() throws InterruptedException
+    {
+        // One level of priority every 10 ms
+        TaskQueue taskQueue = new PriorityTaskQueue( 10, 10, TimeUnit.MILLISECONDS );
+        TaskEntry low = entry( 1, 0 );
+        taskQueue.offer( low );
+
+        // Waited more than 2 levels
+        Thread.sleep( 50 );
+        TaskEntry high = entry( 2, 2 );
+        taskQueue.offer( high );
+        // Much more urgent
+        TaskEntry urgent = entry( 3, 100 );
+        taskQueue.offer( urgent );
+
+        Assertions.assertSame( urgent, taskQueue.poll() );
+        Assertions.assertSame( low, taskQueue.poll() );
+        Assertions.assertSame( high, taskQueue.poll() );
+    }
+
+    private static TaskEntry entry( int number, int priority )
+    {
+        TaskMock taskMock = new TaskMock( number, 10 );
+        taskMock.setPriority( priority );
+        return new TaskEntry( taskMock, false );
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.jr.core;
+
+
+import com.jr.core.service.async.TimeOutWheel;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+class TimeOutWheelTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void expireWithinTolerance() throws InterruptedException
+    {
+        //
+        // - PREPARE TEST
+        //
+        int tolerance           = 10; // 10 ms
+        int delay               = 200; // 200 ms
+        int numberOfTimeOut     = 1000;
+        TimeOutWheel timeOutWheel = new TimeOutWheel( "test-wheel", tolerance, TimeUnit.MILLISECONDS, 64 );
+
+        CountDownLatch expired  = new CountDownLatch( numberOfTimeOut );
+        AtomicLong maxLate      = new AtomicLong();
+        long start              = System.nanoTime();
+
+        //
+        // - TEST
+        //
+        for( int i = 0; i < numberOfTimeOut; i++ ){
+            timeOutWheel.newTimeOut(() -> {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+                maxLate.accumulateAndGet( elapsed - delay, Math::max );
+                expired.countDown();
+            }, delay, TimeUnit.MILLISECONDS );
+        }
+
+        Assertions.assertTrue( expired.await( 2, TimeUnit.SECONDS ) );
+        // The scheduler of the OS adds its own delay to the tolerance
+        Assertions.assertTrue( maxLate.get() >= 0 );
+        Assertions.assertTrue( maxLate.get() <= tolerance + 50, "Late : " + maxLate.get() + " ms" );
+        Assertions.assertEquals( 0, timeOutWheel.getPendingTimeOuts() );
+
+        timeOutWheel.stop();
+    }
+
+    @Test
+    void cancel() throws InterruptedException
+    {
+        TimeOutWheel timeOutWheel = new TimeOutWheel( "test-wheel" );
+        AtomicInteger expired = new AtomicInteger();
+
+        List<TimeOutWheel.TimeOut> timeOutList = new ArrayList<>();
+        for( int i = 0; i < 100; i++ ){
+            timeOutList.add( timeOutWheel.newTimeOut( expired::incrementAndGet, 50, TimeUnit.MILLISECONDS ) );
+        }
+        for( TimeOutWheel.TimeOut timeOut : timeOutList ){
+            Assertions.assertTrue( timeOut.cancel() );
+        }
+        Assertions.assertEquals( 0, timeOutWheel.getPendingTimeOuts() );
+
+        Thread.sleep( 150 );
+
+        Assertions.assertEquals( 0, expired.get() );
+        for( TimeOutWheel.TimeOut timeOut : timeOutList ){
+            Assertions.assertFalse( timeOut.cancel() );
+            Assertions.assertFalse( timeOut.isExpired() );
+        }
+
+        timeOutWheel.stop();
+    }
+
+}
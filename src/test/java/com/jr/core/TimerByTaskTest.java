@@ -5,7 +5,14 @@ import com.jr.core.service.async.TimerByTask;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 
 class TimerByTaskTest {
@@ -48,4 +55,94 @@ class TimerByTaskTest {
         Assertions.assertEquals( timeInMillisecond, timeDiff, tolerance );
     }
 
+    @Test
+    void tryAcquire()
+    {
+        int numberOfCommand     = 3;
+        long timeInMillisecond  = 300; // 300 ms
+        TimerByTask timerByTask = new TimerByTask( numberOfCommand, timeInMillisecond );
+
+        for( int i = 0; i < numberOfCommand; i++ ){
+            Assertions.assertTrue( timerByTask.tryAcquire() );
+        }
+        Assertions.assertFalse( timerByTask.tryAcquire() );
+        Assertions.assertEquals( 0, timerByTask.getAvailableCommand() );
+        Assertions.assertEquals( numberOfCommand, timerByTask.getSize() );
+
+        // The next place is freed when the first order leaves the window
+        long waitNanos = timerByTask.getNanosBeforeNextCommand();
+        Assertions.assertTrue( waitNanos > 0 );
+        Assertions.assertTrue( waitNanos <= TimeUnit.MILLISECONDS.toNanos( timeInMillisecond ) );
+
+        LockSupport.parkNanos( waitNanos );
+        while( timerByTask.getNanosBeforeNextCommand() > 0 ){
+            LockSupport.parkNanos( timerByTask.getNanosBeforeNextCommand() );
+        }
+        Assertions.assertTrue( timerByTask.tryAcquire() );
+    }
+
+    /**
+     * Checking that concurrent callers never get more places than the window
+     */
+    @Test
+    void tryAcquire_concurrent() throws InterruptedException
+    {
+        int numberOfCommand     = 50;
+        int numberOfCaller      = 4;
+        TimerByTask timerByTask = new TimerByTask( numberOfCommand, 1, TimeUnit.HOURS );
+
+        AtomicInteger acquired = new AtomicInteger();
+        List<Thread> callers = new ArrayList<>();
+        for( int c = 0; c < numberOfCaller; c++ ){
+            Thread caller = new Thread(() -> {
+                for( int i = 0; i < numberOfCommand; i++ ){
+                    if( timerByTask.tryAcquire() ){
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            caller.start();
+            callers.add( caller );
+        }
+        for( Thread caller : callers ){
+            caller.join();
+        }
+
+        Assertions.assertEquals( numberOfCommand, acquired.get() );
+        Assertions.assertFalse( timerByTask.valid() );
+    }
+
+    /**
+     * Checking that a late start never hides a newer order of its slot ( the next callers would wait for it forever )
+     */
+    @Test
+    void startCommand_concurrent()
+    {
+        int numberOfOrder       = 200_000;
+        TimerByTask timerByTask = new TimerByTask( 1, 1, TimeUnit.NANOSECONDS );
+
+        Assertions.assertTimeoutPreemptively( Duration.ofSeconds( 30 ), () -> {
+            AtomicLong last = new AtomicLong( -1 );
+            List<Thread> starters = new ArrayList<>();
+            for( int c = 0; c < 2; c++ ){
+                // The controller starts an order while the next one takes its slot
+                Thread starter = new Thread(() -> {
+                    while( last.get() < numberOfOrder - 1 ){
+                        timerByTask.startCommand( last.get() );
+                    }
+                });
+                starter.setDaemon( true );
+                starter.start();
+                starters.add( starter );
+            }
+            for( int i = 0; i < numberOfOrder; i++ ){
+                last.set( timerByTask.setNewCommand() );
+            }
+            for( Thread starter : starters ){
+                starter.join();
+            }
+            Assertions.assertEquals( 1, timerByTask.getAvailableCommand() );
+        });
+    }
+
 }
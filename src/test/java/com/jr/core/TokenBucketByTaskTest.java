@@ -0,0 +1,63 @@
+package com.jr.core;
+
+
+import com.jr.core.service.async.TokenBucketByTask;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+class TokenBucketByTaskTest {
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+
+    @Test
+    void burstThenSustainedRate()
+    {
+        //
+        // - PREPARE TEST
+        //
+        int numberOfCommand     = 10;  // 10 orders by second : one order every 100 ms
+        int burst               = 3;
+        TokenBucketByTask tokenBucketByTask = new TokenBucketByTask( numberOfCommand, 1, TimeUnit.SECONDS, burst );
+
+        //
+        // - TEST
+        //
+        Assertions.assertEquals( burst, tokenBucketByTask.getAvailableCommand( 100 ) );
+        for( int i = 0; i < burst; i++ ){
+            Assertions.assertTrue( tokenBucketByTask.tryAcquire() );
+        }
+        Assertions.assertFalse( tokenBucketByTask.tryAcquire() );
+        Assertions.assertEquals( 0, tokenBucketByTask.getAvailableCommand( 100 ) );
+
+        // The next order is allowed after one emission interval, not after a whole window
+        long waitNanos = tokenBucketByTask.getNanosBeforeNextCommand();
+        Assertions.assertTrue( waitNanos > 0 );
+        Assertions.assertTrue( waitNanos <= TimeUnit.MILLISECONDS.toNanos( 100 ) );
+
+        LockSupport.parkNanos( waitNanos );
+        while( tokenBucketByTask.getNanosBeforeNextCommand() > 0 ){
+            LockSupport.parkNanos( tokenBucketByTask.getNanosBeforeNextCommand() );
+        }
+        Assertions.assertTrue( tokenBucketByTask.tryAcquire() );
+        Assertions.assertFalse( tokenBucketByTask.tryAcquire() );
+    }
+
+    @Test
+    void setNewCommandWithoutPlace()
+    {
+        TokenBucketByTask tokenBucketByTask = new TokenBucketByTask( 1, 1, TimeUnit.HOURS, 1 );
+        tokenBucketByTask.setNewCommand();
+        tokenBucketByTask.setNewCommand();
+
+        // Two orders are charged : the next one waits for more than one interval
+        Assertions.assertTrue( tokenBucketByTask.getNanosBeforeNextCommand() > TimeUnit.MINUTES.toNanos( 61 ) );
+    }
+
+}
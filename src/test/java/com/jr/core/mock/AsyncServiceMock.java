@@ -3,6 +3,8 @@ package com.jr.core.mock;
 
 import com.jr.core.api.async.ITask;
 import com.jr.core.service.async.AsyncService;
+import com.jr.core.service.async.FifoPolicy;
+import com.jr.core.service.async.IExecutorFactory;
 import com.jr.core.service.async.TimeOutTask;
 import com.jr.core.service.async.TimerTask;
 
@@ -18,4 +20,13 @@ public class AsyncServiceMock extends AsyncService<ITask<?>> {
         super(maxThread, timerTaskList, timeOutTask);
     }
 
+    public AsyncServiceMock(int maxThread, List<TimerTask> timerTaskList, TimeOutTask timeOutTask, FifoPolicy fifoPolicy) {
+        super(maxThread, timerTaskList, timeOutTask, fifoPolicy);
+    }
+
+    public AsyncServiceMock(int maxThread, List<TimerTask> timerTaskList, TimeOutTask timeOutTask, FifoPolicy fifoPolicy,
+                            IExecutorFactory executorFactory) {
+        super(maxThread, timerTaskList, timeOutTask, fifoPolicy, executorFactory);
+    }
+
 }
@@ -0,0 +1,97 @@
+package com.jr.core.mock;
+
+import com.jr.core.api.async.SplittableTask;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sum of the numbers of a range, split in halves down to the threshold
+ */
+public class SumTaskMock extends SplittableTask<Long> {
+
+    // --------------------------------------
+    // -        Attributes                  -
+    // --------------------------------------
+
+    private final long from;
+    private final long to;
+    private final long threshold;
+    // A leaf containing this number fails ( -1 : none )
+    private final long failAt;
+    // Pause of each leaf in ms
+    private final long pause;
+
+    public SumTaskMock( long from, long to, long threshold )
+    {
+        this( from, to, threshold, -1, 0 );
+    }
+
+    public SumTaskMock( long from, long to, long threshold, long failAt, long pause )
+    {
+        this.from       = from;
+        this.to         = to;
+        this.threshold  = threshold;
+        this.failAt     = failAt;
+        this.pause      = pause;
+    }
+
+    // --------------------------------------
+    // -        Methods                     -
+    // --------------------------------------
+
+    @Override
+    protected List<SumTaskMock> split()
+    {
+        if( this.to - this.from <= this.threshold ) {
+            return null;
+        }
+        long middle = ( this.from + this.to ) >>> 1;
+        return Arrays.asList( new SumTaskMock( this.from, middle, this.threshold, this.failAt, this.pause ),
+                new SumTaskMock( middle, this.to, this.threshold, this.failAt, this.pause ) );
+    }
+
+    @Override
+    protected Long compute() throws Exception
+    {
+        if( this.failAt >= this.from && this.failAt < this.to ) {
+            throw new IllegalStateException( "Fail at " + this.failAt );
+        }
+        long sum = 0;
+        long half = ( this.from + this.to ) >>> 1;
+        for( long i = this.from; i < this.to; i++ ) {
+            if( i == half ) {
+                this.setPercent( 50 );
+            }
+            sum += i;
+        }
+        long end = System.currentTimeMillis() + this.pause;
+        while( System.currentTimeMillis() < end && ! this.isCancelled() ) {
+            Thread.sleep( 5 );
+        }
+        return sum;
+    }
+
+    @Override
+    protected Long merge( List<Long> results )
+    {
+        long sum = 0;
+        for( Long result : results ) {
+            sum += result;
+        }
+        return sum;
+    }
+
+    @Override
+    protected long getWeight()
+    {
+        return this.to - this.from;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SumTaskMock{from=" + this.from + ", to=" + this.to + '}';
+    }
+
+}
@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TaskMock extends Task<Integer> {
 
@@ -25,6 +26,8 @@ public class TaskMock extends Task<Integer> {
     public Date start;
     @Getter @Setter(AccessLevel.PROTECTED)
     public Date end;
+    @Getter
+    private final AtomicInteger calls = new AtomicInteger();
 
     public TaskMock(Integer number ){
         this.number = number;
@@ -41,6 +44,7 @@ public class TaskMock extends Task<Integer> {
 
     @Override
     public Integer call() throws Exception {
+        this.calls.incrementAndGet();
         this.setStart( new Date() );
         this.logger.info("Order : {} - START : {} ", number, this.getStart() );
         Thread.sleep( this.wait );